@@ -0,0 +1,130 @@
+package org.example.chickendirect.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.chickendirect.dtos.OrderOutputDto;
+import org.example.chickendirect.dtos.OrderProductForCustomerOutputDto;
+import org.example.chickendirect.entities.Address;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.Order;
+import org.example.chickendirect.entities.OrderProduct;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.OrderStatus;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.metrics.OrderMetrics;
+import org.example.chickendirect.outbox.OutboxWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-order CPU cost of pricing, DTO mapping and stock status derivation. Runs with
+ * {@code ./mvnw -Pjmh test-compile exec:exec}; results are written as JSON to {@code target/jmh-result.json}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPricingBenchmark {
+
+    private static final int[] REMAINING_QUANTITIES = {0, 3, 10, 11, 250};
+
+    @Param({"1", "5", "20", "100"})
+    private int lineCount;
+
+    private OrderService orderService;
+    private OrderProductService orderProductService;
+    private Order order;
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        OrderMetrics orderMetrics = new OrderMetrics(new SimpleMeterRegistry());
+        OutboxWriter outboxWriter = new OutboxWriter(null, null) {
+            @Override
+            public void stockStatusChanged(Product product) {
+            }
+        };
+        orderService = new OrderService(null, null, null, null, null, orderMetrics, outboxWriter,
+                null, null, null, null);
+        orderProductService = new OrderProductService(null, null, null, orderService, null, orderMetrics, outboxWriter, null, null);
+
+        Customer customer = new Customer();
+        customer.setCustomerId(1L);
+        customer.setName("Benchmark Customer");
+        customer.setPhoneNumber("90000000");
+        customer.setEmail("benchmark@chickendirect.test");
+
+        Address address = new Address();
+        address.setAddressId(1L);
+        address.setApartmentNumber("1A");
+        address.setAddress("Benchmark Street 1");
+        address.setZipCode("0150");
+        address.setCity("Oslo");
+        address.setCountry("Norway");
+
+        order = new Order();
+        order.setOrderId(1L);
+        order.setCustomer(customer);
+        order.setAddress(address);
+        order.setDate(LocalDate.now());
+        order.setOrderStatus(OrderStatus.CONFIRMED);
+
+        List<OrderProduct> items = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            Product lineProduct = new Product("Product " + i, "Benchmark", new BigDecimal("49.90").add(BigDecimal.valueOf(i)),
+                    ProductStatus.IN_STOCK, 1_000, "kg");
+            lineProduct.setProductId(i + 1L);
+
+            OrderProduct line = new OrderProduct();
+            line.setOrderProductId(i + 1L);
+            line.setOrder(order);
+            line.setProduct(lineProduct);
+            line.setQuantity(1 + i % 7);
+            line.setUnitPrice(lineProduct.getPrice());
+            items.add(line);
+        }
+        order.setItems(items);
+        order.setTotalSum(orderService.calculateTotal(items));
+        order.setShippingCharge(orderService.calculateShipping(items));
+
+        product = items.get(0).getProduct();
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotal() {
+        return orderService.calculateTotal(order.getItems());
+    }
+
+    @Benchmark
+    public BigDecimal calculateShipping() {
+        return orderService.calculateShipping(order.getItems());
+    }
+
+    @Benchmark
+    public OrderOutputDto mapOrderToDto() {
+        return OrderMapper.toDto(order);
+    }
+
+    @Benchmark
+    public void mapOrderProductsToDto(Blackhole blackhole) {
+        for (OrderProduct line : order.getItems()) {
+            OrderProductForCustomerOutputDto dto = orderProductService.mapToDto(line);
+            blackhole.consume(dto);
+        }
+    }
+
+    @Benchmark
+    public ProductStatus updateProductStatusByQuantity() {
+        for (int remaining : REMAINING_QUANTITIES) {
+            orderService.updateProductStatusByQuantity(product, remaining);
+        }
+        return product.getProductStatus();
+    }
+}
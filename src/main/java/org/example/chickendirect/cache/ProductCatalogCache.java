@@ -0,0 +1,190 @@
+package org.example.chickendirect.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.chickendirect.dtos.CursorPage;
+import org.example.chickendirect.entities.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache in front of the product catalog.
+ * <p>
+ * Every mutation in {@code ProductService} writes the new state through with {@link #put} or {@link #evict}.
+ * Stock changes made by orders only call {@link #evictStock}: the product is dropped from the id cache and from
+ * Hibernate's second-level cache once the surrounding transaction commits, while cached catalog pages may show a
+ * quantity that is at most {@code chickendirect.catalog-cache.quantity-staleness} old.
+ * <p>
+ * Cached products are detached copies and must be treated as read-only.
+ */
+@Component
+public class ProductCatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCatalogCache.class);
+
+    private final Cache<Long, Product> productsById;
+    private final Cache<String, Long> productIdsByName;
+    private final Cache<PageKey, CursorPage<Product>> catalogPages;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ProductCatalogCache(
+            @Value("${chickendirect.catalog-cache.maximum-size:10000}") long maximumSize,
+            @Value("${chickendirect.catalog-cache.quantity-staleness:5s}") Duration quantityStaleness,
+            MeterRegistry meterRegistry,
+            EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.productsById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(quantityStaleness)
+                .recordStats()
+                .build();
+        this.productIdsByName = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.catalogPages = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maximumSize / 10))
+                .expireAfterWrite(quantityStaleness)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, productsById, "productById");
+        CaffeineCacheMetrics.monitor(meterRegistry, productIdsByName, "productIdByName");
+        CaffeineCacheMetrics.monitor(meterRegistry, catalogPages, "productCatalogPage");
+    }
+
+    public Optional<Product> getById(long productId, Function<Long, Optional<Product>> loader) {
+        return Optional.ofNullable(productsById.get(productId,
+                id -> loader.apply(id).map(this::snapshot).orElse(null)));
+    }
+
+    public Optional<Long> getIdByName(String name, Function<String, Optional<Product>> loader) {
+        return Optional.ofNullable(productIdsByName.get(name,
+                key -> loader.apply(key).map(Product::getProductId).orElse(null)));
+    }
+
+    public CursorPage<Product> getPage(long after, int limit, Supplier<CursorPage<Product>> loader) {
+        return catalogPages.get(new PageKey(after, limit), key -> {
+            CursorPage<Product> page = loader.get();
+            return new CursorPage<>(page.items().stream().map(this::snapshot).toList(), page.nextCursor());
+        });
+    }
+
+    public void put(Product product) {
+        putAll(List.of(product));
+    }
+
+    public void putAll(Collection<Product> products) {
+        List<Product> snapshots = products.stream().map(this::snapshot).toList();
+        snapshots.forEach(this::invalidate);
+        catalogPages.invalidateAll();
+
+        afterCompletion(committed -> {
+            snapshots.forEach(committed ? this::store : this::invalidate);
+            catalogPages.invalidateAll();
+        });
+    }
+
+    public void evict(long productId) {
+        productIdsByName.asMap().values().removeIf(id -> id == productId);
+        productsById.invalidate(productId);
+        catalogPages.invalidateAll();
+
+        afterCompletion(committed -> {
+            productsById.invalidate(productId);
+            catalogPages.invalidateAll();
+        });
+    }
+
+    public void invalidatePages() {
+        catalogPages.invalidateAll();
+        afterCompletion(committed -> catalogPages.invalidateAll());
+    }
+
+    public void evictName(String name) {
+        productIdsByName.invalidate(name);
+    }
+
+    /**
+     * Conditional stock updates run as native SQL and bypass Hibernate's second-level cache, so the cached entity is
+     * evicted here as well. Locking reads such as {@code findByIdForUpdate} always go to the database.
+     */
+    public void evictStock(long productId) {
+        productsById.invalidate(productId);
+        entityManagerFactory.getCache().evict(Product.class, productId);
+        afterCompletion(committed -> {
+            productsById.invalidate(productId);
+            entityManagerFactory.getCache().evict(Product.class, productId);
+        });
+        log.debug("Evicted cached stock for product id={}", productId);
+    }
+
+    public void invalidateAll() {
+        productsById.invalidateAll();
+        productIdsByName.invalidateAll();
+        catalogPages.invalidateAll();
+    }
+
+    /**
+     * Caffeine rejects null keys, so a product without a name is only cached by id, and one that was never saved
+     * (id 0) is not cached at all.
+     */
+    private void store(Product snapshot) {
+        if (snapshot.getProductId() == 0) {
+            return;
+        }
+        productsById.put(snapshot.getProductId(), snapshot);
+        if (snapshot.getName() != null) {
+            productIdsByName.put(snapshot.getName(), snapshot.getProductId());
+        }
+    }
+
+    private void invalidate(Product product) {
+        productsById.invalidate(product.getProductId());
+        if (product.getName() != null) {
+            productIdsByName.invalidate(product.getName());
+        }
+    }
+
+    /**
+     * Readers may reload the old row while the writing transaction is still open, so every change is applied
+     * again once the transaction has finished. Without a transaction the action runs immediately.
+     */
+    private void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private Product snapshot(Product product) {
+        Product copy = new Product(product.getName(), product.getDescription(), product.getPrice(),
+                product.getProductStatus(), product.getQuantity(), product.getUnit());
+        copy.setProductId(product.getProductId());
+        return copy;
+    }
+
+    private record PageKey(long after, int limit) {
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.chickendirect.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Local Caffeine-backed JCache regions for Hibernate's second-level cache.
+ * <p>
+ * Every region is created here with a size bound and a time-to-live, and Hibernate is configured to fail on
+ * unknown regions, so a misspelled region name on an entity is caught at startup instead of silently creating an
+ * unbounded cache. Each application context gets its own {@link CacheManager}.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String PRODUCT_REGION = "product";
+    public static final String CUSTOMER_REGION = "customer";
+    public static final String CUSTOMER_ADDRESSES_REGION = "customer.addressList";
+    public static final String ADDRESS_REGION = "address";
+
+    private static final List<String> REGIONS =
+            List.of(PRODUCT_REGION, CUSTOMER_REGION, CUSTOMER_ADDRESSES_REGION, ADDRESS_REGION);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            @Value("${chickendirect.second-level-cache.maximum-size:10000}") long maximumSize,
+            @Value("${chickendirect.second-level-cache.time-to-live:10m}") Duration timeToLive) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("chickendirect:second-level-cache:" + UUID.randomUUID()),
+                        getClass().getClassLoader());
+
+        for (String region : REGIONS) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+            configuration.setStoreByValue(false);
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuration);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+}
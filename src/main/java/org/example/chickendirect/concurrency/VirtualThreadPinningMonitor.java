@@ -0,0 +1,109 @@
+package org.example.chickendirect.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Streams JFR {@code jdk.VirtualThreadPinned} events in-process and reports where a virtual thread kept its
+ * carrier thread blocked, typically by blocking inside a {@code synchronized} method or block or below a native
+ * frame.
+ * <p>
+ * Each event is logged with the frame that pins (a {@code synchronized} or native method when one is on the stack)
+ * and the innermost application frame. It is also recorded in the {@value #PINNED_EVENTS} timer, tagged with that
+ * application frame.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    public static final String PINNED_EVENTS = "chickendirect.virtual_threads.pinned";
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "org.example.chickendirect.";
+
+    private final Duration threshold;
+    private final MeterRegistry meterRegistry;
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(
+            @Value("${chickendirect.virtual-threads.pinning-threshold:20ms}") Duration threshold,
+            MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (stream != null) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::report);
+        stream.startAsync();
+        log.info("Reporting virtual threads pinned for longer than {}", threshold);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return stream != null;
+    }
+
+    private void report(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+
+        String pinningFrame = frames.stream()
+                .filter(VirtualThreadPinningMonitor::pinsCarrier)
+                .map(VirtualThreadPinningMonitor::describe)
+                .findFirst()
+                .orElse("unknown");
+        String applicationFrame = frames.stream()
+                .filter(frame -> frame.isJavaFrame()
+                        && frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+                .map(VirtualThreadPinningMonitor::describe)
+                .findFirst()
+                .orElse("none");
+
+        Timer.builder(PINNED_EVENTS)
+                .description("Time virtual threads kept their carrier thread pinned")
+                .tag("site", applicationFrame)
+                .register(meterRegistry)
+                .record(event.getDuration());
+        log.warn("Virtual thread pinned its carrier for {} ms at {} (pinning frame: {})",
+                event.getDuration().toMillis(), applicationFrame, pinningFrame);
+    }
+
+    private static boolean pinsCarrier(RecordedFrame frame) {
+        return "Native".equals(frame.getType()) || Modifier.isSynchronized(frame.getMethod().getModifiers())
+                || Modifier.isNative(frame.getMethod().getModifiers());
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.chickendirect.concurrency;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of requests in flight when Tomcat runs on virtual threads.
+ * <p>
+ * Platform threads used to cap concurrency at the Tomcat pool size. Virtual threads remove that cap, and thousands
+ * of requests would otherwise queue inside Hikari until {@code connectionTimeout} fails them. Open-in-view holds a
+ * connection for the rest of a request once it is acquired, so the limit is derived from the Hikari pool size.
+ * Waiting here is cheap for a virtual thread. A request that cannot get a permit within the acquire timeout is
+ * rejected with 503 and {@code Retry-After}.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadRequestLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadRequestLimitFilter.class);
+
+    public static final String IN_FLIGHT_REQUESTS = "chickendirect.requests.in_flight";
+    public static final String REJECTED_REQUESTS = "chickendirect.requests.rejected";
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private final int maxConcurrentRequests;
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final Counter rejected;
+
+    public VirtualThreadRequestLimitFilter(
+            DataSource dataSource,
+            @Value("${chickendirect.virtual-threads.requests-per-connection:2}") int requestsPerConnection,
+            @Value("${chickendirect.virtual-threads.acquire-timeout:5s}") Duration acquireTimeout,
+            MeterRegistry meterRegistry) {
+        int poolSize = poolSize(dataSource);
+        this.maxConcurrentRequests = Math.max(1, poolSize * requestsPerConnection);
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.acquireTimeout = acquireTimeout;
+        this.rejected = Counter.builder(REJECTED_REQUESTS)
+                .description("Requests rejected because the concurrent request limit was reached")
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_REQUESTS, permits, p -> maxConcurrentRequests - p.availablePermits())
+                .description("Requests currently holding a concurrency permit")
+                .register(meterRegistry);
+
+        log.info("Limiting virtual-thread requests to {} in flight ({} connections x {})",
+                maxConcurrentRequests, poolSize, requestsPerConnection);
+    }
+
+    /**
+     * The data source may be a proxy, for example when reads are routed to a replica; the limit follows the pool
+     * that serves writes.
+     */
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException ex) {
+            log.warn("Could not determine the connection pool size, assuming {}", DEFAULT_POOL_SIZE, ex);
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejected.increment();
+            log.warn("Rejecting {} {}: {} requests already in flight",
+                    request.getMethod(), request.getRequestURI(), maxConcurrentRequests);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
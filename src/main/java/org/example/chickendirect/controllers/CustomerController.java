@@ -1,14 +1,22 @@
 package org.example.chickendirect.controllers;
 
+import org.example.chickendirect.dtos.CursorPage;
 import org.example.chickendirect.dtos.CustomerDto;
+import org.example.chickendirect.dtos.CustomerImportResult;
 import org.example.chickendirect.entities.Customer;
 import org.example.chickendirect.services.CustomerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -17,9 +25,11 @@ public class CustomerController {
 
     private static final Logger log = LoggerFactory.getLogger(CustomerController.class);
     private final CustomerService customerService;
+    private final JsonMapper jsonMapper;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, JsonMapper jsonMapper) {
         this.customerService = customerService;
+        this.jsonMapper = jsonMapper;
     }
 
     @PostMapping
@@ -41,11 +51,13 @@ public class CustomerController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Customer>> findAllCustomers() {
-        log.info("Received request to fetch all customers");
-        List<Customer> customers = customerService.findAllCustomers();
-        log.info("Fetched {} customers", customers.size());
-        return ResponseEntity.ok(customers);
+    public ResponseEntity<List<Customer>> findAllCustomers(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("Received request to fetch customers after id={} with limit={}", after, limit);
+        CursorPage<Customer> customers = customerService.findAllCustomers(after, limit);
+        log.info("Fetched {} customers, next cursor={}", customers.items().size(), customers.nextCursor());
+        return customers.toResponse();
     }
 
     @GetMapping("/{id}")
@@ -64,11 +76,17 @@ public class CustomerController {
         return ResponseEntity.ok("Customer deleted");
     }
 
-    @PostMapping("/save")
-    public ResponseEntity<List<Customer>> saveAllCustomers(@RequestBody List<Customer> customers) {
-        log.info("Received request to save a list of customers, total received={}", customers == null ? 0 : customers.size());
-        List<Customer> savedCustomers = customerService.saveAllCustomers(customers);
-        log.info("Saved {} customers successfully", savedCustomers.size());
-        return ResponseEntity.ok(savedCustomers);
+    @PostMapping(value = "/save", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CustomerImportResult> saveAllCustomers(InputStream body) {
+        log.info("Received request to import customers from a streamed JSON array");
+
+        try (MappingIterator<Customer> customers = jsonMapper.readerFor(Customer.class).readValues(body)) {
+            CustomerImportResult result = customerService.saveAllCustomers(customers);
+            log.info("Saved {} customers successfully", result.saved());
+            return ResponseEntity.ok(result);
+        } catch (JacksonException ex) {
+            log.warn("Invalid customer import payload: {}", ex.getOriginalMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid customer list in request body");
+        }
     }
 }
@@ -1,15 +1,23 @@
 package org.example.chickendirect.controllers;
 
+import org.example.chickendirect.dtos.BatchOrderResult;
+import org.example.chickendirect.dtos.CursorPage;
+import org.example.chickendirect.dtos.OrderCreationResult;
 import org.example.chickendirect.dtos.OrderInputDto;
 import org.example.chickendirect.dtos.OrderOutputDto;
 import org.example.chickendirect.enums.OrderStatus;
+import org.example.chickendirect.services.OrderExportService;
+import org.example.chickendirect.services.OrderIdempotencyService;
 import org.example.chickendirect.services.OrderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
 import java.util.List;
 
 @RestController
@@ -18,30 +26,76 @@ public class OrderController {
 
     private static final Logger log = LoggerFactory.getLogger(OrderController.class);
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final OrderIdempotencyService orderIdempotencyService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderExportService orderExportService,
+                           OrderIdempotencyService orderIdempotencyService) {
         this.orderService = orderService;
+        this.orderExportService = orderExportService;
+        this.orderIdempotencyService = orderIdempotencyService;
     }
 
     @PostMapping
-    public ResponseEntity<OrderOutputDto> createOrder(@RequestBody OrderInputDto input){
+    public ResponseEntity<OrderOutputDto> createOrder(
+            @RequestBody OrderInputDto input,
+            @RequestHeader(value = OrderIdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey){
         log.info("Received request to create order: {}", input);
 
-        OrderOutputDto order = orderService.createOrder(input);
-        log.info("Order created successfully with id: {}", order.orderId());
+        if (idempotencyKey == null) {
+            OrderOutputDto order = orderService.createOrder(input);
+            log.info("Order created successfully with id: {}", order.orderId());
+
+            return new ResponseEntity<>(order, HttpStatus.CREATED);
+        }
+
+        OrderCreationResult result = orderIdempotencyService.createOrder(idempotencyKey, input);
+        log.info("Order with id: {} returned for Idempotency-Key '{}', replayed: {}",
+                result.order().orderId(), idempotencyKey, result.replayed());
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(OrderIdempotencyService.REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.order());
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchOrderResult>> createOrders(@RequestBody List<OrderInputDto> inputs){
+        log.info("Received request to create a batch of {} orders", inputs.size());
 
-        return new ResponseEntity<>(order, HttpStatus.CREATED);
+        List<BatchOrderResult> results = orderService.createOrders(inputs);
+        log.info("Order batch processed, {} of {} orders created",
+                results.stream().filter(BatchOrderResult::success).count(), results.size());
+
+        return ResponseEntity.ok(results);
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderOutputDto>> findAllOrders(){
-        log.info("Received request to fetch all orders");
+    public ResponseEntity<List<OrderOutputDto>> findAllOrders(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit){
+        log.info("Received request to fetch orders after id {} with limit {}", after, limit);
 
-        List<OrderOutputDto> orders = orderService.findAllOrders();
-        log.info("Returning {} orders", orders.size());
+        CursorPage<OrderOutputDto> orders = orderService.findAllOrders(after, limit);
+        log.info("Returning {} orders, next cursor: {}", orders.items().size(), orders.nextCursor());
 
-        return ResponseEntity.ok(orders);
+        return orders.toResponse();
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(){
+        log.info("Received request to export all orders as NDJSON");
+
+        StreamingResponseBody body = outputStream -> {
+            long exported = orderExportService.exportOrders(new BufferedOutputStream(outputStream));
+            log.info("Streamed {} orders to export", exported);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping("/{orderId}")
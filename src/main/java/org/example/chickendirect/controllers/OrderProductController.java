@@ -1,11 +1,13 @@
 package org.example.chickendirect.controllers;
 
+import org.example.chickendirect.dtos.CursorPage;
 import org.example.chickendirect.dtos.OrderProductForCustomerOutputDto;
 import org.example.chickendirect.repos.OrderRepo;
 import org.example.chickendirect.services.OrderProductService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -73,11 +75,14 @@ public class OrderProductController {
     }
 
     @GetMapping("/findAll")
-    public List<OrderProductForCustomerOutputDto> getAllOrderProducts() {
-        log.info("Fetching all order products");
-        List<OrderProductForCustomerOutputDto> result = orderProductService.findAllOrderProducts();
-        log.info("Fetched {} order products", result.size());
-        return result;
+    public ResponseEntity<List<OrderProductForCustomerOutputDto>> getAllOrderProducts(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        log.info("Fetching order products after id={} with limit={}", after, limit);
+        CursorPage<OrderProductForCustomerOutputDto> result = orderProductService.findAllOrderProducts(after, limit);
+        log.info("Fetched {} order products, next cursor={}", result.items().size(), result.nextCursor());
+        return result.toResponse();
     }
 
     @GetMapping("/{id}")
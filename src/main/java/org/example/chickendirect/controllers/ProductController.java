@@ -1,9 +1,11 @@
 package org.example.chickendirect.controllers;
 
+import org.example.chickendirect.dtos.BatchProductResult;
 import org.example.chickendirect.dtos.ProductDto;
 import org.example.chickendirect.dtos.UpdateProductPrice;
 import org.example.chickendirect.dtos.UpdateProductQuantity;
 import org.example.chickendirect.dtos.UpdateProductStatus;
+import org.example.chickendirect.dtos.UpdateStockStripes;
 import org.example.chickendirect.entities.Product;
 import org.example.chickendirect.services.ProductService;
 import org.slf4j.Logger;
@@ -35,11 +37,15 @@ public class ProductController {
     }
 
     @PostMapping("/batch")
-    public ResponseEntity<List<Product>> createProducts(@RequestBody List<ProductDto> productDtos){
+    public ResponseEntity<List<BatchProductResult>> createProducts(@RequestBody List<ProductDto> productDtos){
         log.info("Received request to create {} products", productDtos.size());
-        List<Product> createdProducts = productService.createProducts(productDtos);
-        log.info("All {} products created successfully", createdProducts.size());
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdProducts);
+        List<BatchProductResult> results = productService.createProducts(productDtos);
+
+        long created = results.stream().filter(BatchProductResult::created).count();
+        log.info("{} of {} products created successfully", created, results.size());
+
+        HttpStatus status = created == results.size() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(results);
     }
 
     @PatchMapping("/{name}/status")
@@ -75,9 +81,22 @@ public class ProductController {
         return ResponseEntity.ok(updatedQuantity);
     }
 
+    @PatchMapping("/{id}/stripes")
+    public ResponseEntity<Product> updateStockStripes(
+            @PathVariable long id,
+            @RequestBody UpdateStockStripes request
+    ) {
+        log.info("Received request to split stock of product id={} into {} stripes", id, request.stripes());
+        Product updated = productService.updateStockStripes(id, request.stripes());
+        log.info("Product id={} now uses {} stock stripes", id, updated.getStripeCount());
+        return ResponseEntity.ok(updated);
+    }
+
     @GetMapping
-    public ResponseEntity<List<Product>> findAllProducts(){
-        return ResponseEntity.ok(productService.findAllProducts());
+    public ResponseEntity<List<Product>> findAllProducts(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit){
+        return productService.findAllProducts(after, limit).toResponse();
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,63 @@
+package org.example.chickendirect.controllers;
+
+import org.example.chickendirect.dtos.ExtendStockHold;
+import org.example.chickendirect.dtos.StockHoldInputDto;
+import org.example.chickendirect.dtos.StockHoldOutputDto;
+import org.example.chickendirect.services.StockHoldService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * Stock holds for checkout. A hold is converted into an order by passing its id as {@code holdId} to
+ * {@code POST /api/order}.
+ */
+@RestController
+@RequestMapping("/api/hold")
+public class StockHoldController {
+
+    private static final Logger log = LoggerFactory.getLogger(StockHoldController.class);
+
+    private final StockHoldService stockHoldService;
+
+    public StockHoldController(StockHoldService stockHoldService) {
+        this.stockHoldService = stockHoldService;
+    }
+
+    @PostMapping
+    public ResponseEntity<StockHoldOutputDto> createHold(@RequestBody StockHoldInputDto input) {
+        log.info("Received request to hold stock: {}", input);
+        StockHoldOutputDto hold = stockHoldService.createHold(input);
+        log.info("Stock hold created with id: {}", hold.holdId());
+        return new ResponseEntity<>(hold, HttpStatus.CREATED);
+    }
+
+    @GetMapping("/{holdId}")
+    public ResponseEntity<StockHoldOutputDto> findHoldById(@PathVariable UUID holdId) {
+        log.info("Fetching stock hold with id: {}", holdId);
+        return ResponseEntity.ok(stockHoldService.findHoldById(holdId));
+    }
+
+    @PatchMapping("/{holdId}/expiry")
+    public ResponseEntity<StockHoldOutputDto> extendHold(
+            @PathVariable UUID holdId,
+            @RequestBody ExtendStockHold request
+    ) {
+        log.info("Received request to extend stock hold {} by {}", holdId, request.ttl());
+        StockHoldOutputDto hold = stockHoldService.extendHold(holdId, request.ttl());
+        log.info("Stock hold {} now expires at {}", holdId, hold.expiresAt());
+        return ResponseEntity.ok(hold);
+    }
+
+    @DeleteMapping("/{holdId}")
+    public ResponseEntity<String> releaseHold(@PathVariable UUID holdId) {
+        log.info("Received request to release stock hold {}", holdId);
+        stockHoldService.releaseHold(holdId);
+        log.info("Stock hold {} released", holdId);
+        return ResponseEntity.ok("Stock hold released");
+    }
+}
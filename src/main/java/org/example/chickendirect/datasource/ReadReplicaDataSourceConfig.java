@@ -0,0 +1,90 @@
+package org.example.chickendirect.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Splits connections between the primary and a streaming read replica once
+ * {@code chickendirect.datasource.replica.url} is set; without it the application keeps Boot's single data source.
+ * <p>
+ * Service methods marked {@code @Transactional(readOnly = true)} run on the replica pool, everything else on the
+ * primary pool, which keeps the {@code spring.datasource} settings. Replica credentials default to the primary's.
+ * Hibernate releases the connection after every transaction, so a request that mixes reads and writes picks the
+ * pool per transaction instead of holding the first connection it got for the whole open-in-view session.
+ */
+@Configuration
+@ConditionalOnProperty("chickendirect.datasource.replica.url")
+public class ReadReplicaDataSourceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaDataSourceConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("primary");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("chickendirect.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${chickendirect.datasource.replica.url}") String url,
+            @Value("${chickendirect.datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${chickendirect.datasource.replica.password:${spring.datasource.password}}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setReadOnly(true);
+        log.info("Routing read-only transactions to replica {}", url);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(
+            @Value("${chickendirect.datasource.read-your-writes:true}") boolean enabled) {
+        return new ReadYourWrites(enabled);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReadYourWrites readYourWrites) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, readYourWrites));
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer connectionReleaseCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.chickendirect.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Keeps a request on the primary once it has committed a write, so a read-only transaction later in the same
+ * request does not miss its own changes because the replica has not replayed them yet.
+ * <p>
+ * The marker lives in the request attributes and ends with the request. Work outside an HTTP request, such as
+ * scheduled jobs, is never pinned.
+ */
+public class ReadYourWrites implements TransactionExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadYourWrites.class);
+
+    static final String PINNED_TO_PRIMARY = ReadYourWrites.class.getName() + ".PINNED_TO_PRIMARY";
+
+    private final boolean enabled;
+
+    public ReadYourWrites(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            pinToPrimary();
+        }
+    }
+
+    /**
+     * Routes the rest of the current request to the primary. Does nothing when read-your-writes is disabled or
+     * there is no current request.
+     */
+    public void pinToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!enabled || attributes == null) {
+            return;
+        }
+        if (attributes.getAttribute(PINNED_TO_PRIMARY, RequestAttributes.SCOPE_REQUEST) == null) {
+            attributes.setAttribute(PINNED_TO_PRIMARY, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            log.debug("Request committed a write, routing its remaining reads to the primary");
+        }
+    }
+
+    public boolean isPinnedToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return enabled && attributes != null
+                && attributes.getAttribute(PINNED_TO_PRIMARY, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
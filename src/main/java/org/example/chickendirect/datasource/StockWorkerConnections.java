@@ -0,0 +1,33 @@
+package org.example.chickendirect.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks database work done on behalf of callers that are blocked waiting for it, such as a group-commit batch or an
+ * inventory actor loading its stock. Connections opened inside {@link #call} come from the separate stock worker
+ * pool, so that work still gets a connection when every connection of the application pool is held by a caller
+ * that waits for it.
+ */
+public final class StockWorkerConnections {
+
+    private static final ThreadLocal<Boolean> STOCK_WORKER = new ThreadLocal<>();
+
+    private StockWorkerConnections() {
+    }
+
+    public static <T> T call(Supplier<T> work) {
+        if (isRequested()) {
+            return work.get();
+        }
+        STOCK_WORKER.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            STOCK_WORKER.remove();
+        }
+    }
+
+    static boolean isRequested() {
+        return STOCK_WORKER.get() != null;
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.chickendirect.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts a small second pool next to the application's data source for {@link StockWorkerConnections}.
+ * <p>
+ * Orders in the {@code GROUP_COMMIT} and {@code ACTOR} modes wait inside their transaction, holding an application
+ * connection, until a background worker has changed the stock for them. If the worker took its connection from the
+ * same pool, enough waiting orders would leave it none, and every order would time out. The pool connects to the
+ * primary with the {@code spring.datasource} credentials and only opens connections once a worker needs one.
+ */
+@Configuration
+public class StockWorkerDataSourceConfig {
+
+    public static final String POOL_SIZE = "chickendirect.datasource.stock-workers.maximum-pool-size";
+
+    @Bean
+    public static BeanPostProcessor stockWorkerDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof StockWorkerRoutingDataSource)) {
+                    return new StockWorkerRoutingDataSource(dataSource, stockWorkerPool(environment));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static HikariDataSource stockWorkerPool(Environment environment) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("stock-workers");
+        dataSource.setJdbcUrl(environment.getRequiredProperty("spring.datasource.url"));
+        dataSource.setUsername(environment.getProperty("spring.datasource.username"));
+        dataSource.setPassword(environment.getProperty("spring.datasource.password"));
+        dataSource.setMaximumPoolSize(environment.getProperty(POOL_SIZE, Integer.class, 2));
+        return dataSource;
+    }
+}
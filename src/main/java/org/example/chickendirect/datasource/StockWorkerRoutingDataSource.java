@@ -0,0 +1,44 @@
+package org.example.chickendirect.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Hands out connections from the stock worker pool inside {@link StockWorkerConnections#call} and from the
+ * application's data source everywhere else. Closing it closes both.
+ */
+public class StockWorkerRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public enum Route {
+        APPLICATION,
+        STOCK_WORKERS
+    }
+
+    private final DataSource application;
+    private final HikariDataSource stockWorkers;
+
+    public StockWorkerRoutingDataSource(DataSource application, HikariDataSource stockWorkers) {
+        this.application = application;
+        this.stockWorkers = stockWorkers;
+        setTargetDataSources(Map.of(Route.APPLICATION, application, Route.STOCK_WORKERS, stockWorkers));
+        setDefaultTargetDataSource(application);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Route determineCurrentLookupKey() {
+        return StockWorkerConnections.isRequested() ? Route.STOCK_WORKERS : Route.APPLICATION;
+    }
+
+    @Override
+    public void close() throws Exception {
+        stockWorkers.close();
+        if (application instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.chickendirect.dtos;
+
+import org.springframework.web.server.ResponseStatusException;
+
+public record BatchOrderResult(
+        int index,
+        boolean success,
+        OrderOutputDto order,
+        Integer status,
+        String error
+) {
+
+    public static BatchOrderResult created(int index, OrderOutputDto order) {
+        return new BatchOrderResult(index, true, order, null, null);
+    }
+
+    public static BatchOrderResult failed(int index, ResponseStatusException ex) {
+        return new BatchOrderResult(index, false, null, ex.getStatusCode().value(), ex.getReason());
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.chickendirect.dtos;
+
+import org.springframework.web.server.ResponseStatusException;
+
+public record BatchProductResult(
+        int index,
+        String name,
+        boolean created,
+        Long productId,
+        Integer status,
+        String error
+) {
+
+    public static BatchProductResult created(int index, String name, long productId) {
+        return new BatchProductResult(index, name, true, productId, null, null);
+    }
+
+    public static BatchProductResult failed(int index, String name, ResponseStatusException ex) {
+        return new BatchProductResult(index, name, false, null, ex.getStatusCode().value(), ex.getReason());
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.chickendirect.dtos;
+
+public record CustomerImportResult(
+        long received,
+        long saved
+) {
+}
@@ -0,0 +1,6 @@
+package org.example.chickendirect.dtos;
+
+import java.time.Duration;
+
+public record ExtendStockHold(Duration ttl) {
+}
@@ -0,0 +1,7 @@
+package org.example.chickendirect.dtos;
+
+public record OrderCreationResult(
+        OrderOutputDto order,
+        boolean replayed
+) {
+}
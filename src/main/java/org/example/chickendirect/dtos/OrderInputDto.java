@@ -1,10 +1,22 @@
 package org.example.chickendirect.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
+import java.util.UUID;
 
+/**
+ * @param holdId stock hold to convert into this order, whose held stock is used instead of reserving it again.
+ *               Without product items the order takes every held line. Left out of the JSON when absent, so
+ *               idempotency hashes of plain orders stay the same.
+ */
 public record OrderInputDto(
         long customerId,
         long addressId,
-        List<OrderProductInputDto> productItems
+        List<OrderProductInputDto> productItems,
+        @JsonInclude(JsonInclude.Include.NON_NULL) UUID holdId
 ) {
+    public OrderInputDto(long customerId, long addressId, List<OrderProductInputDto> productItems) {
+        this(customerId, addressId, productItems, null);
+    }
 }
@@ -1,7 +1,10 @@
 package org.example.chickendirect.dtos;
 
+/**
+ * @param productId boxed so a missing id reaches validation, which rejects only the order it belongs to
+ */
 public record OrderProductInputDto(
-        long productId,
+        Long productId,
         int quantity
 ){
 }
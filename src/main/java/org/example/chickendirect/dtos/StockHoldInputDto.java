@@ -0,0 +1,14 @@
+package org.example.chickendirect.dtos;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @param ttl how long the stock is held, or {@code null} for the configured default
+ */
+public record StockHoldInputDto(
+        long customerId,
+        List<OrderProductInputDto> productItems,
+        Duration ttl
+) {
+}
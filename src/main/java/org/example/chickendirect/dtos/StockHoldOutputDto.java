@@ -0,0 +1,14 @@
+package org.example.chickendirect.dtos;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record StockHoldOutputDto(
+        UUID holdId,
+        long customerId,
+        Instant createdAt,
+        Instant expiresAt,
+        List<OrderProductInputDto> productItems
+) {
+}
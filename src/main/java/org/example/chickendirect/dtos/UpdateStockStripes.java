@@ -0,0 +1,4 @@
+package org.example.chickendirect.dtos;
+
+public record UpdateStockStripes(Integer stripes) {
+}
@@ -2,15 +2,20 @@ package org.example.chickendirect.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.example.chickendirect.cache.SecondLevelCacheConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.CUSTOMER_REGION)
 public class Customer {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
-    @SequenceGenerator(name = "customer_seq", sequenceName = "customer_seq", allocationSize = 1)
+    @SequenceGenerator(name = "customer_seq", sequenceName = "customer_seq", allocationSize = 50)
 
     @Column(name = "customer_id")
     private long customerId;
@@ -26,6 +31,7 @@ public class Customer {
             inverseJoinColumns = @JoinColumn(name = "address_id")
     )
     @JsonIgnoreProperties("customerList")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.CUSTOMER_ADDRESSES_REGION)
     private List<Address> addressList = new ArrayList<>();
 
 
@@ -10,10 +10,19 @@ import java.util.List;
 
 @Entity
 @Table(name = "customer_order")
+@NamedEntityGraph(
+        name = "Order.details",
+        attributeNodes = {
+                @NamedAttributeNode("customer"),
+                @NamedAttributeNode("address"),
+                @NamedAttributeNode(value = "items", subgraph = "items")
+        },
+        subgraphs = @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("product"))
+)
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
-    @SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = 1)
+    @SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = 50)
     @Column(name = "order_id")
     private long orderId;
 
@@ -33,7 +42,7 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus orderStatus;
 
-    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<OrderProduct> items = new ArrayList<>();
 
     public Order() {
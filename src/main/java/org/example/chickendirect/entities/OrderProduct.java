@@ -8,7 +8,7 @@ import java.math.BigDecimal;
 public class OrderProduct {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_product_seq")
-    @SequenceGenerator(name = "order_product_seq", sequenceName = "order_product_seq", allocationSize = 1)
+    @SequenceGenerator(name = "order_product_seq", sequenceName = "order_product_seq", allocationSize = 50)
     @Column(name = "order_product_id")
     private long orderProductId;
 
@@ -27,6 +27,11 @@ public class OrderProduct {
     private int quantity;
     @Column(name = "unit_price")
     private BigDecimal unitPrice;
+    /**
+     * {@code unitPrice * quantity}, kept by the setters so the order total can be moved by a line's change alone.
+     */
+    @Column(name = "line_total", nullable = false)
+    private BigDecimal lineTotal;
 
     public OrderProduct() {
     }
@@ -37,6 +42,7 @@ public class OrderProduct {
         this.product = product;
         this.quantity = quantity;
         this.unitPrice = unitPrice;
+        updateLineTotal();
     }
 
 
@@ -70,6 +76,7 @@ public class OrderProduct {
 
     public void setQuantity(int quantity) {
         this.quantity = quantity;
+        updateLineTotal();
     }
 
     public BigDecimal getUnitPrice() {
@@ -78,6 +85,15 @@ public class OrderProduct {
 
     public void setUnitPrice(BigDecimal unit_price) {
         this.unitPrice = unit_price;
+        updateLineTotal();
+    }
+
+    public BigDecimal getLineTotal() {
+        return lineTotal;
+    }
+
+    private void updateLineTotal() {
+        lineTotal = unitPrice == null ? null : unitPrice.multiply(BigDecimal.valueOf(quantity));
     }
 
     public Customer getCustomer() {
@@ -97,6 +113,7 @@ public class OrderProduct {
                 ", product=" + product +
                 ", quantity=" + quantity +
                 ", unitPrice=" + unitPrice +
+                ", lineTotal=" + lineTotal +
                 '}';
     }
 }
@@ -0,0 +1,79 @@
+package org.example.chickendirect.entities;
+
+import jakarta.persistence.*;
+import org.example.chickendirect.enums.OutboxEventType;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "outbox")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+    @Column(name = "outbox_id")
+    private long outboxId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false)
+    private OutboxEventType eventType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private long aggregateId;
+
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(OutboxEventType eventType, long aggregateId, String payload, Instant createdAt) {
+        this.eventType = eventType;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public long getOutboxId() {
+        return outboxId;
+    }
+
+    public void setOutboxId(long outboxId) {
+        this.outboxId = outboxId;
+    }
+
+    public OutboxEventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(OutboxEventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public long getAggregateId() {
+        return aggregateId;
+    }
+
+    public void setAggregateId(long aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -3,15 +3,23 @@ package org.example.chickendirect.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.example.chickendirect.enums.ProductStatus;
 import jakarta.persistence.*;
+import org.example.chickendirect.cache.SecondLevelCacheConfig;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.PRODUCT_REGION)
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
-    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 1)
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
 
     @Column(name = "product_id")
     private long productId;
@@ -26,6 +34,26 @@ public class Product {
     @Column(nullable = false)
     private String unit = "kg";
 
+    /**
+     * Number of stock stripes, 0 when stock lives in {@link #quantity}. For striped products {@code quantity} is
+     * only a mirror of the stripe total that the background rebalance keeps up to date.
+     */
+    @Column(name = "stripe_count", nullable = false)
+    @JsonIgnore
+    private int stripeCount;
+
+    @OneToMany
+    @JoinColumn(name = "product_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @OrderBy("stripe")
+    @BatchSize(size = 50)
+    @JsonIgnore
+    private List<ProductStockStripe> stockStripes;
+
+    @Transient
+    @JsonIgnore
+    private Integer stripeTotal;
+
     @OneToMany(mappedBy = "product")
     @JsonIgnore
     private List<OrderProduct> orderProduct;
@@ -91,8 +119,18 @@ public class Product {
         this.productStatus = productStatus;
     }
 
+    /**
+     * Stock on hand. Striped products report the sum across their stripes: the total from the last stripe update in
+     * this transaction if there was one, otherwise the stripes as loaded.
+     */
     public int getQuantity() {
-        return quantity;
+        if (!isStriped()) {
+            return quantity;
+        }
+        if (stripeTotal != null) {
+            return stripeTotal;
+        }
+        return stockStripes == null ? quantity : stockStripes.stream().mapToInt(ProductStockStripe::getQuantity).sum();
     }
 
     public void setQuantity(int quantity) {
@@ -107,6 +145,27 @@ public class Product {
         this.unit = unit;
     }
 
+    public int getStripeCount() {
+        return stripeCount;
+    }
+
+    public void setStripeCount(int stripeCount) {
+        this.stripeCount = stripeCount;
+    }
+
+    @JsonIgnore
+    public boolean isStriped() {
+        return stripeCount > 0;
+    }
+
+    public List<ProductStockStripe> getStockStripes() {
+        return stockStripes;
+    }
+
+    public void setStripeTotal(Integer stripeTotal) {
+        this.stripeTotal = stripeTotal;
+    }
+
     public List<OrderProduct> getOrderProduct() {
         return orderProduct;
     }
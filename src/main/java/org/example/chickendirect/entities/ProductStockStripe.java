@@ -0,0 +1,43 @@
+package org.example.chickendirect.entities;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+
+/**
+ * One sub-counter of a striped product's stock. Rows are only changed with native SQL in
+ * {@code ProductStockStripeRepo}, so the entity is read-only.
+ */
+@Entity
+@Immutable
+@Table(name = "product_stock_stripe")
+@IdClass(ProductStockStripe.Key.class)
+public class ProductStockStripe {
+    @Id
+    @Column(name = "product_id")
+    private long productId;
+
+    @Id
+    private int stripe;
+
+    private int quantity;
+
+    public ProductStockStripe() {
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    public int getStripe() {
+        return stripe;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public record Key(long productId, int stripe) implements Serializable {
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.chickendirect.entities;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Stock set aside for a customer's checkout. The held quantities have already been taken from the products' stock;
+ * they go back when the hold is released or expires, or become order lines when it is converted into an order.
+ */
+@Entity
+@Table(name = "stock_hold")
+public class StockHold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "hold_id")
+    private UUID holdId;
+
+    @Column(name = "customer_id", nullable = false)
+    private long customerId;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @ElementCollection
+    @CollectionTable(name = "stock_hold_line", joinColumns = @JoinColumn(name = "hold_id"))
+    @MapKeyColumn(name = "product_id")
+    @Column(name = "quantity", nullable = false)
+    private Map<Long, Integer> lines = new TreeMap<>();
+
+    public StockHold() {
+    }
+
+    public StockHold(long customerId, Instant createdAt, Instant expiresAt) {
+        this.customerId = customerId;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getHoldId() {
+        return holdId;
+    }
+
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Held quantity by product id.
+     */
+    public Map<Long, Integer> getLines() {
+        return lines;
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
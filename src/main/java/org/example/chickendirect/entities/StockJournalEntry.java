@@ -0,0 +1,46 @@
+package org.example.chickendirect.entities;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A committed stock change that has not been written to {@code product.quantity} yet. Rows are only written and
+ * drained with native SQL in {@code StockJournalRepo}, so the entity is read-only.
+ */
+@Entity
+@Immutable
+@Table(name = "stock_journal")
+public class StockJournalEntry {
+    @Id
+    @Column(name = "journal_id")
+    private long journalId;
+
+    @Column(name = "product_id")
+    private long productId;
+
+    private int delta;
+
+    @Column(name = "created_at")
+    private OffsetDateTime createdAt;
+
+    public StockJournalEntry() {
+    }
+
+    public long getJournalId() {
+        return journalId;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
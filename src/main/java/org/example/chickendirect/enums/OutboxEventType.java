@@ -0,0 +1,12 @@
+package org.example.chickendirect.enums;
+
+public enum OutboxEventType {
+    ORDER_CREATED,
+    ORDER_STATUS_CHANGED,
+    ORDER_DELETED,
+    ORDER_LINE_ADDED,
+    ORDER_LINE_UPDATED,
+    ORDER_LINE_REMOVED,
+    PRODUCT_LOW_STOCK,
+    PRODUCT_OUT_OF_STOCK
+}
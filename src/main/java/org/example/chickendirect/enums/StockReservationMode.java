@@ -0,0 +1,8 @@
+package org.example.chickendirect.enums;
+
+public enum StockReservationMode {
+    PESSIMISTIC_LOCK,
+    CONDITIONAL_UPDATE,
+    GROUP_COMMIT,
+    ACTOR
+}
@@ -0,0 +1,491 @@
+package org.example.chickendirect.inventory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.chickendirect.cache.ProductCatalogCache;
+import org.example.chickendirect.datasource.StockWorkerConnections;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.enums.StockReservationMode;
+import org.example.chickendirect.inventory.StockReservation.Outcome;
+import org.example.chickendirect.outbox.OutboxWriter;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.repos.StockJournalRepo;
+import org.example.chickendirect.repos.StockJournalRepo.JournalTotal;
+import org.example.chickendirect.repos.StockJournalRepo.JournaledStock;
+import org.example.chickendirect.services.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Single-writer owners of row stock for the {@code ACTOR} reservation mode.
+ * <p>
+ * Every product gets an actor with its own mailbox. The commands for one product run strictly one after another on
+ * a small worker pool against stock the actor keeps in memory, so an order never waits for a row lock, only for
+ * the commands queued ahead of it on the same product.
+ * <p>
+ * Every change an actor grants is appended to {@code stock_journal} in the caller's transaction, so the journal
+ * holds exactly the changes of committed transactions. {@link #writeBehind()} moves journaled deltas into
+ * {@code product.quantity} in batches. An actor loads its stock as {@code product.quantity} plus the journal, which
+ * is also how stock recovers after a crash: nothing held only in memory has to survive.
+ * <p>
+ * Stock taken by a caller is held as soon as it is granted and handed back if the caller rolls back; stock given
+ * back only becomes available once the caller has committed. The actors must be the only writers of row stock:
+ * the mode needs a single application instance, and other stock changes take the product back through
+ * {@link #settle} first.
+ */
+@Component
+public class InventoryActors implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryActors.class);
+
+    public static final String COMMAND_LATENCY = "chickendirect.inventory.actors.command";
+
+    private final StockJournalRepo stockJournalRepo;
+    private final ProductRepo productRepo;
+    private final OutboxWriter outboxWriter;
+    private final ProductCatalogCache productCatalogCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer commandLatency;
+    private final boolean enabled;
+    private final int workers;
+    private final Duration timeout;
+
+    private final ConcurrentHashMap<Long, ProductActor> actors = new ConcurrentHashMap<>();
+
+    private volatile ExecutorService executor;
+
+    @Value("${chickendirect.inventory.actors.write-behind.batch-size:500}")
+    private int writeBehindBatchSize = 500;
+
+    public InventoryActors(StockJournalRepo stockJournalRepo, ProductRepo productRepo, OutboxWriter outboxWriter,
+                           ProductCatalogCache productCatalogCache, TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${chickendirect.order.stock-reservation-mode:PESSIMISTIC_LOCK}") StockReservationMode mode,
+                           @Value("${chickendirect.inventory.actors.workers:4}") int workers,
+                           @Value("${chickendirect.inventory.actors.timeout:5s}") Duration timeout) {
+        this.stockJournalRepo = stockJournalRepo;
+        this.productRepo = productRepo;
+        this.outboxWriter = outboxWriter;
+        this.productCatalogCache = productCatalogCache;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = mode == StockReservationMode.ACTOR;
+        this.workers = workers;
+        this.timeout = timeout;
+        this.commandLatency = Timer.builder(COMMAND_LATENCY)
+                .description("Time from handing a command to a product's actor until it replied")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the actors own row stock, i.e. the {@code ACTOR} reservation mode is configured.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes stock for several products at once. Lines that were granted are journaled in the caller's transaction
+     * and held until it completes. If any line cannot be answered, the granted ones are given back before the
+     * exception is thrown, so a caller that keeps its transaction going does not keep them.
+     *
+     * @return the reply per product: {@link Outcome#RESERVED}, {@link Outcome#INSUFFICIENT_STOCK},
+     * {@link Outcome#NOT_FOUND} or {@link Outcome#STRIPED}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, StockReservation> reserve(Map<Long, Integer> quantities) {
+        Map<Long, CompletableFuture<StockReservation>> pending = new HashMap<>();
+        quantities.forEach((productId, quantity) ->
+                pending.put(productId, ask(productId, actor -> actor.take(quantity))));
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Map<Long, StockReservation> results = new HashMap<>();
+        ResponseStatusException failure = null;
+        for (Map.Entry<Long, CompletableFuture<StockReservation>> line : pending.entrySet()) {
+            long productId = line.getKey();
+            int quantity = quantities.get(productId);
+            try {
+                StockReservation result = await(productId, line.getValue(), deadline, -quantity);
+                results.put(productId, result);
+                if (result.outcome() == Outcome.RESERVED) {
+                    journal(productId, -quantity);
+                }
+            } catch (ResponseStatusException ex) {
+                failure = ex;
+            }
+        }
+
+        if (failure != null) {
+            results.forEach((productId, result) -> {
+                if (result.outcome() == Outcome.RESERVED) {
+                    release(productId, quantities.get(productId));
+                }
+            });
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * Gives stock back. It becomes available to other orders once the caller's transaction has committed.
+     *
+     * @return {@link Outcome#RESERVED} with the stock available before the release, {@link Outcome#NOT_FOUND} or
+     * {@link Outcome#STRIPED}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StockReservation release(long productId, int quantity) {
+        CompletableFuture<StockReservation> reply = ask(productId, ProductActor::hold);
+        StockReservation result = await(productId, reply, System.nanoTime() + timeout.toNanos(), quantity);
+        if (result.outcome() == Outcome.RESERVED) {
+            journal(productId, quantity);
+        }
+        return result;
+    }
+
+    /**
+     * Takes a product whose row the caller has locked back from its actor so the caller can change {@code product.quantity} directly: waits
+     * until no change of the product is in flight, moves the product's journal into the entity and keeps the actor
+     * out of the way until the caller's transaction completes. The actor reloads the stock afterwards.
+     * <p>
+     * Journal rows left behind by an earlier run in another mode are moved into the entity as well.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void settle(Product product) {
+        long productId = product.getProductId();
+        if (enabled) {
+            CompletableFuture<StockReservation> reply = ask(productId, ProductActor::detach);
+            // queued behind the detach, so it also frees an actor whose reply came too late
+            onCompletion(committed -> actor(productId).tell(ProductActor::reopen));
+            await(productId, reply, System.nanoTime() + timeout.toNanos(), 0);
+        }
+
+        long journaled = stockJournalRepo.drain(productId);
+        if (journaled != 0) {
+            product.setQuantity(product.getQuantity() + (int) journaled);
+            log.debug("Settled {} journaled units into product id={}", journaled, productId);
+        }
+    }
+
+    /**
+     * Writes journaled deltas behind into {@code product.quantity}, together with the product status and its
+     * outbox event, in batches of products. Runs in every mode, so a journal left over from the {@code ACTOR} mode
+     * is still applied after switching modes.
+     *
+     * @return number of products written
+     */
+    @Scheduled(fixedDelayString = "${chickendirect.inventory.actors.write-behind.interval:PT1S}")
+    public int writeBehind() {
+        int written = 0;
+        int batch;
+        do {
+            batch = writeBehindBatch();
+            written += batch;
+        } while (batch == writeBehindBatchSize);
+
+        if (written > 0) {
+            log.debug("Wrote journaled stock of {} products", written);
+        }
+        return written;
+    }
+
+    private int writeBehindBatch() {
+        try {
+            Integer written = transactionTemplate.execute(status -> {
+                List<Long> productIds = stockJournalRepo.findJournaledProductIds(writeBehindBatchSize);
+                if (productIds.isEmpty()) {
+                    return 0;
+                }
+                // lock the products before the journal rows, in the same order as settle()
+                Map<Long, Product> products = productRepo.findAllByIdForUpdate(productIds).stream()
+                        .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+                stockJournalRepo.drainTotals(products.keySet()).forEach(total -> apply(products, total));
+                return productIds.size();
+            });
+            return written == null ? 0 : written;
+        } catch (RuntimeException ex) {
+            log.error("Writing journaled stock failed and will be retried", ex);
+            return 0;
+        }
+    }
+
+    private void apply(Map<Long, Product> products, JournalTotal total) {
+        Product product = products.get(total.getProductId());
+        int quantity = product.getQuantity() + (int) total.getDelta();
+        product.setQuantity(quantity);
+        ProductStatus status = OrderService.statusForQuantity(quantity);
+        if (product.getProductStatus() != status) {
+            product.setProductStatus(status);
+            outboxWriter.stockStatusChanged(product);
+        }
+        productCatalogCache.evictStock(product.getProductId());
+    }
+
+    private void journal(long productId, int delta) {
+        stockJournalRepo.append(productId, delta);
+        onCompletion(committed -> actor(productId).tell(actor -> actor.complete(delta, committed)));
+    }
+
+    private CompletableFuture<StockReservation> ask(long productId, Function<ProductActor, StockReservation> command) {
+        if (!isRunning()) {
+            throw new IllegalStateException("Inventory actors are not running");
+        }
+        CompletableFuture<StockReservation> reply = new CompletableFuture<>();
+        long asked = System.nanoTime();
+        actor(productId).tell(actor -> {
+            try {
+                reply.complete(command.apply(actor));
+            } catch (RuntimeException ex) {
+                reply.completeExceptionally(ex);
+            } finally {
+                commandLatency.record(System.nanoTime() - asked, TimeUnit.NANOSECONDS);
+            }
+        });
+        return reply;
+    }
+
+    /**
+     * Waits for an actor's reply. A reply that arrives after the deadline still holds or expects {@code delta}, so
+     * it is completed as rolled back to free the actor again.
+     */
+    private StockReservation await(long productId, CompletableFuture<StockReservation> reply, long deadline, int delta) {
+        try {
+            return reply.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof ResponseStatusException rejected) {
+                throw rejected;
+            }
+            log.error("Stock command for product id={} failed", productId, ex.getCause());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Stock is unavailable, please try again");
+        } catch (TimeoutException | InterruptedException ex) {
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            reply.thenAccept(late -> {
+                if (late.outcome() == Outcome.RESERVED && delta != 0) {
+                    actor(productId).tell(actor -> actor.complete(delta, false));
+                }
+            });
+            log.warn("Stock command for product id={} did not complete in {}", productId, timeout);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Stock change timed out, please try again");
+        }
+    }
+
+    private ProductActor actor(long productId) {
+        return actors.computeIfAbsent(productId, ProductActor::new);
+    }
+
+    private void onCompletion(Consumer<Boolean> action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    /**
+     * The stock of one product. Its fields are only touched by the thread currently draining the mailbox; the
+     * {@code scheduled} flag hands them from one drain to the next.
+     */
+    private final class ProductActor {
+
+        private final long productId;
+        private final Queue<Consumer<ProductActor>> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * Stock that can still be taken, {@code null} until loaded or while the product is striped.
+         */
+        private Integer stock;
+        /**
+         * Granted changes whose callers have not completed yet.
+         */
+        private int inFlight;
+        private boolean detached;
+
+        private ProductActor(long productId) {
+            this.productId = productId;
+        }
+
+        void tell(Consumer<ProductActor> command) {
+            mailbox.add(command);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            ExecutorService current = executor;
+            if (current == null) {
+                // after shutdown only completions arrive, which need no worker
+                drain();
+            } else {
+                current.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Consumer<ProductActor> command;
+                while ((command = mailbox.poll()) != null) {
+                    try {
+                        command.accept(this);
+                    } catch (RuntimeException ex) {
+                        log.error("Stock command for product id={} failed", productId, ex);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                if (!mailbox.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        StockReservation take(int quantity) {
+            Optional<StockReservation> unavailable = load();
+            if (unavailable.isPresent()) {
+                return unavailable.get();
+            }
+            if (quantity > stock) {
+                return new StockReservation(Outcome.INSUFFICIENT_STOCK, stock);
+            }
+            stock -= quantity;
+            inFlight++;
+            return new StockReservation(Outcome.RESERVED, stock);
+        }
+
+        StockReservation hold() {
+            Optional<StockReservation> unavailable = load();
+            if (unavailable.isPresent()) {
+                return unavailable.get();
+            }
+            // the stock is loaded before the caller journals, so the load can never include this release
+            inFlight++;
+            return new StockReservation(Outcome.RESERVED, stock);
+        }
+
+        /**
+         * Taken stock ({@code delta < 0}) is handed back on rollback, given back stock counts once committed.
+         */
+        void complete(int delta, boolean committed) {
+            inFlight--;
+            if (stock == null) {
+                return;
+            }
+            if (delta < 0 && !committed) {
+                stock -= delta;
+            } else if (delta > 0 && committed) {
+                stock += delta;
+            }
+        }
+
+        StockReservation detach() {
+            if (detached || inFlight > 0) {
+                throw busy();
+            }
+            detached = true;
+            return new StockReservation(Outcome.RESERVED, stock == null ? 0 : stock);
+        }
+
+        void reopen() {
+            detached = false;
+            stock = null;
+        }
+
+        private Optional<StockReservation> load() {
+            if (detached) {
+                throw busy();
+            }
+            if (stock != null) {
+                return Optional.empty();
+            }
+            // callers wait for this reply holding application connections, so read from the stock worker pool
+            Optional<JournaledStock> loaded = StockWorkerConnections.call(() -> transactionTemplate.execute(
+                    status -> stockJournalRepo.findJournaledStock(productId)));
+            if (loaded.isEmpty()) {
+                return Optional.of(new StockReservation(Outcome.NOT_FOUND, 0));
+            }
+            if (loaded.get().getStripeCount() > 0) {
+                return Optional.of(new StockReservation(Outcome.STRIPED, 0));
+            }
+            stock = (int) loaded.get().getStock();
+            log.debug("Loaded {} units of product id={}", stock, productId);
+            return Optional.empty();
+        }
+
+        private ResponseStatusException busy() {
+            return new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Stock for product with id " + productId + " is being changed, please try again");
+        }
+    }
+
+    /**
+     * Starts the workers if the {@code ACTOR} mode is configured. In the other modes no commands are accepted.
+     */
+    @Override
+    public synchronized void start() {
+        if (enabled && executor == null) {
+            executor = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("inventory-actor-", 0).factory());
+            log.info("Row stock is owned by inventory actors on {} workers", workers);
+        }
+    }
+
+    /**
+     * Stops accepting commands. Nothing needs to be written on the way out: the journal already holds every
+     * committed change.
+     */
+    @Override
+    public synchronized void stop() {
+        ExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        executor = null;
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Inventory actors still busy at shutdown");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+}
@@ -0,0 +1,310 @@
+package org.example.chickendirect.inventory;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.chickendirect.cache.ProductCatalogCache;
+import org.example.chickendirect.datasource.StockWorkerConnections;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.inventory.StockReservation.Outcome;
+import org.example.chickendirect.outbox.OutboxWriter;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.services.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Group commit for stock reservations on row-stock products.
+ * <p>
+ * Orders hand their decrements to {@link #reserve} instead of locking the product row themselves. The first
+ * request for a product opens a batch window; everything that arrives for that product within the window is
+ * applied in one short transaction that locks the row once, walks the requests in arrival order and writes the new
+ * quantity with a single {@code UPDATE}. Each request is then completed with {@link Outcome#RESERVED} or
+ * {@link Outcome#INSUFFICIENT_STOCK}, so the row lock is held once per batch instead of once per order. Batches
+ * run on {@link StockWorkerConnections}, since the orders they answer keep their own connections while waiting.
+ * <p>
+ * The batch commits before the orders that wait on it. An order that later rolls back gives its stock back through
+ * {@link #releaseOnRollback}, which queues a release for the next batch. Stock taken by a batch whose orders never
+ * commit because the process dies in between is not returned.
+ */
+@Component
+public class ReservationCoalescer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationCoalescer.class);
+
+    public static final String BATCH_SIZE = "chickendirect.order.group-commit.batch.size";
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    /**
+     * A reservation when {@code quantity} is positive, a release otherwise. Releases carry no future.
+     */
+    private record Request(int quantity, CompletableFuture<StockReservation> result) {
+    }
+
+    private final ProductRepo productRepo;
+    private final StripedInventory stripedInventory;
+    private final OutboxWriter outboxWriter;
+    private final ProductCatalogCache productCatalogCache;
+    private final TransactionTemplate transactionTemplate;
+    private final DistributionSummary batchSizes;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final int workers;
+
+    private final ConcurrentHashMap<Long, Queue<Request>> queues = new ConcurrentHashMap<>();
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+
+    private volatile ScheduledExecutorService executor;
+
+    public ReservationCoalescer(ProductRepo productRepo, StripedInventory stripedInventory, OutboxWriter outboxWriter,
+                                ProductCatalogCache productCatalogCache, TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${chickendirect.order.group-commit.window:2ms}") Duration window,
+                                @Value("${chickendirect.order.group-commit.max-batch-size:500}") int maxBatchSize,
+                                @Value("${chickendirect.order.group-commit.workers:2}") int workers) {
+        this.productRepo = productRepo;
+        this.stripedInventory = stripedInventory;
+        this.outboxWriter = outboxWriter;
+        this.productCatalogCache = productCatalogCache;
+        this.transactionTemplate = transactionTemplate;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.workers = workers;
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE)
+                .description("Stock requests applied per group-commit batch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a reservation for the next batch of the product.
+     */
+    public CompletableFuture<StockReservation> reserve(long productId, int quantity) {
+        if (!isRunning()) {
+            throw new IllegalStateException("Reservation coalescer is not running");
+        }
+        CompletableFuture<StockReservation> result = new CompletableFuture<>();
+        enqueue(productId, new Request(quantity, result));
+        return result;
+    }
+
+    /**
+     * Queues stock to be put back with the next batch of the product.
+     */
+    public void release(long productId, int quantity) {
+        enqueue(productId, new Request(-quantity, null));
+    }
+
+    /**
+     * Releases a reservation again unless the current transaction commits.
+     */
+    public void releaseOnRollback(long productId, int quantity) {
+        onCompletion(committed -> {
+            if (!committed) {
+                release(productId, quantity);
+            }
+        });
+    }
+
+    /**
+     * Releases stock once the current transaction has committed, for changes such as a deleted order that must
+     * not give stock back when they roll back.
+     */
+    public void releaseOnCommit(long productId, int quantity) {
+        onCompletion(committed -> {
+            if (committed) {
+                release(productId, quantity);
+            }
+        });
+    }
+
+    private void enqueue(long productId, Request request) {
+        queues.computeIfAbsent(productId, id -> new ConcurrentLinkedQueue<>()).add(request);
+        schedule(productId, window);
+    }
+
+    /**
+     * Opens a batch for the product unless one is already pending. Once the coalescer has stopped, the remaining
+     * requests are applied on the calling thread so queued releases are not lost.
+     */
+    private void schedule(long productId, Duration delay) {
+        if (!scheduled.add(productId)) {
+            return;
+        }
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            flush(productId);
+        } else {
+            current.schedule(() -> flush(productId), delay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Runs one batch. The product stays marked as scheduled until the batch has finished, so batches of a product
+     * never overlap and requests are applied strictly in arrival order; whatever queued up meanwhile is flushed right
+     * after.
+     */
+    private void flush(long productId) {
+        Queue<Request> queue = queues.get(productId);
+        List<Request> batch = new ArrayList<>();
+        Request request;
+        while (batch.size() < maxBatchSize && (request = queue.poll()) != null) {
+            batch.add(request);
+        }
+
+        boolean applied = true;
+        try {
+            if (!batch.isEmpty()) {
+                applied = applyBatch(productId, batch, queue);
+            }
+        } finally {
+            scheduled.remove(productId);
+            if (!queue.isEmpty() && (applied || executor != null)) {
+                schedule(productId, applied ? Duration.ZERO : RETRY_DELAY);
+            }
+        }
+    }
+
+    private boolean applyBatch(long productId, List<Request> batch, Queue<Request> queue) {
+        batchSizes.record(batch.size());
+        List<StockReservation> results;
+        try {
+            // the orders waiting for this batch hold application connections
+            results = StockWorkerConnections.call(() -> transactionTemplate.execute(status -> apply(productId, batch)));
+        } catch (RuntimeException ex) {
+            log.error("Stock batch of {} requests for product id={} failed", batch.size(), productId, ex);
+            batch.forEach(failed -> {
+                if (failed.result() != null) {
+                    failed.result().completeExceptionally(ex);
+                } else {
+                    // releases must not get lost, they are retried with the next batch
+                    queue.add(failed);
+                }
+            });
+            return false;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i).result() != null) {
+                batch.get(i).result().complete(results.get(i));
+            }
+        }
+        return true;
+    }
+
+    private List<StockReservation> apply(long productId, List<Request> batch) {
+        Optional<Product> locked = productRepo.findByIdForUpdate(productId);
+        if (locked.isEmpty()) {
+            return batch.stream().map(request -> new StockReservation(Outcome.NOT_FOUND, 0)).toList();
+        }
+
+        Product product = locked.get();
+        if (product.isStriped()) {
+            return applyStriped(product, batch);
+        }
+
+        int stock = product.getQuantity();
+        List<StockReservation> results = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            if (request.quantity() <= 0 || request.quantity() <= stock) {
+                stock -= request.quantity();
+                results.add(new StockReservation(Outcome.RESERVED, stock));
+            } else {
+                results.add(new StockReservation(Outcome.INSUFFICIENT_STOCK, stock));
+            }
+        }
+
+        product.setQuantity(stock);
+        ProductStatus status = OrderService.statusForQuantity(stock);
+        if (product.getProductStatus() != status) {
+            product.setProductStatus(status);
+            outboxWriter.stockStatusChanged(product);
+        }
+        productCatalogCache.evictStock(productId);
+        log.debug("Applied {} stock requests to product id={}, remaining quantity {}", batch.size(), productId, stock);
+        return results;
+    }
+
+    /**
+     * The product was striped after the requests were queued: releases go to the stripes, reservations are
+     * handed back to the caller.
+     */
+    private List<StockReservation> applyStriped(Product product, List<Request> batch) {
+        List<StockReservation> results = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            if (request.quantity() < 0) {
+                int available = stripedInventory.release(product, -request.quantity());
+                results.add(new StockReservation(Outcome.RESERVED, available));
+            } else {
+                results.add(new StockReservation(Outcome.STRIPED, product.getQuantity()));
+            }
+        }
+        return results;
+    }
+
+    private void onCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void start() {
+        if (executor == null) {
+            executor = Executors.newScheduledThreadPool(workers, Thread.ofPlatform().name("stock-batch-", 0).factory());
+            log.info("Coalescing stock reservations in {} windows", window);
+        }
+    }
+
+    /**
+     * Stops accepting requests and lets the batches that are already scheduled run.
+     */
+    @Override
+    public synchronized void stop() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        executor = null;
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Stock batches still running at shutdown");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.chickendirect.inventory;
+
+/**
+ * Reply to a stock change handed to a component that owns the product's stock, instead of being made under the
+ * caller's own row lock.
+ *
+ * @param available stock left after a reservation, or the stock on hand when it was refused
+ */
+public record StockReservation(Outcome outcome, int available) {
+
+    public enum Outcome {
+        RESERVED,
+        INSUFFICIENT_STOCK,
+        NOT_FOUND,
+        /**
+         * The product keeps its stock in stripes and must be reserved through {@link StripedInventory}.
+         */
+        STRIPED,
+        /**
+         * The product's stock is being changed outside the owning component; the caller should retry.
+         */
+        BUSY
+    }
+}
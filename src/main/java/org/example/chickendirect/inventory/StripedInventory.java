@@ -0,0 +1,242 @@
+package org.example.chickendirect.inventory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.chickendirect.cache.ProductCatalogCache;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.repos.ProductStockStripeRepo;
+import org.example.chickendirect.repos.ProductStockStripeRepo.StripeTotals;
+import org.example.chickendirect.services.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stock for hot products split over several {@code product_stock_stripe} rows, so concurrent orders for the same
+ * product lock different rows instead of queueing on the product row.
+ * <p>
+ * A reservation takes the whole quantity from one stripe, starting at a random one and skipping stripes other
+ * transactions hold. Only when no single stripe can cover the order are all stripes locked and the remaining
+ * stock spread evenly again. The background {@link #rebalance()} evens out skewed stripes, copies the total into
+ * {@code product.quantity} for plain SQL readers and refreshes the set of striped products that
+ * {@code OrderService} uses to skip the product row lock. That set is only a hint: the {@code stripe_count} column
+ * is authoritative.
+ */
+@Component
+public class StripedInventory {
+
+    private static final Logger log = LoggerFactory.getLogger(StripedInventory.class);
+
+    public static final String SLOW_PATH_RESERVATIONS = "chickendirect.inventory.striping.slow-path";
+    public static final int MAX_STRIPES = 64;
+
+    private final ProductStockStripeRepo stockStripeRepo;
+    private final ProductRepo productRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCatalogCache productCatalogCache;
+    private final Counter slowPathReservations;
+
+    private volatile Set<Long> stripedProductIds = Set.of();
+
+    public StripedInventory(ProductStockStripeRepo stockStripeRepo, ProductRepo productRepo,
+                            TransactionTemplate transactionTemplate, ProductCatalogCache productCatalogCache,
+                            MeterRegistry meterRegistry) {
+        this.stockStripeRepo = stockStripeRepo;
+        this.productRepo = productRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.productCatalogCache = productCatalogCache;
+        this.slowPathReservations = Counter.builder(SLOW_PATH_RESERVATIONS)
+                .description("Striped reservations that had to lock every stripe of the product")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param reserved  whether the quantity was taken
+     * @param available stock left after the reservation, or the stock on hand when it was refused
+     */
+    public record Reservation(boolean reserved, int available) {
+    }
+
+    public boolean isStriped(long productId) {
+        return stripedProductIds.contains(productId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Reservation reserve(Product product, int quantity) {
+        long productId = product.getProductId();
+        requireStriped(product);
+
+        int start = ThreadLocalRandom.current().nextInt(product.getStripeCount());
+        if (stockStripeRepo.takeFromAnyStripe(productId, quantity, start).isPresent()) {
+            return new Reservation(true, updateTotal(product, stockStripeRepo.sumQuantity(productId)));
+        }
+
+        slowPathReservations.increment();
+        StripeTotals totals = stockStripeRepo.lockStripes(productId);
+        if (totals.getTotal() < quantity) {
+            return new Reservation(false, updateTotal(product, totals.getTotal()));
+        }
+        long remaining = totals.getTotal() - quantity;
+        stockStripeRepo.redistribute(productId, remaining, totals.getStripes());
+        log.debug("Reserved {} units of product id={} across all {} stripes", quantity, productId, totals.getStripes());
+        return new Reservation(true, updateTotal(product, remaining));
+    }
+
+    /**
+     * Puts stock back, normally into the emptiest stripe.
+     *
+     * @return the product's stock afterwards
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int release(Product product, int quantity) {
+        long productId = product.getProductId();
+        requireStriped(product);
+
+        if (stockStripeRepo.addToEmptiestStripe(productId, quantity).isPresent()) {
+            return updateTotal(product, stockStripeRepo.sumQuantity(productId));
+        }
+        StripeTotals totals = stockStripeRepo.lockStripes(productId);
+        long total = totals.getTotal() + quantity;
+        stockStripeRepo.redistribute(productId, total, totals.getStripes());
+        return updateTotal(product, total);
+    }
+
+    /**
+     * Replaces the product's stock with {@code quantity}, spread evenly over its stripes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reset(Product product, int quantity) {
+        requireStriped(product);
+        StripeTotals totals = stockStripeRepo.lockStripes(product.getProductId());
+        stockStripeRepo.redistribute(product.getProductId(), quantity, totals.getStripes());
+        product.setQuantity(quantity);
+        updateTotal(product, quantity);
+    }
+
+    /**
+     * Moves the product's stock into {@code stripes} stripes, or back into {@code product.quantity} when
+     * {@code stripes} is 0. The caller must hold the product row lock.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void restripe(Product product, int stripes) {
+        long productId = product.getProductId();
+        if (product.getStripeCount() == stripes) {
+            return;
+        }
+
+        long total = product.getQuantity();
+        if (product.isStriped()) {
+            total = stockStripeRepo.lockStripes(productId).getTotal();
+            stockStripeRepo.deleteStripes(productId);
+        }
+        if (stripes > 0) {
+            stockStripeRepo.insertStripes(productId, total, stripes);
+        }
+
+        product.setStripeCount(stripes);
+        product.setQuantity((int) total);
+        product.setStripeTotal(stripes > 0 ? (int) total : null);
+        afterCommit(() -> updateHint(productId, stripes > 0));
+        log.info("Product id={} now keeps {} units in {} stripes", productId, total, stripes);
+    }
+
+    /**
+     * Evens out stripes whose smallest stripe has dropped below half the average, so the fast path keeps finding a
+     * stripe with enough stock, and syncs {@code product.quantity} and the product status with the stripe total.
+     *
+     * @return number of products whose stripes were redistributed
+     */
+    @Scheduled(fixedDelayString = "${chickendirect.inventory.striping.rebalance-interval:PT5S}")
+    public int rebalance() {
+        List<Long> productIds = productRepo.findStripedProductIds();
+        stripedProductIds = Set.copyOf(productIds);
+
+        int rebalanced = 0;
+        for (long productId : productIds) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> rebalance(productId)))) {
+                    rebalanced++;
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Could not rebalance stripes of product id={}", productId, ex);
+            }
+        }
+        if (rebalanced > 0) {
+            log.debug("Rebalanced stripes of {} products", rebalanced);
+        }
+        return rebalanced;
+    }
+
+    private boolean rebalance(long productId) {
+        StripeTotals totals = stockStripeRepo.readStripes(productId);
+        if (totals.getStripes() == 0) {
+            return false;
+        }
+
+        boolean skewed = 2L * totals.getMinimum() * totals.getStripes() < totals.getTotal();
+        if (skewed) {
+            totals = stockStripeRepo.lockStripes(productId);
+            stockStripeRepo.redistribute(productId, totals.getTotal(), totals.getStripes());
+        }
+
+        int total = (int) totals.getTotal();
+        ProductStatus status = OrderService.statusForQuantity(total);
+        if (productRepo.syncStripeTotal(productId, total, status.name()).isPresent()) {
+            productCatalogCache.evictStock(productId);
+        }
+        return skewed;
+    }
+
+    /**
+     * Rejects a product whose stock moved back into the product row since the striped set was last refreshed, so
+     * the caller does not change row stock it has not locked.
+     */
+    public void requireStriped(Product product) {
+        if (!product.isStriped()) {
+            log.warn("Product id={} is no longer striped", product.getProductId());
+            updateHint(product.getProductId(), false);
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Stock for product with id " + product.getProductId() + " changed, please try again");
+        }
+    }
+
+    private int updateTotal(Product product, long total) {
+        product.setStripeTotal((int) total);
+        return (int) total;
+    }
+
+    private void updateHint(long productId, boolean striped) {
+        Set<Long> ids = new HashSet<>(stripedProductIds);
+        if (striped ? ids.add(productId) : ids.remove(productId)) {
+            stripedProductIds = Set.copyOf(ids);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.chickendirect.inventory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, where a slot on level {@code L} covers {@code 64^L} ticks.
+ * A key is filed in the lowest level whose range still reaches its deadline and moves one level down each time the
+ * wheel enters the block of ticks its slot stands for, so scheduling is O(1) and each tick only touches the slots
+ * that are due instead of every pending key. Deadlines beyond the top level are parked in its last slot and filed
+ * again when that slot comes round.
+ * <p>
+ * There is no cancellation: callers re-check the key when it comes due and drop or reschedule it.
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private record Entry<T>(T key, long deadlineTick) {
+    }
+
+    private final long tickMillis;
+    private final List<Entry<T>>[][] wheels;
+    private final List<T> due = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(Duration tick, long nowMillis) {
+        if (tick.toMillis() <= 0) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond");
+        }
+        this.tickMillis = tick.toMillis();
+        this.wheels = new List[LEVELS][SLOTS];
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    /**
+     * Files {@code key} to come due on the first tick at or after {@code deadlineMillis}. A deadline that has
+     * already passed is returned by the next {@link #advance}.
+     */
+    public synchronized void schedule(T key, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        size++;
+        place(new Entry<>(key, deadlineTick));
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis}.
+     *
+     * @return the keys that came due since the last call
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        if (size == due.size()) {
+            currentTick = Math.max(currentTick, targetTick);
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            List<Entry<T>> slot = takeSlot(0, (int) (currentTick & SLOT_MASK));
+            if (slot != null) {
+                slot.forEach(entry -> due.add(entry.key()));
+            }
+        }
+
+        List<T> expired = List.copyOf(due);
+        size -= expired.size();
+        due.clear();
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        long ticksAway = entry.deadlineTick() - currentTick;
+        if (ticksAway <= 0) {
+            due.add(entry.key());
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if (ticksAway < 1L << (shift + SLOT_BITS)) {
+                addToSlot(level, (int) ((entry.deadlineTick() >>> shift) & SLOT_MASK), entry);
+                return;
+            }
+        }
+        int topShift = SLOT_BITS * (LEVELS - 1);
+        addToSlot(LEVELS - 1, (int) (((currentTick >>> topShift) - 1) & SLOT_MASK), entry);
+    }
+
+    /**
+     * Files the entries of the slot the wheel just entered on {@code level} again, which puts them on a lower level.
+     */
+    private void cascade(int level) {
+        List<Entry<T>> slot = takeSlot(level, (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+        if (slot != null) {
+            slot.forEach(this::place);
+        }
+    }
+
+    private void addToSlot(int level, int slot, Entry<T> entry) {
+        if (wheels[level][slot] == null) {
+            wheels[level][slot] = new ArrayList<>();
+        }
+        wheels[level][slot].add(entry);
+    }
+
+    private List<Entry<T>> takeSlot(int level, int slot) {
+        List<Entry<T>> entries = wheels[level][slot];
+        wheels[level][slot] = null;
+        return entries;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.chickendirect.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.chickendirect.enums.StockReservationMode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.function.Supplier;
+
+/**
+ * Domain meters for the order hot paths. All tags come from small fixed sets (reservation mode, operation,
+ * outcome, rejection reason) so the series count stays bounded.
+ */
+@Component
+public class OrderMetrics {
+
+    public static final String ORDER_CREATE = "chickendirect.order.create";
+    public static final String ORDER_LOCK_WAIT = "chickendirect.order.lock.wait";
+    public static final String STOCK_REJECTIONS = "chickendirect.order.stock.rejections";
+    public static final String ORDER_LINE_MUTATION = "chickendirect.order.line.mutation";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_REJECTED = "rejected";
+    public static final String OUTCOME_ERROR = "error";
+
+    public static final String REASON_OUT_OF_STOCK = "out_of_stock";
+    public static final String REASON_INSUFFICIENT_STOCK = "insufficient_stock";
+    public static final String REASON_CONFLICT = "conflict";
+
+    private final MeterRegistry meterRegistry;
+
+    public OrderMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T recordOrderCreation(StockReservationMode mode, Supplier<T> action) {
+        return record(Timer.builder(ORDER_CREATE)
+                .description("Time spent placing an order")
+                .tag("mode", mode.name()), action);
+    }
+
+    public <T> T recordLockWait(Supplier<T> action) {
+        return Timer.builder(ORDER_LOCK_WAIT)
+                .description("Time spent acquiring product row locks")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(action);
+    }
+
+    public <T> T recordOrderLineMutation(String operation, Supplier<T> action) {
+        return record(Timer.builder(ORDER_LINE_MUTATION)
+                .description("Time spent changing the lines of an existing order")
+                .tag("operation", operation), action);
+    }
+
+    public void recordOrderLineMutation(String operation, Runnable action) {
+        recordOrderLineMutation(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public void stockRejected(String reason) {
+        Counter.builder(STOCK_REJECTIONS)
+                .description("Order lines rejected because of missing stock")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private <T> T record(Timer.Builder timer, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_ERROR;
+        try {
+            T result = action.get();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } catch (ResponseStatusException ex) {
+            outcome = ex.getStatusCode().is4xxClientError() ? OUTCOME_REJECTED : OUTCOME_ERROR;
+            throw ex;
+        } finally {
+            sample.stop(timer.tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+}
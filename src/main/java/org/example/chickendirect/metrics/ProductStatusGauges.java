@@ -0,0 +1,51 @@
+package org.example.chickendirect.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.repos.ProductRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the number of products per {@link ProductStatus}. Counts are refreshed on a schedule with one
+ * grouped query instead of querying the database on every scrape.
+ */
+@Component
+public class ProductStatusGauges {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductStatusGauges.class);
+
+    public static final String PRODUCTS_BY_STATUS = "chickendirect.products";
+
+    private final ProductRepo productRepo;
+    private final Map<ProductStatus, AtomicLong> counts = new EnumMap<>(ProductStatus.class);
+
+    public ProductStatusGauges(ProductRepo productRepo, MeterRegistry meterRegistry) {
+        this.productRepo = productRepo;
+        for (ProductStatus status : ProductStatus.values()) {
+            AtomicLong count = new AtomicLong();
+            counts.put(status, count);
+            Gauge.builder(PRODUCTS_BY_STATUS, count, AtomicLong::get)
+                    .description("Number of products per product status")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chickendirect.metrics.product-status-refresh:PT30S}")
+    public void refresh() {
+        Map<ProductStatus, Long> latest = new EnumMap<>(ProductStatus.class);
+        for (Object[] row : productRepo.countByProductStatus()) {
+            latest.put((ProductStatus) row[0], (Long) row[1]);
+        }
+        counts.forEach((status, count) -> count.set(latest.getOrDefault(status, 0L)));
+        log.debug("Refreshed product status gauges: {}", latest);
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.chickendirect.outbox;
+
+import org.example.chickendirect.enums.OrderStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Payload of the order lifecycle events. {@code previousStatus} is only set for status changes.
+ */
+public record OrderEvent(
+        long orderId,
+        long customerId,
+        OrderStatus orderStatus,
+        OrderStatus previousStatus,
+        BigDecimal totalSum
+) {
+}
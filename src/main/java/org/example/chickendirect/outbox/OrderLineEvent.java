@@ -0,0 +1,12 @@
+package org.example.chickendirect.outbox;
+
+/**
+ * Payload of the order line events. A removed line has quantity 0.
+ */
+public record OrderLineEvent(
+        long orderId,
+        long productId,
+        int quantity,
+        int previousQuantity
+) {
+}
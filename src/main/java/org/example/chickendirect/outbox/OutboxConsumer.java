@@ -0,0 +1,26 @@
+package org.example.chickendirect.outbox;
+
+import org.example.chickendirect.entities.OutboxEvent;
+import org.example.chickendirect.enums.OutboxEventType;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Local handler for relayed outbox events. Every bean implementing this interface is called by {@link OutboxRelay}.
+ * <p>
+ * Events arrive in batches, in the order they were written. A consumer that throws rolls back the whole batch,
+ * which is delivered again on the next poll, to every consumer. Consumers must therefore tolerate redelivery.
+ */
+public interface OutboxConsumer {
+
+    /**
+     * Event types this consumer wants; other events are filtered out of its batches.
+     */
+    default Set<OutboxEventType> eventTypes() {
+        return EnumSet.allOf(OutboxEventType.class);
+    }
+
+    void accept(List<OutboxEvent> events);
+}
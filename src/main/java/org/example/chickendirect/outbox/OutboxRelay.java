@@ -0,0 +1,111 @@
+package org.example.chickendirect.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.chickendirect.entities.OutboxEvent;
+import org.example.chickendirect.repos.OutboxEventRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Delivers outbox events to the registered {@link OutboxConsumer}s.
+ * <p>
+ * Each batch is locked with {@code FOR UPDATE SKIP LOCKED}, handed to the consumers and deleted in one short
+ * transaction, so delivery is at-least-once and the table only holds undelivered events. Writers never wait for
+ * the relay: they insert new rows, which the lock does not cover. Several instances can poll at once and will
+ * take disjoint batches; events are then still delivered in order within a batch, but not across instances.
+ */
+@Component
+@ConditionalOnProperty(name = "chickendirect.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    public static final String RELAYED_EVENTS = "chickendirect.outbox.relayed";
+    public static final String RELAY_FAILURES = "chickendirect.outbox.relay.failures";
+
+    private final OutboxEventRepo outboxEventRepo;
+    private final List<OutboxConsumer> consumers;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter failures;
+
+    @Value("${chickendirect.outbox.relay.batch-size:500}")
+    private int batchSize = 500;
+
+    public OutboxRelay(OutboxEventRepo outboxEventRepo, List<OutboxConsumer> consumers,
+                       TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.outboxEventRepo = outboxEventRepo;
+        this.consumers = consumers;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.failures = Counter.builder(RELAY_FAILURES)
+                .description("Outbox batches rolled back because a consumer failed")
+                .register(meterRegistry);
+
+        if (consumers.isEmpty()) {
+            log.info("No outbox consumers registered, relayed events are discarded");
+        }
+    }
+
+    /**
+     * Relays batches until the outbox is drained or a batch fails.
+     *
+     * @return number of events delivered
+     */
+    @Scheduled(fixedDelayString = "${chickendirect.outbox.relay.poll-interval:PT1S}")
+    public int relayPending() {
+        int relayed = 0;
+        int batch;
+        do {
+            batch = relayBatch();
+            relayed += batch;
+        } while (batch == batchSize);
+
+        if (relayed > 0) {
+            log.debug("Relayed {} outbox events", relayed);
+        }
+        return relayed;
+    }
+
+    private int relayBatch() {
+        try {
+            Integer relayed = transactionTemplate.execute(status -> {
+                List<OutboxEvent> events = outboxEventRepo.lockNextBatch(batchSize);
+                if (events.isEmpty()) {
+                    return 0;
+                }
+                consumers.forEach(consumer -> deliver(consumer, events));
+                outboxEventRepo.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getOutboxId).toList());
+                return events.size();
+            });
+            return relayed == null ? 0 : relayed;
+        } catch (RuntimeException ex) {
+            failures.increment();
+            log.error("Outbox batch failed and will be retried on the next poll", ex);
+            return 0;
+        }
+    }
+
+    private void deliver(OutboxConsumer consumer, List<OutboxEvent> events) {
+        List<OutboxEvent> wanted = events.stream()
+                .filter(event -> consumer.eventTypes().contains(event.getEventType()))
+                .toList();
+        if (wanted.isEmpty()) {
+            return;
+        }
+        consumer.accept(wanted);
+        wanted.forEach(event -> Counter.builder(RELAYED_EVENTS)
+                .description("Outbox events delivered to a consumer")
+                .tag("type", event.getEventType().name())
+                .register(meterRegistry)
+                .increment());
+    }
+}
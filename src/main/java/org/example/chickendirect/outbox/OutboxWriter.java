@@ -0,0 +1,93 @@
+package org.example.chickendirect.outbox;
+
+import org.example.chickendirect.entities.Order;
+import org.example.chickendirect.entities.OrderProduct;
+import org.example.chickendirect.entities.OutboxEvent;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.OrderStatus;
+import org.example.chickendirect.enums.OutboxEventType;
+import org.example.chickendirect.repos.OutboxEventRepo;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+
+/**
+ * Appends events to the outbox table inside the caller's transaction, so an event exists exactly when the change
+ * it describes was committed. The row is only persisted here and is inserted with the rest of the transaction's
+ * batched writes at flush; delivery happens later in {@link OutboxRelay}.
+ */
+@Component
+public class OutboxWriter {
+
+    private final OutboxEventRepo outboxEventRepo;
+    private final JsonMapper jsonMapper;
+
+    public OutboxWriter(OutboxEventRepo outboxEventRepo, JsonMapper jsonMapper) {
+        this.outboxEventRepo = outboxEventRepo;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCreated(Order order) {
+        append(OutboxEventType.ORDER_CREATED, order.getOrderId(), orderEvent(order, null));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderStatusChanged(Order order, OrderStatus previousStatus) {
+        append(OutboxEventType.ORDER_STATUS_CHANGED, order.getOrderId(), orderEvent(order, previousStatus));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderDeleted(Order order) {
+        append(OutboxEventType.ORDER_DELETED, order.getOrderId(), orderEvent(order, null));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderLineAdded(OrderProduct line) {
+        append(OutboxEventType.ORDER_LINE_ADDED, line.getOrder().getOrderId(), lineEvent(line, line.getQuantity(), 0));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderLineUpdated(OrderProduct line, int previousQuantity) {
+        append(OutboxEventType.ORDER_LINE_UPDATED, line.getOrder().getOrderId(),
+                lineEvent(line, line.getQuantity(), previousQuantity));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderLineRemoved(OrderProduct line) {
+        append(OutboxEventType.ORDER_LINE_REMOVED, line.getOrder().getOrderId(), lineEvent(line, 0, line.getQuantity()));
+    }
+
+    /**
+     * Records a product that just became low on stock or sold out. Other statuses are ignored.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void stockStatusChanged(Product product) {
+        OutboxEventType type = switch (product.getProductStatus()) {
+            case PENDING_RESTOCK -> OutboxEventType.PRODUCT_LOW_STOCK;
+            case OUT_OF_STOCK -> OutboxEventType.PRODUCT_OUT_OF_STOCK;
+            default -> null;
+        };
+        if (type != null) {
+            append(type, product.getProductId(), new StockEvent(product.getProductId(), product.getName(),
+                    product.getQuantity(), product.getProductStatus()));
+        }
+    }
+
+    private OrderEvent orderEvent(Order order, OrderStatus previousStatus) {
+        return new OrderEvent(order.getOrderId(), order.getCustomer().getCustomerId(), order.getOrderStatus(),
+                previousStatus, order.getTotalSum());
+    }
+
+    private OrderLineEvent lineEvent(OrderProduct line, int quantity, int previousQuantity) {
+        return new OrderLineEvent(line.getOrder().getOrderId(), line.getProduct().getProductId(), quantity,
+                previousQuantity);
+    }
+
+    private void append(OutboxEventType type, long aggregateId, Object payload) {
+        outboxEventRepo.save(new OutboxEvent(type, aggregateId, jsonMapper.writeValueAsString(payload), Instant.now()));
+    }
+}
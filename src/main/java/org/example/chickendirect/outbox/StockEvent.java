@@ -0,0 +1,11 @@
+package org.example.chickendirect.outbox;
+
+import org.example.chickendirect.enums.ProductStatus;
+
+public record StockEvent(
+        long productId,
+        String name,
+        int quantity,
+        ProductStatus productStatus
+) {
+}
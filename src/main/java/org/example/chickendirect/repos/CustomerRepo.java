@@ -1,17 +1,41 @@
 package org.example.chickendirect.repos;
 
 import org.example.chickendirect.entities.Customer;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface CustomerRepo extends JpaRepository<Customer, Long> {
 
     Optional<Customer> findByEmail(String email);
 
-    boolean existsByEmailIgnoreCase(String email);
+    @Query("SELECT COUNT(c) > 0 FROM Customer c WHERE lower(c.email) = lower(:email)")
+    boolean existsByEmailIgnoreCase(@Param("email") String email);
 
     boolean existsByPhoneNumber(String phoneNumber);
+
+    @Query("SELECT lower(c.email) FROM Customer c WHERE lower(c.email) IN :emails")
+    Set<String> findExistingEmailsIgnoreCase(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT c.phoneNumber FROM Customer c WHERE c.phoneNumber IN :phoneNumbers")
+    Set<String> findExistingPhoneNumbers(@Param("phoneNumbers") Collection<String> phoneNumbers);
+
+    @Query("SELECT c.customerId FROM Customer c WHERE c.customerId > :after ORDER BY c.customerId")
+    List<Long> findCustomerIdsAfter(@Param("after") long after, Limit limit);
+
+    @EntityGraph(attributePaths = "addressList")
+    @Query("SELECT c FROM Customer c WHERE c.customerId IN :ids ORDER BY c.customerId")
+    List<Customer> findAllWithAddressesByCustomerIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "addressList")
+    Optional<Customer> findWithAddressesByCustomerId(long customerId);
 }
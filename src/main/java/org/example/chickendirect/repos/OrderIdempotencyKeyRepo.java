@@ -0,0 +1,62 @@
+package org.example.chickendirect.repos;
+
+import org.example.chickendirect.entities.OrderIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface OrderIdempotencyKeyRepo extends JpaRepository<OrderIdempotencyKey, String> {
+
+    /**
+     * Claims the key for the current transaction. A concurrent claim of the same key blocks on the unique index
+     * until the first transaction finishes, so at most one request per key ever reaches stock reservation.
+     * Expired keys are taken over as if they did not exist.
+     *
+     * @return 1 if the key was claimed, 0 if a live key already exists
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_idempotency_key (idempotency_key, request_hash, created_at, expires_at)
+            VALUES (:key, :requestHash, :now, :expiresAt)
+            ON CONFLICT (idempotency_key) DO UPDATE
+            SET request_hash = EXCLUDED.request_hash,
+                order_id = NULL,
+                response_body = NULL,
+                created_at = EXCLUDED.created_at,
+                expires_at = EXCLUDED.expires_at
+            WHERE order_idempotency_key.expires_at <= EXCLUDED.created_at
+            """, nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("now") Instant now,
+              @Param("expiresAt") Instant expiresAt);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE order_idempotency_key
+            SET order_id = :orderId, response_body = :responseBody
+            WHERE idempotency_key = :key
+            """, nativeQuery = true)
+    int complete(@Param("key") String key,
+                 @Param("orderId") long orderId,
+                 @Param("responseBody") String responseBody);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM order_idempotency_key
+            WHERE idempotency_key IN (
+                SELECT idempotency_key FROM order_idempotency_key
+                WHERE expires_at <= :now
+                LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            )
+            """, nativeQuery = true)
+    int deleteExpired(@Param("now") Instant now, @Param("batchSize") int batchSize);
+}
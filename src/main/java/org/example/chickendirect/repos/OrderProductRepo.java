@@ -1,7 +1,11 @@
 package org.example.chickendirect.repos;
 
 import org.example.chickendirect.entities.OrderProduct;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +13,21 @@ import java.util.List;
 @Repository
 public interface OrderProductRepo extends JpaRepository<OrderProduct, Long> {
     List<OrderProduct> findByOrderOrderIdAndOrderCustomerEmail(long orderId, String email);
+
+    @EntityGraph(attributePaths = "product")
+    @Query("""
+            SELECT op FROM OrderProduct op
+            WHERE op.order.orderId = :orderId AND lower(op.product.name) = lower(:productName)
+            ORDER BY op.orderProductId
+            """)
+    List<OrderProduct> findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(
+            @Param("orderId") long orderId, @Param("productName") String productName);
+
+    @EntityGraph(attributePaths = "product")
+    List<OrderProduct> findByOrderOrderIdAndProductProductIdOrderByOrderProductIdAsc(long orderId, long productId);
+
+    boolean existsByOrderOrderIdAndProductProductId(long orderId, long productId);
+
+    @EntityGraph(attributePaths = "product")
+    List<OrderProduct> findByOrderProductIdGreaterThanOrderByOrderProductIdAsc(long after, Limit limit);
 }
@@ -1,18 +1,62 @@
 package org.example.chickendirect.repos;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.example.chickendirect.entities.Order;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepo extends JpaRepository<Order, Long> {
 
-    List<Order> findByCustomerCustomerId(Long customerId);
+    @EntityGraph("Order.details")
+    @Query("SELECT o FROM Order o WHERE o.customer.customerId = :customerId ORDER BY o.orderId")
+    List<Order> findByCustomerCustomerId(@Param("customerId") Long customerId);
+
+    @Query("SELECT o.orderId FROM Order o WHERE o.orderId > :after ORDER BY o.orderId")
+    List<Long> findOrderIdsAfter(@Param("after") long after, Limit limit);
+
+    @EntityGraph("Order.details")
+    @Query("SELECT o FROM Order o WHERE o.orderId IN :ids ORDER BY o.orderId")
+    List<Order> findAllWithDetailsByOrderIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph("Order.details")
+    Optional<Order> findWithDetailsByOrderId(long orderId);
+
+    /**
+     * Locks the order row so concurrent line changes move its totals one after the other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.orderId = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") long id);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT o, op FROM Order o
+            JOIN FETCH o.customer
+            JOIN FETCH o.address
+            LEFT JOIN o.items op
+            LEFT JOIN FETCH op.product
+            ORDER BY o.orderId, op.orderProductId
+            """)
+    Stream<Object[]> streamAllWithItems();
 
     boolean existsByAddress_AddressId(Long addressId);
 
     boolean existsByCustomer_CustomerId(Long customerId);
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package org.example.chickendirect.repos;
+
+import org.example.chickendirect.entities.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepo extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the oldest pending events for the current transaction. Rows another relay has already locked are
+     * skipped instead of waited for, so concurrent relays take disjoint batches and never block writers.
+     */
+    @Query(value = """
+            SELECT * FROM outbox
+            ORDER BY outbox_id
+            LIMIT :batchSize
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("batchSize") int batchSize);
+}
@@ -2,23 +2,90 @@ package org.example.chickendirect.repos;
 
 import jakarta.persistence.LockModeType;
 import org.example.chickendirect.entities.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface ProductRepo extends JpaRepository<Product, Long> {
 
     Optional<Product> findByName(String name);
 
+    @Query("SELECT p.name FROM Product p WHERE p.name IN :names")
+    Set<String> findExistingNames(@Param("names") Collection<String> names);
+
+    List<Product> findByProductIdGreaterThanOrderByProductIdAsc(long after, Limit limit);
+
+    @Query("SELECT p.productStatus, COUNT(p) FROM Product p GROUP BY p.productStatus")
+    List<Object[]> countByProductStatus();
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT p FROM Product p WHERE p.productId = :id")
     Optional<Product> findByIdForUpdate(@Param("id") Long id);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.productId IN :ids ORDER BY p.productId")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query(value = """
+            UPDATE product
+            SET quantity = quantity - :quantity,
+                product_status = CASE
+                    WHEN quantity - :quantity = 0 THEN 'OUT_OF_STOCK'
+                    WHEN quantity - :quantity <= :lowStockThreshold THEN 'PENDING_RESTOCK'
+                    ELSE 'IN_STOCK'
+                END
+            WHERE product_id = :id AND quantity >= :quantity AND stripe_count = 0
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<Product> reserveStock(@Param("id") long id,
+                                   @Param("quantity") int quantity,
+                                   @Param("lowStockThreshold") int lowStockThreshold);
+
+    /**
+     * Puts row stock back without locking the product for longer than the statement, the counterpart of
+     * {@link #reserveStock}. Returns nothing when the product keeps its stock in stripes.
+     */
+    @Query(value = """
+            UPDATE product
+            SET quantity = quantity + :quantity,
+                product_status = CASE
+                    WHEN quantity + :quantity = 0 THEN 'OUT_OF_STOCK'
+                    WHEN quantity + :quantity <= :lowStockThreshold THEN 'PENDING_RESTOCK'
+                    ELSE 'IN_STOCK'
+                END
+            WHERE product_id = :id AND stripe_count = 0
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<Product> returnStock(@Param("id") long id,
+                                  @Param("quantity") int quantity,
+                                  @Param("lowStockThreshold") int lowStockThreshold);
+
+    /**
+     * Copies the stripe total of a striped product into its row for plain SQL readers. Only the stock columns are
+     * written, so a concurrent restripe or price change is kept. Returns nothing when the product is no longer
+     * striped or the row already holds these values.
+     */
+    @Query(value = """
+            UPDATE product
+            SET quantity = :quantity, product_status = :status
+            WHERE product_id = :id AND stripe_count > 0
+              AND (quantity <> :quantity OR product_status <> :status)
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<Product> syncStripeTotal(@Param("id") long id,
+                                      @Param("quantity") int quantity,
+                                      @Param("status") String status);
+
+    @Query(value = "SELECT product_id FROM product WHERE stripe_count > 0", nativeQuery = true)
+    List<Long> findStripedProductIds();
 
 }
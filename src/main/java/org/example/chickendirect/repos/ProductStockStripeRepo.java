@@ -0,0 +1,119 @@
+package org.example.chickendirect.repos;
+
+import org.example.chickendirect.entities.ProductStockStripe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Stripes are numbered {@code 0..n-1}. Single-stripe changes lock one row and skip rows other transactions hold;
+ * whole-product changes lock every stripe in stripe order.
+ */
+@Repository
+public interface ProductStockStripeRepo extends JpaRepository<ProductStockStripe, ProductStockStripe.Key> {
+
+    interface StripeTotals {
+        long getTotal();
+
+        int getStripes();
+
+        int getMinimum();
+    }
+
+    /**
+     * Takes the quantity from the first unlocked stripe with enough stock, starting at {@code start} and wrapping
+     * around.
+     *
+     * @return the stripe taken from, or empty when no unlocked stripe holds enough on its own
+     */
+    @Query(value = """
+            UPDATE product_stock_stripe
+            SET quantity = quantity - :quantity
+            WHERE product_id = :productId
+              AND quantity >= :quantity
+              AND stripe = (
+                  SELECT stripe FROM product_stock_stripe
+                  WHERE product_id = :productId AND quantity >= :quantity
+                  ORDER BY stripe < :start, stripe
+                  LIMIT 1
+                  FOR UPDATE SKIP LOCKED)
+            RETURNING stripe
+            """, nativeQuery = true)
+    Optional<Integer> takeFromAnyStripe(@Param("productId") long productId,
+                                        @Param("quantity") int quantity,
+                                        @Param("start") int start);
+
+    /**
+     * Adds the quantity to the emptiest unlocked stripe.
+     *
+     * @return the stripe added to, or empty when every stripe is locked
+     */
+    @Query(value = """
+            UPDATE product_stock_stripe
+            SET quantity = quantity + :quantity
+            WHERE product_id = :productId
+              AND stripe = (
+                  SELECT stripe FROM product_stock_stripe
+                  WHERE product_id = :productId
+                  ORDER BY quantity, stripe
+                  LIMIT 1
+                  FOR UPDATE SKIP LOCKED)
+            RETURNING stripe
+            """, nativeQuery = true)
+    Optional<Integer> addToEmptiestStripe(@Param("productId") long productId, @Param("quantity") int quantity);
+
+    /**
+     * Locks every stripe of the product and sums them. A product without stripes reports zero stripes.
+     */
+    @Query(value = """
+            SELECT COALESCE(SUM(quantity), 0) AS total, COUNT(*)::int AS stripes, COALESCE(MIN(quantity), 0) AS minimum
+            FROM (
+                SELECT quantity FROM product_stock_stripe
+                WHERE product_id = :productId
+                ORDER BY stripe
+                FOR UPDATE) locked
+            """, nativeQuery = true)
+    StripeTotals lockStripes(@Param("productId") long productId);
+
+    /**
+     * Same as {@link #lockStripes} without taking any locks.
+     */
+    @Query(value = """
+            SELECT COALESCE(SUM(quantity), 0) AS total, COUNT(*)::int AS stripes, COALESCE(MIN(quantity), 0) AS minimum
+            FROM product_stock_stripe
+            WHERE product_id = :productId
+            """, nativeQuery = true)
+    StripeTotals readStripes(@Param("productId") long productId);
+
+    @Query(value = "SELECT COALESCE(SUM(quantity), 0) FROM product_stock_stripe WHERE product_id = :productId",
+            nativeQuery = true)
+    long sumQuantity(@Param("productId") long productId);
+
+    /**
+     * Spreads {@code total} evenly over the product's stripes. The caller must hold the locks from
+     * {@link #lockStripes}.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE product_stock_stripe
+            SET quantity = :total / CAST(:stripes AS integer) + CASE WHEN stripe < :total % CAST(:stripes AS integer) THEN 1 ELSE 0 END
+            WHERE product_id = :productId
+            """, nativeQuery = true)
+    int redistribute(@Param("productId") long productId, @Param("total") long total, @Param("stripes") int stripes);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO product_stock_stripe (product_id, stripe, quantity)
+            SELECT :productId, g, :total / :stripes + CASE WHEN g < :total % :stripes THEN 1 ELSE 0 END
+            FROM generate_series(0, :stripes - 1) g
+            """, nativeQuery = true)
+    int insertStripes(@Param("productId") long productId, @Param("total") long total, @Param("stripes") int stripes);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_stock_stripe WHERE product_id = :productId", nativeQuery = true)
+    int deleteStripes(@Param("productId") long productId);
+}
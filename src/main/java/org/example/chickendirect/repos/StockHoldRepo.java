@@ -0,0 +1,37 @@
+package org.example.chickendirect.repos;
+
+import jakarta.persistence.LockModeType;
+import org.example.chickendirect.entities.StockHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface StockHoldRepo extends JpaRepository<StockHold, UUID> {
+
+    interface PendingHold {
+        UUID getHoldId();
+
+        Instant getExpiresAt();
+    }
+
+    /**
+     * Locks the hold row only; the products it holds stock of are not locked.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM StockHold h WHERE h.holdId = :id")
+    Optional<StockHold> findByIdForUpdate(@Param("id") UUID id);
+
+    /**
+     * Every hold, to fill the expiry timing wheel once at startup.
+     */
+    @Query("SELECT h.holdId AS holdId, h.expiresAt AS expiresAt FROM StockHold h")
+    List<PendingHold> findPendingHolds();
+}
@@ -0,0 +1,73 @@
+package org.example.chickendirect.repos;
+
+import org.example.chickendirect.entities.StockJournalEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The stock of a product is {@code product.quantity} plus the deltas journaled for it. Draining moves deltas into
+ * {@code product.quantity} and deletes them; the caller must hold the product row locks, so a drain never races
+ * another drain of the same product.
+ */
+@Repository
+public interface StockJournalRepo extends JpaRepository<StockJournalEntry, Long> {
+
+    interface JournaledStock {
+        long getStock();
+
+        int getStripeCount();
+    }
+
+    interface JournalTotal {
+        long getProductId();
+
+        long getDelta();
+    }
+
+    /**
+     * Appends a delta. Not a {@code @Modifying} query, which would make Hibernate drop the whole second-level cache.
+     *
+     * @return the new journal id
+     */
+    @Query(value = "INSERT INTO stock_journal (product_id, delta) VALUES (:productId, :delta) RETURNING journal_id",
+            nativeQuery = true)
+    long append(@Param("productId") long productId, @Param("delta") int delta);
+
+    /**
+     * Reads the product row and its journal in one statement, so a concurrent drain is seen either completely or
+     * not at all.
+     */
+    @Query(value = """
+            SELECT p.quantity + COALESCE((SELECT SUM(j.delta) FROM stock_journal j WHERE j.product_id = p.product_id), 0)
+                       AS stock,
+                   p.stripe_count AS "stripeCount"
+            FROM product p
+            WHERE p.product_id = :productId
+            """, nativeQuery = true)
+    Optional<JournaledStock> findJournaledStock(@Param("productId") long productId);
+
+    @Query(value = "SELECT DISTINCT product_id FROM stock_journal ORDER BY product_id LIMIT :limit", nativeQuery = true)
+    List<Long> findJournaledProductIds(@Param("limit") int limit);
+
+    @Query(value = """
+            WITH drained AS (
+                DELETE FROM stock_journal WHERE product_id IN (:productIds) RETURNING product_id, delta)
+            SELECT product_id AS "productId", SUM(delta) AS delta
+            FROM drained
+            GROUP BY product_id
+            """, nativeQuery = true)
+    List<JournalTotal> drainTotals(@Param("productIds") Collection<Long> productIds);
+
+    @Query(value = """
+            WITH drained AS (
+                DELETE FROM stock_journal WHERE product_id = :productId RETURNING delta)
+            SELECT COALESCE(SUM(delta), 0) FROM drained
+            """, nativeQuery = true)
+    long drain(@Param("productId") long productId);
+}
@@ -1,7 +1,10 @@
 package org.example.chickendirect.services;
 
+import jakarta.persistence.EntityManager;
 import org.example.chickendirect.dtos.AddressDto;
+import org.example.chickendirect.dtos.CursorPage;
 import org.example.chickendirect.dtos.CustomerDto;
+import org.example.chickendirect.dtos.CustomerImportResult;
 import org.example.chickendirect.entities.Address;
 import org.example.chickendirect.entities.Customer;
 import org.example.chickendirect.repos.AddressRepo;
@@ -15,8 +18,12 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 public class CustomerService {
@@ -25,11 +32,16 @@ public class CustomerService {
     private final CustomerRepo customerRepo;
     private final AddressRepo addressRepo;
     private final OrderRepo orderRepo;
+    private final EntityManager entityManager;
 
-    public CustomerService(CustomerRepo customerRepo, AddressRepo addressRepo, OrderRepo orderRepo) {
+    public static final int IMPORT_CHUNK_SIZE = 1000;
+
+    public CustomerService(CustomerRepo customerRepo, AddressRepo addressRepo, OrderRepo orderRepo,
+                           EntityManager entityManager) {
         this.customerRepo = customerRepo;
         this.addressRepo = addressRepo;
         this.orderRepo = orderRepo;
+        this.entityManager = entityManager;
     }
 
     @Transactional
@@ -141,17 +153,25 @@ public class CustomerService {
         if (!customer.getAddressList().contains(address)) customer.getAddressList().add(address);
     }
 
-    public List<Customer> findAllCustomers() {
-        log.info("Fetching all customers");
-        List<Customer> customers = customerRepo.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<Customer> findAllCustomers(long after, int limit) {
+        log.info("Fetching customers after id={} with limit={}", after, limit);
+        CursorPage<Long> ids = CursorPage.of(
+                customerRepo.findCustomerIdsAfter(after, CursorPage.fetchLimit(limit)), limit, Function.identity());
+        if (ids.items().isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        List<Customer> customers = customerRepo.findAllWithAddressesByCustomerIdIn(ids.items());
         log.info("Fetched {} customers", customers.size());
-        return customers;
+        return new CursorPage<>(customers, ids.nextCursor());
     }
 
+    @Transactional(readOnly = true)
     public Customer findCustomerById(long id) {
         log.info("Fetching customer with id={}", id);
 
-        return customerRepo.findById(id)
+        return customerRepo.findWithAddressesByCustomerId(id)
                 .orElseThrow(() -> {
                     log.warn("Customer not found with id={}", id);
                     return new ResponseStatusException(
@@ -159,6 +179,7 @@ public class CustomerService {
                 });
     }
 
+    @Transactional
     public void deleteCustomerById(long id) {
         log.info("Deleting customer with id={}", id);
 
@@ -178,12 +199,38 @@ public class CustomerService {
         log.info("Customer with id={} deleted successfully", id);
     }
 
-    public List<Customer> saveAllCustomers(List<Customer> customers) {
-        log.info("Saving list of customers, total received={}", customers == null ? 0 : customers.size());
+    /**
+     * Imports customers from a stream in chunks of {@value #IMPORT_CHUNK_SIZE}. Each chunk is checked for
+     * duplicates within itself and against the database with one email query and one phone number query, then
+     * saved with one batched {@code saveAll}, flushed and cleared. Earlier chunks are already flushed, so the
+     * database check also catches duplicates spread across chunks. Any invalid or duplicate customer rejects the
+     * whole import.
+     */
+    @Transactional
+    public CustomerImportResult saveAllCustomers(Iterator<Customer> customers) {
+        log.info("Importing customers in chunks of {}", IMPORT_CHUNK_SIZE);
+
+        long received = 0;
+        long saved = 0;
+        List<Customer> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        while (customers.hasNext()) {
+            chunk.add(customers.next());
+            received++;
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                saved += saveCustomerChunk(chunk);
+                chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saved += saveCustomerChunk(chunk);
+        }
 
-        if (customers == null || customers.isEmpty()) return List.of();
+        log.info("Imported {} of {} received customers", saved, received);
+        return new CustomerImportResult(received, saved);
+    }
 
-        if (customers.stream().anyMatch(c ->
+    private int saveCustomerChunk(List<Customer> chunk) {
+        if (chunk.stream().anyMatch(c ->
                 c == null ||
                         c.getName() == null || c.getName().isBlank() ||
                         c.getEmail() == null || c.getEmail().isBlank() ||
@@ -196,35 +243,38 @@ public class CustomerService {
             );
         }
 
-        for (Customer customer : customers) {
-            if (customerRepo.existsByEmailIgnoreCase(customer.getEmail())) {
-                log.warn("Customer email '{}' already exists in database and will not be saved", customer.getEmail());
-                throw new ResponseStatusException(
-                        HttpStatus.CONFLICT,
-                        "Customer email '" + customer.getEmail() + "' already exists"
-                );
+        Set<String> emails = new HashSet<>();
+        Set<String> phoneNumbers = new HashSet<>();
+        for (Customer customer : chunk) {
+            if (!emails.add(customer.getEmail().toLowerCase(Locale.ROOT))) {
+                throw duplicateCustomer("email", customer.getEmail(), "appears more than once in the request");
             }
-
-            if (customerRepo.existsByPhoneNumber(customer.getPhoneNumber())) {
-                log.warn("Customer phone number '{}' already exists in database and will not be saved", customer.getPhoneNumber());
-                throw new ResponseStatusException(
-                        HttpStatus.CONFLICT,
-                        "Customer phone number '" + customer.getPhoneNumber() + "' already exists"
-                );
+            if (!phoneNumbers.add(customer.getPhoneNumber())) {
+                throw duplicateCustomer("phone number", customer.getPhoneNumber(), "appears more than once in the request");
             }
         }
 
-        List<Customer> validCustomers = customers.stream()
-                .filter(Objects::nonNull)
-                .toList();
-
-        if (validCustomers.isEmpty()) {
-            log.warn("No valid customers to save");
-            return List.of();
+        Set<String> existingEmails = customerRepo.findExistingEmailsIgnoreCase(emails);
+        Set<String> existingPhoneNumbers = customerRepo.findExistingPhoneNumbers(phoneNumbers);
+        for (Customer customer : chunk) {
+            if (existingEmails.contains(customer.getEmail().toLowerCase(Locale.ROOT))) {
+                throw duplicateCustomer("email", customer.getEmail(), "already exists");
+            }
+            if (existingPhoneNumbers.contains(customer.getPhoneNumber())) {
+                throw duplicateCustomer("phone number", customer.getPhoneNumber(), "already exists");
+            }
         }
 
-        List<Customer> savedCustomers = customerRepo.saveAll(validCustomers);
-        log.info("Saved {} customers successfully", savedCustomers.size());
-        return savedCustomers;
+        customerRepo.saveAll(chunk);
+        entityManager.flush();
+        entityManager.clear();
+        log.info("Saved chunk of {} customers", chunk.size());
+        return chunk.size();
+    }
+
+    private ResponseStatusException duplicateCustomer(String field, String value, String problem) {
+        log.warn("Customer {} '{}' {} and will not be saved", field, value, problem);
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Customer " + field + " '" + value + "' " + problem);
     }
 }
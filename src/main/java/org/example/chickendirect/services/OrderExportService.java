@@ -0,0 +1,86 @@
+package org.example.chickendirect.services;
+
+import jakarta.persistence.EntityManager;
+import org.example.chickendirect.dtos.OrderOutputDto;
+import org.example.chickendirect.dtos.OrderProductOutputDto;
+import org.example.chickendirect.entities.Order;
+import org.example.chickendirect.entities.OrderProduct;
+import org.example.chickendirect.repos.OrderRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+public class OrderExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExportService.class);
+
+    private static final int CLEAR_INTERVAL = 500;
+    private static final byte NEWLINE = '\n';
+
+    private final OrderRepo orderRepo;
+    private final EntityManager entityManager;
+    private final JsonMapper jsonMapper;
+
+    public OrderExportService(OrderRepo orderRepo, EntityManager entityManager, JsonMapper jsonMapper) {
+        this.orderRepo = orderRepo;
+        this.entityManager = entityManager;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportOrders(OutputStream outputStream) throws IOException {
+        log.info("Starting NDJSON export of all orders");
+
+        long exported = 0;
+        Order current = null;
+        List<OrderProductOutputDto> items = new ArrayList<>();
+
+        try (Stream<Object[]> rows = orderRepo.streamAllWithItems()) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                Order order = (Order) row[0];
+                OrderProduct item = (OrderProduct) row[1];
+
+                if (current != null && current.getOrderId() != order.getOrderId()) {
+                    writeLine(outputStream, OrderMapper.toDto(current, items));
+                    items = new ArrayList<>();
+                    if (++exported % CLEAR_INTERVAL == 0) {
+                        entityManager.clear();
+                        outputStream.flush();
+                        log.info("Exported {} orders so far", exported);
+                    }
+                }
+                current = order;
+
+                if (item != null) {
+                    items.add(OrderMapper.toDto(item));
+                }
+            }
+        }
+
+        if (current != null) {
+            writeLine(outputStream, OrderMapper.toDto(current, items));
+            exported++;
+        }
+        outputStream.flush();
+
+        log.info("Finished NDJSON export of {} orders", exported);
+        return exported;
+    }
+
+    private void writeLine(OutputStream outputStream, OrderOutputDto order) throws IOException {
+        outputStream.write(jsonMapper.writeValueAsBytes(order));
+        outputStream.write(NEWLINE);
+    }
+}
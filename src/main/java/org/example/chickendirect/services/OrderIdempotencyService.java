@@ -0,0 +1,118 @@
+package org.example.chickendirect.services;
+
+import org.example.chickendirect.dtos.OrderCreationResult;
+import org.example.chickendirect.dtos.OrderInputDto;
+import org.example.chickendirect.dtos.OrderOutputDto;
+import org.example.chickendirect.entities.OrderIdempotencyKey;
+import org.example.chickendirect.repos.OrderIdempotencyKeyRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+@Service
+public class OrderIdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIdempotencyService.class);
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final OrderService orderService;
+    private final OrderIdempotencyKeyRepo idempotencyKeyRepo;
+    private final JsonMapper jsonMapper;
+
+    @Value("${chickendirect.order.idempotency.ttl:24h}")
+    private Duration ttl = Duration.ofHours(24);
+
+    @Value("${chickendirect.order.idempotency.cleanup-batch-size:1000}")
+    private int cleanupBatchSize = 1000;
+
+    public OrderIdempotencyService(OrderService orderService, OrderIdempotencyKeyRepo idempotencyKeyRepo, JsonMapper jsonMapper) {
+        this.orderService = orderService;
+        this.idempotencyKeyRepo = idempotencyKeyRepo;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Transactional
+    public OrderCreationResult createOrder(String idempotencyKey, OrderInputDto input) {
+        validateKey(idempotencyKey);
+
+        String requestHash = hashRequest(input);
+        Instant now = Instant.now();
+
+        if (idempotencyKeyRepo.claim(idempotencyKey, requestHash, now, now.plus(ttl)) == 0) {
+            log.info("Replaying order for Idempotency-Key '{}'", idempotencyKey);
+            return new OrderCreationResult(replay(idempotencyKey, requestHash), true);
+        }
+
+        OrderOutputDto order = orderService.createOrder(input);
+        idempotencyKeyRepo.complete(idempotencyKey, order.orderId(), jsonMapper.writeValueAsString(order));
+        log.info("Stored orderId: {} for Idempotency-Key '{}'", order.orderId(), idempotencyKey);
+        return new OrderCreationResult(order, false);
+    }
+
+    private void validateKey(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            log.warn("Invalid Idempotency-Key received with length {}", idempotencyKey.length());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private OrderOutputDto replay(String idempotencyKey, String requestHash) {
+        OrderIdempotencyKey stored = idempotencyKeyRepo.findById(idempotencyKey)
+                .filter(key -> key.getResponseBody() != null)
+                .orElseThrow(() -> {
+                    log.warn("Idempotency-Key '{}' has no stored order", idempotencyKey);
+                    return new ResponseStatusException(HttpStatus.CONFLICT,
+                            "A request with this Idempotency-Key is still being processed");
+                });
+
+        if (!stored.getRequestHash().equals(requestHash)) {
+            log.warn("Idempotency-Key '{}' was reused with a different request", idempotencyKey);
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT,
+                    "Idempotency-Key was already used for a different request");
+        }
+
+        return jsonMapper.readValue(stored.getResponseBody(), OrderOutputDto.class);
+    }
+
+    private String hashRequest(OrderInputDto input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(jsonMapper.writeValueAsBytes(input)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chickendirect.order.idempotency.cleanup-interval:PT10M}")
+    public int purgeExpiredKeys() {
+        Instant now = Instant.now();
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = idempotencyKeyRepo.deleteExpired(now, cleanupBatchSize);
+            purged += deleted;
+        } while (deleted == cleanupBatchSize);
+
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+        return purged;
+    }
+}
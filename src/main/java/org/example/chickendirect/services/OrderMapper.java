@@ -0,0 +1,66 @@
+package org.example.chickendirect.services;
+
+import org.example.chickendirect.dtos.AddressOutputDto;
+import org.example.chickendirect.dtos.CustomerOutputDto;
+import org.example.chickendirect.dtos.OrderOutputDto;
+import org.example.chickendirect.dtos.OrderProductOutputDto;
+import org.example.chickendirect.entities.Order;
+import org.example.chickendirect.entities.OrderProduct;
+
+import java.util.List;
+
+/**
+ * Maps orders to the {@link OrderOutputDto} returned by the API and written by the export.
+ */
+final class OrderMapper {
+
+    private OrderMapper() {
+    }
+
+    static OrderOutputDto toDto(Order order) {
+        return toDto(order, order.getItems().stream().map(OrderMapper::toDto).toList());
+    }
+
+    /**
+     * Maps an order whose lines were mapped separately, e.g. while streaming them.
+     */
+    static OrderOutputDto toDto(Order order, List<OrderProductOutputDto> items) {
+        CustomerOutputDto customerDto = new CustomerOutputDto(
+                order.getCustomer().getCustomerId(),
+                order.getCustomer().getName(),
+                order.getCustomer().getPhoneNumber(),
+                order.getCustomer().getEmail()
+        );
+
+        AddressOutputDto addressDto = new AddressOutputDto(
+                order.getAddress().getAddressId(),
+                order.getAddress().getApartmentNumber(),
+                order.getAddress().getAddress(),
+                order.getAddress().getZipCode(),
+                order.getAddress().getCity(),
+                order.getAddress().getCountry()
+        );
+
+        return new OrderOutputDto(
+                order.getOrderId(),
+                customerDto,
+                addressDto,
+                order.getDate(),
+                order.getTotalSum(),
+                order.getShippingCharge(),
+                order.getOrderStatus(),
+                items
+        );
+    }
+
+    static OrderProductOutputDto toDto(OrderProduct op) {
+        return new OrderProductOutputDto(
+                op.getOrderProductId(),
+                op.getProduct().getProductId(),
+                op.getProduct().getName(),
+                op.getQuantity(),
+                op.getUnitPrice(),
+                op.getLineTotal()
+        );
+    }
+}
@@ -1,22 +1,31 @@
 package org.example.chickendirect.services;
 
-import jakarta.transaction.Transactional;
+import org.example.chickendirect.cache.ProductCatalogCache;
+import org.example.chickendirect.dtos.CursorPage;
 import org.example.chickendirect.dtos.OrderProductForCustomerOutputDto;
 import org.example.chickendirect.entities.Order;
 import org.example.chickendirect.entities.OrderProduct;
 import org.example.chickendirect.entities.Product;
 import org.example.chickendirect.enums.OrderStatus;
+import org.example.chickendirect.inventory.InventoryActors;
+import org.example.chickendirect.inventory.StockReservation;
+import org.example.chickendirect.inventory.StripedInventory;
+import org.example.chickendirect.metrics.OrderMetrics;
+import org.example.chickendirect.outbox.OutboxWriter;
 import org.example.chickendirect.repos.OrderProductRepo;
 import org.example.chickendirect.repos.OrderRepo;
 import org.example.chickendirect.repos.ProductRepo;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class OrderProductService {
@@ -26,48 +35,65 @@ public class OrderProductService {
     private final ProductRepo productRepo;
     private final OrderRepo orderRepo;
     private final OrderService orderService;
-
-    public OrderProductService(OrderProductRepo orderProductRepo, ProductRepo productRepo, OrderRepo orderRepo, OrderService orderService) {
+    private final ProductCatalogCache productCatalogCache;
+    private final OrderMetrics orderMetrics;
+    private final OutboxWriter outboxWriter;
+    private final StripedInventory stripedInventory;
+    private final InventoryActors inventoryActors;
+
+    public OrderProductService(OrderProductRepo orderProductRepo, ProductRepo productRepo, OrderRepo orderRepo,
+                               OrderService orderService, ProductCatalogCache productCatalogCache,
+                               OrderMetrics orderMetrics, OutboxWriter outboxWriter,
+                               StripedInventory stripedInventory, InventoryActors inventoryActors) {
         this.orderProductRepo = orderProductRepo;
         this.productRepo = productRepo;
         this.orderRepo = orderRepo;
         this.orderService = orderService;
+        this.productCatalogCache = productCatalogCache;
+        this.orderMetrics = orderMetrics;
+        this.outboxWriter = outboxWriter;
+        this.stripedInventory = stripedInventory;
+        this.inventoryActors = inventoryActors;
     }
 
     @Transactional
     public OrderProductForCustomerOutputDto updateOrderProductQuantity(
             long orderId, String productName, int newQuantity, String customerEmail) {
+        return orderMetrics.recordOrderLineMutation("update_quantity",
+                () -> changeOrderProductQuantity(orderId, productName, newQuantity, customerEmail));
+    }
+
+    private OrderProductForCustomerOutputDto changeOrderProductQuantity(
+            long orderId, String productName, int newQuantity, String customerEmail) {
 
         log.info("Updating orderId={} for customerEmail={} - setting quantity for productName={} to newQuantity={}",
                 orderId, customerEmail, productName, newQuantity);
 
-        List<OrderProduct> orderProducts = orderProductRepo.findByOrderOrderIdAndOrderCustomerEmail(orderId, customerEmail);
-        if (orderProducts.isEmpty()) {
-            log.warn("No order found for orderId={} and customerEmail={}", orderId, customerEmail);
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No order was found with this id");
-        }
-
-        OrderProduct orderProduct = orderProducts.stream()
-                .filter(op -> op.getProduct().getName().equalsIgnoreCase(productName))
-                .findFirst()
+        Order order = orderRepo.findByIdForUpdate(orderId)
+                .filter(found -> found.getCustomer().getEmail().equals(customerEmail))
                 .orElseThrow(() -> {
-                    log.warn("Product '{}' not found in orderId={}", productName, orderId);
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product name does not exist in this order");
+                    log.warn("No order found for orderId={} and customerEmail={}", orderId, customerEmail);
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "No order was found with this id");
                 });
 
-        if (orderProduct.getOrder().getOrderStatus() != OrderStatus.CONFIRMED) {
-            log.warn("Cannot update quantity: Order status={} blocks update", orderProduct.getOrder().getOrderStatus());
+        List<OrderProduct> lines = productLines(
+                orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(orderId, productName));
+        if (lines.isEmpty()) {
+            log.warn("Product '{}' not found in orderId={}", productName, orderId);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product name does not exist in this order");
+        }
+        OrderProduct orderProduct = lines.get(0);
+        List<OrderProduct> duplicates = lines.subList(1, lines.size());
+
+        if (order.getOrderStatus() != OrderStatus.CONFIRMED) {
+            log.warn("Cannot update quantity: Order status={} blocks update", order.getOrderStatus());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    "Order cannot be updated because its status is " + orderProduct.getOrder().getOrderStatus());
+                    "Order cannot be updated because its status is " + order.getOrderStatus());
         }
 
-        Product product = productRepo.findByName(productName)
-                .orElseThrow(() -> {
-                    log.warn("Product '{}' not found in database", productName);
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found in the database");
-                });
+        Product product = orderProduct.getProduct();
 
-        int oldQuantity = orderProduct.getQuantity();
+        int oldQuantity = totalQuantity(lines);
         int updatedQuantity = newQuantity - oldQuantity;
 
         if (newQuantity <= 0) {
@@ -80,38 +106,43 @@ public class OrderProductService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You have to update the quantity");
         }
 
-        if (updatedQuantity > product.getQuantity()) {
+        if (!ownedByWorker(product) && updatedQuantity > product.getQuantity()) {
+            orderMetrics.stockRejected(OrderMetrics.REASON_INSUFFICIENT_STOCK);
             log.warn("Not enough stock for productName={} (requested={}, available={})",
                     productName, updatedQuantity, product.getQuantity());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock for this change");
         }
 
-        product.setQuantity(product.getQuantity() - updatedQuantity);
+        adjustStock(product, -updatedQuantity);
+        BigDecimal previousLinesTotal = totalOf(lines);
+        int previousQuantity = orderProduct.getQuantity();
+        duplicates.forEach(duplicate -> deleteLine(order, duplicate));
         orderProduct.setQuantity(newQuantity);
-        orderService.updateProductStatusByQuantity(product, product.getQuantity());
-        log.info("Updated quantity for productName={} to newQuantity={}", productName, newQuantity);
+        log.info("Updated quantity for productName={} to newQuantity={}, folded {} duplicate lines",
+                productName, newQuantity, duplicates.size());
 
-        productRepo.save(product);
         orderProductRepo.save(orderProduct);
 
-        Order order = orderProduct.getOrder();
-        BigDecimal totalSum = order.getItems().stream()
-                .map(op -> op.getUnitPrice().multiply(BigDecimal.valueOf(op.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        order.setTotalSum(totalSum);
-        log.info("Updated totalsum for orderId={} to {}", order.getOrderId(), totalSum);
-
+        applyLineDelta(order, orderProduct.getLineTotal().subtract(previousLinesTotal));
         orderRepo.save(order);
+        duplicates.forEach(outboxWriter::orderLineRemoved);
+        outboxWriter.orderLineUpdated(orderProduct, previousQuantity);
 
         return mapToDto(orderProduct);
     }
 
+    @Transactional
     public OrderProductForCustomerOutputDto addProductToOrder(long orderId, long productId, int quantity, String customerEmail){
+        return orderMetrics.recordOrderLineMutation("add_product",
+                () -> addOrderProduct(orderId, productId, quantity, customerEmail));
+    }
+
+    private OrderProductForCustomerOutputDto addOrderProduct(long orderId, long productId, int quantity, String customerEmail){
 
         log.info("Adding productId={} with quantity={} to orderId={} for customerEmail={}",
                 productId, quantity, orderId, customerEmail);
 
-        Order order = orderRepo.findById(orderId)
+        Order order = orderRepo.findByIdForUpdate(orderId)
                 .orElseThrow(() -> {
                     log.warn("Order with orderId={} not found", orderId);
                     return new ResponseStatusException(HttpStatus.NOT_FOUND, "Order with this id was not found");
@@ -128,9 +159,7 @@ public class OrderProductService {
                     "Cannot add products. Order status is " + order.getOrderStatus());
         }
 
-        boolean productExists = order.getItems().stream()
-                .anyMatch(op -> op.getProduct().getProductId() == productId);
-        if (productExists) {
+        if (orderProductRepo.existsByOrderOrderIdAndProductProductId(orderId, productId)) {
             log.warn("Product with productId={} already exists in orderId={}", productId, orderId);
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Product already exists in the order");
         }
@@ -141,7 +170,8 @@ public class OrderProductService {
                     return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product with this id was not found");
                 });
 
-        if (product.getQuantity() < quantity) {
+        if (!ownedByWorker(product) && product.getQuantity() < quantity) {
+            orderMetrics.stockRejected(OrderMetrics.REASON_INSUFFICIENT_STOCK);
             log.warn("Not enough stock for product '{}' (requested={}, available={})",
                     product.getName(), quantity, product.getQuantity());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
@@ -154,35 +184,128 @@ public class OrderProductService {
         newOrderProduct.setQuantity(quantity);
         newOrderProduct.setUnitPrice(product.getPrice());
 
-        product.setQuantity(product.getQuantity() - quantity);
-        productRepo.save(product);
-        orderService.updateProductStatusByQuantity(product, product.getQuantity());
+        adjustStock(product, -quantity);
         orderProductRepo.save(newOrderProduct);
 
+        // an uninitialized items bag queues the add instead of loading the other lines
         order.getItems().add(newOrderProduct);
-        BigDecimal totalsum = order.getItems().stream()
-                .map(op -> op.getUnitPrice().multiply(BigDecimal.valueOf(op.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        order.setTotalSum(totalsum);
+        applyLineDelta(order, newOrderProduct.getLineTotal());
         orderRepo.save(order);
+        outboxWriter.orderLineAdded(newOrderProduct);
 
-        log.info("Product '{}' added to orderId={} successfully. New totalsum={}", product.getName(), orderId, totalsum);
+        log.info("Product '{}' added to orderId={} successfully. New totalsum={}",
+                product.getName(), orderId, order.getTotalSum());
 
 
         return mapToDto(newOrderProduct);
     }
 
-    public List<OrderProductForCustomerOutputDto> findAllOrderProducts() {
-        log.info("Fetching all order products from the database");
+    /**
+     * Applies the stock change of an order line edit. Row stock is written through the product entity unless the
+     * actors or the coalescer own it; striped stock goes to the stripes and can still come up short after the
+     * caller's stock check.
+     */
+    private void adjustStock(Product product, int delta) {
+        if (ownedByActors(product)) {
+            adjustActorStock(product, delta);
+            return;
+        }
+        if (orderService.coalescesStock(product)) {
+            adjustCoalescedStock(product, delta);
+            return;
+        }
+
+        int remaining;
+        if (!product.isStriped()) {
+            remaining = product.getQuantity() + delta;
+            product.setQuantity(remaining);
+            productRepo.save(product);
+        } else if (delta < 0) {
+            StripedInventory.Reservation reservation = stripedInventory.reserve(product, -delta);
+            if (!reservation.reserved()) {
+                orderMetrics.stockRejected(OrderMetrics.REASON_INSUFFICIENT_STOCK);
+                log.warn("Not enough striped stock for product '{}' (requested={}, available={})",
+                        product.getName(), -delta, reservation.available());
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Not enough stock for product '" + product.getName() + "'");
+            }
+            remaining = reservation.available();
+        } else {
+            remaining = stripedInventory.release(product, delta);
+        }
+        orderService.updateProductStatusByQuantity(product, remaining);
+        productCatalogCache.evictStock(product.getProductId());
+    }
+
+    /**
+     * In the {@code ACTOR} mode the actor has the only current view of row stock, so it decides whether the change
+     * fits. The product row and its status are written behind by {@link InventoryActors#writeBehind()}.
+     */
+    private void adjustActorStock(Product product, int delta) {
+        long productId = product.getProductId();
+        checkReply(product, delta, delta < 0
+                ? inventoryActors.reserve(Map.of(productId, -delta)).get(productId)
+                : inventoryActors.release(productId, delta));
+    }
 
-        List<OrderProductForCustomerOutputDto> result = orderProductRepo.findAll().stream()
-                .map(this::mapToDto)
-                .toList();
+    /**
+     * In the {@code GROUP_COMMIT} mode the coalescer decides whether the change fits and writes the product row in
+     * its next batch. Stock given back is only queued once the caller has committed.
+     */
+    private void adjustCoalescedStock(Product product, int delta) {
+        long productId = product.getProductId();
+        if (delta > 0) {
+            orderService.releaseCoalescedStock(productId, delta);
+            return;
+        }
+        checkReply(product, delta, orderService.reserveCoalescedStock(productId, -delta));
+    }
 
-        log.info("Fetched {} order products", result.size());
+    private void checkReply(Product product, int delta, StockReservation result) {
+        long productId = product.getProductId();
+        switch (result.outcome()) {
+            case RESERVED -> productCatalogCache.evictStock(productId);
+            case INSUFFICIENT_STOCK -> {
+                orderMetrics.stockRejected(OrderMetrics.REASON_INSUFFICIENT_STOCK);
+                log.warn("Not enough stock for product '{}' (requested={}, available={})",
+                        product.getName(), -delta, result.available());
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Not enough stock for product '" + product.getName() + "'");
+            }
+            default -> {
+                log.warn("Stock for product id={} moved while changing an order line: {}", productId, result.outcome());
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Stock for product with id " + productId + " changed, please try again");
+            }
+        }
+    }
+
+    private boolean ownedByActors(Product product) {
+        return inventoryActors.isEnabled() && !product.isStriped();
+    }
+
+    /**
+     * Whether the product's row stock is owned by the actors or the coalescer, which then decide whether a change
+     * fits instead of this service reading {@code product.quantity}.
+     */
+    private boolean ownedByWorker(Product product) {
+        return ownedByActors(product) || orderService.coalescesStock(product);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<OrderProductForCustomerOutputDto> findAllOrderProducts(long after, int limit) {
+        log.info("Fetching order products after id={} with limit={}", after, limit);
+
+        CursorPage<OrderProductForCustomerOutputDto> result = CursorPage.of(
+                        orderProductRepo.findByOrderProductIdGreaterThanOrderByOrderProductIdAsc(after, CursorPage.fetchLimit(limit)),
+                        limit, OrderProduct::getOrderProductId)
+                .map(this::mapToDto);
+
+        log.info("Fetched {} order products", result.items().size());
         return result;
     }
 
+    @Transactional(readOnly = true)
     public OrderProductForCustomerOutputDto findOrderProductById(long id) {
         log.info("Fetching order product with id={}", id);
 
@@ -197,6 +320,7 @@ public class OrderProductService {
         return mapToDto(orderProduct);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderProductForCustomerOutputDto> getOrderProductsForCustomer(long orderId, String email) {
         log.info("Fetching order products for orderId={} and customerEmail={}", orderId, email);
 
@@ -211,20 +335,25 @@ public class OrderProductService {
         return orderProducts.stream().map(this::mapToDto).toList();
     }
 
-    private OrderProductForCustomerOutputDto mapToDto(OrderProduct op) {
+    OrderProductForCustomerOutputDto mapToDto(OrderProduct op) {
         return new OrderProductForCustomerOutputDto(
                 op.getProduct().getName(),
                 op.getQuantity(),
                 op.getUnitPrice(),
-                op.getUnitPrice().multiply(BigDecimal.valueOf(op.getQuantity()))
+                op.getLineTotal()
         );
     }
 
     @Transactional
     public void deleteProductFromOrder(long orderId, long productId, String customerEmail) {
+        orderMetrics.recordOrderLineMutation("remove_product",
+                () -> removeOrderProduct(orderId, productId, customerEmail));
+    }
+
+    private void removeOrderProduct(long orderId, long productId, String customerEmail) {
         log.info("Attempting to delete productId={} from orderId={} for customerEmail={}", productId, orderId, customerEmail);
 
-        Order order = orderRepo.findById(orderId)
+        Order order = orderRepo.findByIdForUpdate(orderId)
                 .orElseThrow(() -> {
                     log.warn("Order with orderId={} not found", orderId);
                     return new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found");
@@ -241,29 +370,63 @@ public class OrderProductService {
                     "Cannot delete products. Order status is " + order.getOrderStatus());
         }
 
-        OrderProduct orderProduct = order.getItems().stream()
-                .filter(op -> op.getProduct().getProductId() == productId)
-                .findFirst()
-                .orElseThrow(() -> {
-                    log.warn("Product with productId={} not found in orderId={}", productId, orderId);
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found in order");
-                });
+        List<OrderProduct> lines =
+                orderProductRepo.findByOrderOrderIdAndProductProductIdOrderByOrderProductIdAsc(orderId, productId);
+        if (lines.isEmpty()) {
+            log.warn("Product with productId={} not found in orderId={}", productId, orderId);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found in order");
+        }
 
-        Product product = orderProduct.getProduct();
-        product.setQuantity(product.getQuantity() + orderProduct.getQuantity());
-        productRepo.save(product);
-        orderService.updateProductStatusByQuantity(product, product.getQuantity());
-        log.info("Restored {} units to productId={} stock", orderProduct.getQuantity(), productId);
-
-        order.getItems().remove(orderProduct);
-        orderProductRepo.delete(orderProduct);
-        log.info("Deleted productId={} from orderId={}", productId, orderId);
-
-        BigDecimal totalsum = order.getItems().stream()
-                .map(op -> op.getUnitPrice().multiply(BigDecimal.valueOf(op.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        order.setTotalSum(totalsum);
+        int restored = totalQuantity(lines);
+        adjustStock(lines.get(0).getProduct(), restored);
+        log.info("Restored {} units to productId={} stock", restored, productId);
+
+        lines.forEach(line -> deleteLine(order, line));
+        log.info("Deleted {} lines of productId={} from orderId={}", lines.size(), productId, orderId);
+
+        applyLineDelta(order, totalOf(lines).negate());
         orderRepo.save(order);
-        log.info("Updated totalsum for orderId={} to {}", orderId, totalsum);
+        lines.forEach(outboxWriter::orderLineRemoved);
+    }
+
+    /**
+     * Orders created before lines were merged can hold several lines of one product. They are all treated as one
+     * line: the oldest of them is kept when the quantity changes and the others are folded into it. Lines of another
+     * product that only shares the name are left alone.
+     */
+    private static List<OrderProduct> productLines(List<OrderProduct> matches) {
+        if (matches.isEmpty()) {
+            return matches;
+        }
+        long productId = matches.get(0).getProduct().getProductId();
+        return matches.stream().filter(line -> line.getProduct().getProductId() == productId).toList();
+    }
+
+    private static int totalQuantity(List<OrderProduct> lines) {
+        return lines.stream().mapToInt(OrderProduct::getQuantity).sum();
+    }
+
+    private static BigDecimal totalOf(List<OrderProduct> lines) {
+        return lines.stream().map(OrderProduct::getLineTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private void deleteLine(Order order, OrderProduct line) {
+        if (Hibernate.isInitialized(order.getItems())) {
+            // a loaded items collection would cascade the deleted line back in on flush
+            order.getItems().remove(line);
+        }
+        orderProductRepo.delete(line);
+    }
+
+    /**
+     * Moves the order total by the change of a single line and derives the shipping charge from the new total, so
+     * the other lines of the order are never loaded. The caller holds the order row lock.
+     */
+    private void applyLineDelta(Order order, BigDecimal delta) {
+        BigDecimal totalSum = order.getTotalSum().add(delta);
+        order.setTotalSum(totalSum);
+        order.setShippingCharge(OrderService.shippingForTotal(totalSum));
+        log.info("Updated totalsum for orderId={} to {}, shipping charge {}",
+                order.getOrderId(), totalSum, order.getShippingCharge());
     }
 }
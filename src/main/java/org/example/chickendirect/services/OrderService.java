@@ -1,6 +1,15 @@
 package org.example.chickendirect.services;
+import org.example.chickendirect.cache.ProductCatalogCache;
 import org.example.chickendirect.dtos.*;
 import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.enums.StockReservationMode;
+import org.example.chickendirect.inventory.InventoryActors;
+import org.example.chickendirect.inventory.ReservationCoalescer;
+import org.example.chickendirect.inventory.StockReservation;
+import org.example.chickendirect.inventory.StripedInventory;
+import org.example.chickendirect.metrics.OrderMetrics;
+import org.example.chickendirect.outbox.OutboxWriter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.transaction.annotation.Transactional;
 import org.example.chickendirect.entities.*;
 import org.example.chickendirect.enums.OrderStatus;
@@ -12,8 +21,25 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,81 +52,558 @@ public class OrderService {
     private final CustomerRepo customerRepo;
     private final AddressRepo addressRepo;
     private final ProductRepo productRepo;
+    private final ProductCatalogCache productCatalogCache;
+    private final OrderMetrics orderMetrics;
+    private final OutboxWriter outboxWriter;
+    private final StripedInventory stripedInventory;
+    private final ReservationCoalescer reservationCoalescer;
+    private final InventoryActors inventoryActors;
+    private final StockHoldService stockHoldService;
 
     private static final BigDecimal FREE_SHIPPING_LIMIT = new BigDecimal("600");
     private static final BigDecimal STANDARD_SHIPPING = new BigDecimal("150");
 
     public static final int LOW_STOCK_THRESHOLD = 10;
+    public static final int MAX_BATCH_ORDERS = 1000;
+
+    @Value("${chickendirect.order.stock-reservation-mode:PESSIMISTIC_LOCK}")
+    private StockReservationMode stockReservationMode = StockReservationMode.PESSIMISTIC_LOCK;
+
+    @Value("${chickendirect.order.group-commit.timeout:5s}")
+    private Duration groupCommitTimeout = Duration.ofSeconds(5);
 
     public static int getLowStockThreshold() {
         return LOW_STOCK_THRESHOLD;
     }
 
-    public OrderService(OrderRepo orderRepo, CustomerRepo customerRepo, AddressRepo addressRepo, ProductRepo productRepo) {
+    public OrderService(OrderRepo orderRepo, CustomerRepo customerRepo, AddressRepo addressRepo, ProductRepo productRepo,
+                        ProductCatalogCache productCatalogCache, OrderMetrics orderMetrics,
+                        OutboxWriter outboxWriter, StripedInventory stripedInventory,
+                        ReservationCoalescer reservationCoalescer, InventoryActors inventoryActors,
+                        StockHoldService stockHoldService) {
         this.orderRepo = orderRepo;
         this.customerRepo = customerRepo;
         this.addressRepo = addressRepo;
         this.productRepo = productRepo;
+        this.productCatalogCache = productCatalogCache;
+        this.orderMetrics = orderMetrics;
+        this.outboxWriter = outboxWriter;
+        this.stripedInventory = stripedInventory;
+        this.reservationCoalescer = reservationCoalescer;
+        this.inventoryActors = inventoryActors;
+        this.stockHoldService = stockHoldService;
     }
 
     @Transactional
     public OrderOutputDto createOrder(OrderInputDto input) {
+        return orderMetrics.recordOrderCreation(stockReservationMode, () -> placeOrder(input));
+    }
+
+    private OrderOutputDto placeOrder(OrderInputDto input) {
         log.info("Creating order for customerId: {}, addressId: {}", input.customerId(), input.addressId());
 
         Customer customer = fetchCustomer(input.customerId());
         Address address = fetchAddress(input.addressId());
 
+        Order order = newOrder(customer, address);
+
+        Map<Long, Integer> orderedQuantities = mergeOrderLines(input.productItems());
+
+        List<OrderProduct> orderProducts;
+        if (input.holdId() != null) {
+            orderedQuantities = stockHoldService.claimHold(input.holdId(), input.customerId(), orderedQuantities);
+            orderProducts = heldLines(order, orderedQuantities);
+        } else {
+            orderProducts = switch (stockReservationMode) {
+                case PESSIMISTIC_LOCK -> reserveWithLocks(order, orderedQuantities);
+                case CONDITIONAL_UPDATE -> reserveWithConditionalUpdates(order, orderedQuantities);
+                case GROUP_COMMIT -> reserveWithGroupCommit(order, orderedQuantities);
+                case ACTOR -> reserveWithActors(order, orderedQuantities, findProducts(orderedQuantities.keySet()));
+            };
+        }
+        orderedQuantities.keySet().forEach(productCatalogCache::evictStock);
+
+        setOrderItems(order, orderProducts);
+
+        Order savedOrder = orderRepo.save(order);
+        outboxWriter.orderCreated(savedOrder);
+        log.info("Order created successfully with orderId: {}", savedOrder.getOrderId());
+        return OrderMapper.toDto(savedOrder);
+    }
+
+    /**
+     * Places a batch of orders in one transaction. Customers, addresses and products are loaded with one query
+     * each and the union of all ordered products is locked once in id order. An order that fails validation is
+     * reported in its result and does not affect the other orders in the batch.
+     */
+    @Transactional
+    public List<BatchOrderResult> createOrders(List<OrderInputDto> inputs) {
+        if (inputs == null || inputs.isEmpty() || inputs.size() > MAX_BATCH_ORDERS) {
+            log.warn("Rejected order batch with {} orders", inputs == null ? 0 : inputs.size());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A batch must contain between 1 and " + MAX_BATCH_ORDERS + " orders");
+        }
+        log.info("Creating batch of {} orders", inputs.size());
+
+        Map<Long, Customer> customers = customerRepo.findAllById(inputs.stream()
+                        .filter(Objects::nonNull)
+                        .map(OrderInputDto::customerId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Customer::getCustomerId, Function.identity()));
+        Map<Long, Address> addresses = addressRepo.findAllById(inputs.stream()
+                        .filter(Objects::nonNull)
+                        .map(OrderInputDto::addressId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Address::getAddressId, Function.identity()));
+
+        // an order with malformed lines is rejected on its own in the loop below
+        Map<Integer, Map<Long, Integer>> orderLines = new HashMap<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            OrderInputDto input = inputs.get(i);
+            if (input != null && hasValidLines(input.productItems())) {
+                orderLines.put(i, mergeOrderLines(input.productItems()));
+            }
+        }
+        Set<Long> productIds = orderLines.values().stream()
+                .flatMap(lines -> lines.keySet().stream())
+                .collect(Collectors.toCollection(TreeSet::new));
+        boolean actorStock = stockReservationMode == StockReservationMode.ACTOR;
+        Map<Long, Product> lockedProducts = actorStock ? findProducts(productIds) : lockProducts(productIds);
+
+        BatchOrderResult[] results = new BatchOrderResult[inputs.size()];
+        Map<Integer, Order> placedOrders = new LinkedHashMap<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            OrderInputDto input = inputs.get(i);
+            try {
+                if (input == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order is missing");
+                }
+                Customer customer = Optional.ofNullable(customers.get(input.customerId()))
+                        .orElseThrow(() -> customerNotFound(input.customerId()));
+                Address address = Optional.ofNullable(addresses.get(input.addressId()))
+                        .orElseThrow(() -> addressNotFound(input.addressId()));
+                if (input.holdId() != null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Stock holds can only be converted into single orders");
+                }
+                Map<Long, Integer> lines = orderLines.get(i);
+                if (lines == null) {
+                    throw missingProductId(input.productItems());
+                }
+                Order order = newOrder(customer, address);
+                if (actorStock) {
+                    setOrderItems(order, reserveWithActors(order, lines, lockedProducts));
+                } else {
+                    lines.forEach((productId, quantity) ->
+                            checkStock(lockedProducts.get(productId), productId, quantity));
+                    setOrderItems(order, reserveLines(order, lines, lockedProducts));
+                }
+                placedOrders.put(i, order);
+            } catch (ResponseStatusException ex) {
+                log.warn("Order {} in batch rejected: {}", i, ex.getReason());
+                results[i] = BatchOrderResult.failed(i, ex);
+            }
+        }
+
+        orderRepo.saveAll(placedOrders.values());
+        placedOrders.values().forEach(outboxWriter::orderCreated);
+        placedOrders.forEach((index, order) ->
+                results[index] = BatchOrderResult.created(index, OrderMapper.toDto(order)));
+        productIds.forEach(productCatalogCache::evictStock);
+
+        log.info("Order batch completed: {} created, {} rejected", placedOrders.size(), inputs.size() - placedOrders.size());
+        return List.of(results);
+    }
+
+    private Order newOrder(Customer customer, Address address) {
         Order order = new Order();
         order.setCustomer(customer);
         order.setAddress(address);
         order.setDate(LocalDate.now());
         order.setOrderStatus(OrderStatus.CONFIRMED);
+        return order;
+    }
 
-        List<OrderProduct> orderProducts = input.productItems().stream()
-                .map(item -> processOrderProduct(order, item))
-                .toList();
-
+    private void setOrderItems(Order order, List<OrderProduct> orderProducts) {
         order.setItems(orderProducts);
         order.setTotalSum(calculateTotal(orderProducts));
         order.setShippingCharge(calculateShipping(orderProducts));
-
-        Order savedOrder = orderRepo.save(order);
-        log.info("Order created successfully with orderId: {}", savedOrder.getOrderId());
-        return mapToDto(savedOrder);
     }
 
     private Customer fetchCustomer(Long customerId){
         log.info("Fetching customer with id: {}", customerId);
         return customerRepo.findById(customerId)
-                .orElseThrow(() -> {
-                    log.warn("Customer not found with id: {}", customerId);
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found with id " + customerId);
-                });
+                .orElseThrow(() -> customerNotFound(customerId));
     }
 
     private Address fetchAddress(Long addressId){
         log.info("Fetching address with id: {}", addressId);
         return addressRepo.findById(addressId)
-                .orElseThrow(() -> {
-                    log.warn("Address not found with id: {}", addressId);
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Address not found");
-                });
+                .orElseThrow(() -> addressNotFound(addressId));
     }
 
-    private OrderProduct processOrderProduct(Order order, OrderProductInputDto item){
-        log.info("Processing order item for productId: {} with quantity: {}", item.productId(), item.quantity());
+    private ResponseStatusException customerNotFound(long customerId) {
+        log.warn("Customer not found with id: {}", customerId);
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found with id " + customerId);
+    }
 
-        Product product = productRepo.findByIdForUpdate(item.productId())
-                .orElseThrow(() -> {
-                    log.warn("Product not found with id: {}", item.productId());
-                    return new ResponseStatusException(
-                            HttpStatus.NOT_FOUND, "Product not found with id" + item.productId());
-                });
+    private ResponseStatusException addressNotFound(long addressId) {
+        log.warn("Address not found with id: {}", addressId);
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Address not found");
+    }
+
+    private ResponseStatusException missingProductId(List<OrderProductInputDto> items) {
+        log.warn("Rejected order with product items without a productId: {}", items);
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every product item needs a productId");
+    }
+
+    private static boolean hasValidLines(List<OrderProductInputDto> items) {
+        return items == null || items.stream().allMatch(item -> item != null && item.productId() != null);
+    }
+
+    private Map<Long, Integer> mergeOrderLines(List<OrderProductInputDto> items) {
+        if (items == null) {
+            return new TreeMap<>();
+        }
+        if (!hasValidLines(items)) {
+            throw missingProductId(items);
+        }
+        return items.stream()
+                .collect(Collectors.toMap(
+                        OrderProductInputDto::productId,
+                        OrderProductInputDto::quantity,
+                        Integer::sum,
+                        TreeMap::new));
+    }
+
+    private List<OrderProduct> reserveWithLocks(Order order, Map<Long, Integer> orderedQuantities) {
+        return reserveLines(order, orderedQuantities, lockProducts(orderedQuantities.keySet()));
+    }
+
+    /**
+     * Reserves striped lines first because they can still run short after {@link #checkStock}; if one does, the
+     * stripes already taken for this order are given back before the rejection is rethrown. Row-locked lines are
+     * only decremented once every striped line succeeded.
+     */
+    private List<OrderProduct> reserveLines(Order order, Map<Long, Integer> orderedQuantities, Map<Long, Product> products) {
+        Map<Long, OrderProduct> stripedLines = new HashMap<>();
+        try {
+            orderedQuantities.forEach((productId, quantity) -> {
+                Product product = products.get(productId);
+                if (product != null && product.isStriped()) {
+                    stripedLines.put(productId, reserveFromStripes(order, product, quantity));
+                }
+            });
+        } catch (ResponseStatusException ex) {
+            stripedLines.values().forEach(line -> releaseStock(line.getProduct(), line.getQuantity()));
+            throw ex;
+        }
 
-        int stockQuantity = product.getQuantity();
-        int orderedQuantity = item.quantity();
+        return orderedQuantities.entrySet().stream()
+                .map(line -> stripedLines.containsKey(line.getKey())
+                        ? stripedLines.get(line.getKey())
+                        : processOrderProduct(order, products.get(line.getKey()), line.getKey(), line.getValue()))
+                .toList();
+    }
+
+    private List<OrderProduct> reserveWithConditionalUpdates(Order order, Map<Long, Integer> orderedQuantities) {
+        return orderedQuantities.entrySet().stream()
+                .map(line -> reserveStock(order, line.getKey(), line.getValue()))
+                .toList();
+    }
+
+    /**
+     * Hands every row-stock line to the {@link ReservationCoalescer} at once and waits for all of them before
+     * looking at the outcomes, so each line that was reserved is released again if this order rolls back. Striped
+     * lines are reserved from their stripes as usual.
+     */
+    private List<OrderProduct> reserveWithGroupCommit(Order order, Map<Long, Integer> orderedQuantities) {
+        Map<Long, CompletableFuture<StockReservation>> pending = new HashMap<>();
+        orderedQuantities.forEach((productId, quantity) -> {
+            if (!stripedInventory.isStriped(productId)) {
+                pending.put(productId, reservationCoalescer.reserve(productId, quantity));
+            }
+        });
+
+        long deadline = System.nanoTime() + groupCommitTimeout.toNanos();
+        Map<Long, StockReservation> results = new HashMap<>();
+        boolean timedOut = false;
+        for (Map.Entry<Long, CompletableFuture<StockReservation>> line : pending.entrySet()) {
+            long productId = line.getKey();
+            int quantity = orderedQuantities.get(productId);
+            StockReservation result = awaitReservation(productId, quantity, line.getValue(), deadline);
+            if (result == null) {
+                timedOut = true;
+                continue;
+            }
+            results.put(productId, result);
+            if (result.outcome() == StockReservation.Outcome.RESERVED) {
+                reservationCoalescer.releaseOnRollback(productId, quantity);
+            }
+        }
+        if (timedOut) {
+            log.warn("Stock reservation for products {} did not complete in {}", pending.keySet(), groupCommitTimeout);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Stock reservation timed out, please try again");
+        }
+
+        Map<Long, Product> products = findProducts(orderedQuantities.keySet());
+        return orderedQuantities.entrySet().stream()
+                .map(line -> reservedLine(order, products.get(line.getKey()), line.getKey(), line.getValue(),
+                        results.get(line.getKey())))
+                .toList();
+    }
+
+    /**
+     * Hands every row-stock line to its product's actor in {@link InventoryActors}, without locking anything.
+     * Striped lines are reserved from their stripes as usual. When a line is rejected, the lines already reserved
+     * are given back before the rejection is rethrown, so a batch can go on with its other orders.
+     */
+    private List<OrderProduct> reserveWithActors(Order order, Map<Long, Integer> orderedQuantities,
+                                                 Map<Long, Product> products) {
+        Map<Long, Integer> rowLines = orderedQuantities.entrySet().stream()
+                .filter(line -> !stripedInventory.isStriped(line.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        Map<Long, StockReservation> reservations = inventoryActors.reserve(rowLines);
+
+        List<OrderProduct> lines = new ArrayList<>();
+        try {
+            orderedQuantities.forEach((productId, quantity) -> lines.add(reservedLine(order, products.get(productId),
+                    productId, quantity, reservations.get(productId))));
+        } catch (ResponseStatusException ex) {
+            reservations.forEach((productId, reservation) -> {
+                if (reservation.outcome() == StockReservation.Outcome.RESERVED) {
+                    inventoryActors.release(productId, orderedQuantities.get(productId));
+                }
+            });
+            lines.stream()
+                    .filter(line -> line.getProduct().isStriped())
+                    .forEach(line -> releaseStock(line.getProduct(), line.getQuantity()));
+            throw ex;
+        }
+        return lines;
+    }
+
+    /**
+     * Builds the lines of an order converted from a stock hold. The hold already took the stock, so the products
+     * are read without a lock and their stock is left alone.
+     */
+    private List<OrderProduct> heldLines(Order order, Map<Long, Integer> heldQuantities) {
+        Map<Long, Product> products = findProducts(heldQuantities.keySet());
+        List<OrderProduct> lines = new ArrayList<>();
+        heldQuantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                log.warn("Held product not found with id: {}", productId);
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id " + productId);
+            }
+            log.info("Product '{}' taken from stock hold with quantity: {}", product.getName(), quantity);
+            lines.add(newOrderProduct(order, product, quantity));
+        });
+        return lines;
+    }
+
+    /**
+     * Turns the reply of a component that reserved a line on this order's behalf into the order line. Lines it
+     * did not reserve, because they are striped, are reserved from their stripes here.
+     */
+    private OrderProduct reservedLine(Order order, Product product, long productId, int orderedQuantity,
+                                      StockReservation result) {
+        if (result == null || result.outcome() == StockReservation.Outcome.STRIPED) {
+            checkStock(product, productId, orderedQuantity);
+            return reserveFromStripes(order, product, orderedQuantity);
+        }
+        if (product == null || result.outcome() == StockReservation.Outcome.NOT_FOUND) {
+            checkStock(null, productId, orderedQuantity);
+        }
+        if (result.outcome() == StockReservation.Outcome.INSUFFICIENT_STOCK) {
+            checkAvailable(product, result.available(), orderedQuantity);
+        }
+        log.info("Product '{}' stock reserved. Remaining quantity: {}", product.getName(), result.available());
+        return newOrderProduct(order, product, orderedQuantity);
+    }
 
+    /**
+     * @return the outcome, or {@code null} when it did not arrive before the deadline or the batch failed. A
+     * reservation that still succeeds after the deadline is released again.
+     */
+    private StockReservation awaitReservation(long productId, int quantity,
+                                              CompletableFuture<StockReservation> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            log.warn("Stock reservation for productId: {} failed", productId, ex.getCause());
+            return null;
+        } catch (TimeoutException | InterruptedException ex) {
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            future.thenAccept(late -> {
+                if (late.outcome() == StockReservation.Outcome.RESERVED) {
+                    reservationCoalescer.release(productId, quantity);
+                }
+            });
+            return null;
+        }
+    }
+
+    /**
+     * Whether the {@link ReservationCoalescer} owns the product's stock, so every change to it has to go through its
+     * batches: writing the entity would undo them.
+     */
+    public boolean coalescesStock(Product product) {
+        return stockReservationMode == StockReservationMode.GROUP_COMMIT && !product.isStriped();
+    }
+
+    /**
+     * Takes coalesced stock for a single change outside order placement and gives it back if the caller rolls back.
+     */
+    public StockReservation reserveCoalescedStock(long productId, int quantity) {
+        CompletableFuture<StockReservation> pending = reservationCoalescer.reserve(productId, quantity);
+        StockReservation result = awaitReservation(productId, quantity, pending,
+                System.nanoTime() + groupCommitTimeout.toNanos());
+        if (result == null) {
+            log.warn("Stock reservation for productId: {} did not complete in {}", productId, groupCommitTimeout);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Stock reservation timed out, please try again");
+        }
+        if (result.outcome() == StockReservation.Outcome.RESERVED) {
+            reservationCoalescer.releaseOnRollback(productId, quantity);
+        }
+        return result;
+    }
+
+    /**
+     * Gives coalesced stock back once the caller has committed.
+     */
+    public void releaseCoalescedStock(long productId, int quantity) {
+        reservationCoalescer.releaseOnCommit(productId, quantity);
+        productCatalogCache.evictStock(productId);
+    }
+
+    private OrderProduct reserveStock(Order order, long productId, int orderedQuantity) {
+        log.info("Reserving stock for productId: {} with quantity: {}", productId, orderedQuantity);
+
+        if (stripedInventory.isStriped(productId)) {
+            Optional<Product> striped = productRepo.findById(productId).filter(Product::isStriped);
+            if (striped.isPresent()) {
+                return reserveFromStripes(order, striped.get(), orderedQuantity);
+            }
+        }
+
+        Optional<Product> reserved = productRepo.reserveStock(productId, orderedQuantity, LOW_STOCK_THRESHOLD);
+        if (reserved.isEmpty()) {
+            Product current = productRepo.findById(productId).orElse(null);
+            if (current != null && current.isStriped()) {
+                return reserveFromStripes(order, current, orderedQuantity);
+            }
+            throw rejectReservation(current, productId, orderedQuantity);
+        }
+        Product product = reserved.get();
+
+        if (product.getProductStatus() != statusForQuantity(product.getQuantity() + orderedQuantity)) {
+            outboxWriter.stockStatusChanged(product);
+        }
+        log.info("Product '{}' stock reserved. Remaining quantity: {}, status: {}",
+                product.getName(), product.getQuantity(), product.getProductStatus());
+        return newOrderProduct(order, product, orderedQuantity);
+    }
+
+    private ResponseStatusException rejectReservation(Product current, long productId, int orderedQuantity) {
+        checkStock(current, productId, orderedQuantity);
+
+        orderMetrics.stockRejected(OrderMetrics.REASON_CONFLICT);
+        log.warn("Stock for productId: {} changed while reserving {} units", productId, orderedQuantity);
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Stock for product with id " + productId + " changed, please try again");
+    }
+
+    private Map<Long, Product> findProducts(Collection<Long> productIds) {
+        return productRepo.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+    }
+
+    private Map<Long, Product> lockProducts(Set<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Boolean, TreeSet<Long>> byStriping = productIds.stream()
+                .collect(Collectors.partitioningBy(stripedInventory::isStriped, Collectors.toCollection(TreeSet::new)));
+
+        Map<Long, Product> products = new HashMap<>();
+        Set<Long> rowStockIds = byStriping.get(false);
+        if (!rowStockIds.isEmpty()) {
+            log.info("Locking {} products in id order: {}", rowStockIds.size(), rowStockIds);
+            orderMetrics.recordLockWait(() -> productRepo.findAllByIdForUpdate(rowStockIds))
+                    .forEach(product -> products.put(product.getProductId(), product));
+        }
+        Set<Long> stripedIds = byStriping.get(true);
+        if (!stripedIds.isEmpty()) {
+            // striped stock is locked per stripe when it is reserved, so these rows must really be striped
+            productRepo.findAllById(stripedIds).forEach(product -> {
+                stripedInventory.requireStriped(product);
+                products.put(product.getProductId(), product);
+            });
+        }
+        return products;
+    }
+
+    private OrderProduct processOrderProduct(Order order, Product product, long productId, int orderedQuantity){
+        log.info("Processing order item for productId: {} with quantity: {}", productId, orderedQuantity);
+
+        checkStock(product, productId, orderedQuantity);
+        if (product.isStriped()) {
+            return reserveFromStripes(order, product, orderedQuantity);
+        }
+
+        int remaining = product.getQuantity() - orderedQuantity;
+        product.setQuantity(remaining);
+        updateProductStatusByQuantity(product, remaining);
+
+        log.info("Product '{}' stock updated. Remaining quantity: {}", product.getName(), remaining);
+        return newOrderProduct(order, product, orderedQuantity);
+    }
+
+    /**
+     * Takes the stock from the product's stripes without touching the product row, which is only written when the
+     * status changes.
+     */
+    private OrderProduct reserveFromStripes(Order order, Product product, int orderedQuantity) {
+        StripedInventory.Reservation reservation = stripedInventory.reserve(product, orderedQuantity);
+        if (!reservation.reserved()) {
+            checkAvailable(product, reservation.available(), orderedQuantity);
+            throw rejectReservation(product, product.getProductId(), orderedQuantity);
+        }
+
+        updateProductStatusByQuantity(product, reservation.available());
+        log.info("Product '{}' striped stock reserved. Remaining quantity: {}", product.getName(), reservation.available());
+        return newOrderProduct(order, product, orderedQuantity);
+    }
+
+    private void releaseStock(Product product, int quantity) {
+        int restoredQuantity;
+        if (product.isStriped()) {
+            restoredQuantity = stripedInventory.release(product, quantity);
+        } else {
+            restoredQuantity = product.getQuantity() + quantity;
+            product.setQuantity(restoredQuantity);
+        }
+        updateProductStatusByQuantity(product, restoredQuantity);
+        log.info("Restored {} units to product '{}'. New quantity: {}", quantity, product.getName(), restoredQuantity);
+    }
+
+    private void checkStock(Product product, long productId, int orderedQuantity) {
+        if (product == null) {
+            log.warn("Product not found with id: {}", productId);
+            throw new ResponseStatusException(
+                    HttpStatus.NOT_FOUND, "Product not found with id " + productId);
+        }
+        checkAvailable(product, product.getQuantity(), orderedQuantity);
+    }
+
+    private void checkAvailable(Product product, int stockQuantity, int orderedQuantity) {
         if (stockQuantity <= 0){
+            orderMetrics.stockRejected(OrderMetrics.REASON_OUT_OF_STOCK);
             log.warn("Product '{}' is out of stock", product.getName());
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST,
@@ -109,21 +612,18 @@ public class OrderService {
         }
 
         if(orderedQuantity > stockQuantity ){
+            orderMetrics.stockRejected(OrderMetrics.REASON_INSUFFICIENT_STOCK);
             log.warn("Product '{}' has insufficient stock. Requested: {}, Available: {}", product.getName(), orderedQuantity, stockQuantity);
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Product " + product.getName() + " only has " + stockQuantity + "kg in stock ");
         }
+    }
 
-        int remaining = stockQuantity - orderedQuantity;
-        product.setQuantity(remaining);
-        updateProductStatusByQuantity(product, remaining);
-
-        log.info("Product '{}' stock updated. Remaining quantity: {}", product.getName(), remaining);
-
+    private OrderProduct newOrderProduct(Order order, Product product, int orderedQuantity) {
         OrderProduct op = new OrderProduct();
         op.setOrder(order);
         op.setProduct(product);
-        op.setQuantity(item.quantity());
+        op.setQuantity(orderedQuantity);
         op.setUnitPrice(product.getPrice());
         return op;
     }
@@ -143,41 +643,67 @@ public class OrderService {
 
         if(product.getProductStatus() != newStatus){
             product.setProductStatus(newStatus);
+            outboxWriter.stockStatusChanged(product);
         }
     }
 
+    /**
+     * The status {@code ProductRepo.reserveStock} assigns for a quantity.
+     */
+    public static ProductStatus statusForQuantity(int quantity) {
+        if (quantity <= 0) return ProductStatus.OUT_OF_STOCK;
+        if (quantity <= LOW_STOCK_THRESHOLD) return ProductStatus.PENDING_RESTOCK;
+        return ProductStatus.IN_STOCK;
+    }
+
+    @Transactional
     public OrderOutputDto updateOrderStatus(long orderId, OrderStatus newStatus){
         log.info("Updating status for orderId: {} to {}", orderId, newStatus);
-        Order order = orderRepo.findById(orderId)
+        Order order = orderRepo.findWithDetailsByOrderId(orderId)
                 .orElseThrow(() ->{
                     log.warn("No order found with id: {}", orderId);
                     return new ResponseStatusException(HttpStatus.NOT_FOUND, "No order was found with this id");
                 });
 
+        OrderStatus previousStatus = order.getOrderStatus();
         order.setOrderStatus(newStatus);
         Order updatedOrder = orderRepo.save(order);
+        if (previousStatus != newStatus) {
+            outboxWriter.orderStatusChanged(updatedOrder, previousStatus);
+        }
         log.info("OrderId: {} status updated successfully", orderId);
-        return mapToDto(updatedOrder);
+        return OrderMapper.toDto(updatedOrder);
     }
 
-    public List<OrderOutputDto> findAllOrders(){
-        log.info("Fetching all orders");
-        return orderRepo.findAll().stream()
-                .map(this::mapToDto)
+    @Transactional(readOnly = true)
+    public CursorPage<OrderOutputDto> findAllOrders(long after, int limit){
+        log.info("Fetching orders after id: {} with limit: {}", after, limit);
+
+        CursorPage<Long> ids = CursorPage.of(
+                orderRepo.findOrderIdsAfter(after, CursorPage.fetchLimit(limit)), limit, Function.identity());
+        if (ids.items().isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        List<OrderOutputDto> orders = orderRepo.findAllWithDetailsByOrderIdIn(ids.items()).stream()
+                .map(OrderMapper::toDto)
                 .toList();
+        return new CursorPage<>(orders, ids.nextCursor());
     }
 
+    @Transactional(readOnly = true)
     public OrderOutputDto findOrderById(long id){
         log.info("Fetching order by id: {}", id);
-        Order order = orderRepo.findById(id)
+        Order order = orderRepo.findWithDetailsByOrderId(id)
                 .orElseThrow(() -> {
                     log.warn("Order not found with id: {}", id);
                     return new ResponseStatusException(
                             HttpStatus.NOT_FOUND, "Order not found with id " + id);
                 });
-        return mapToDto(order);
+        return OrderMapper.toDto(order);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderOutputDto> findOrderByCustomerId(long customerId){
         log.info("Fetching orders for customerId: {}", customerId);
         if (!customerRepo.existsById(customerId)) {
@@ -199,7 +725,7 @@ public class OrderService {
         }
 
         return orders.stream()
-                .map(this::mapToDto)
+                .map(OrderMapper::toDto)
                 .toList();
     }
 
@@ -207,7 +733,7 @@ public class OrderService {
     public void deleteOrderById(long id){
         log.info("Deleting order with id: {}", id);
 
-        Order order = orderRepo.findById(id)
+        Order order = orderRepo.findWithDetailsByOrderId(id)
                 .orElseThrow(() -> {
                     log.warn("Order not found with id: {}", id);
                     return new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found with id " + id);
@@ -221,68 +747,44 @@ public class OrderService {
 
         for(OrderProduct op : order.getItems()){
             Product product = op.getProduct();
-            int restoredQuantity = product.getQuantity() + op.getQuantity();
-            product.setQuantity(restoredQuantity);
-            updateProductStatusByQuantity(product, restoredQuantity);
-            productRepo.save(product);
-            log.info("Restored {} units to product '{}'. New quantity: {}", op.getQuantity(), product.getName(), restoredQuantity);
+            if (coalescesStock(product)) {
+                releaseCoalescedStock(product.getProductId(), op.getQuantity());
+                continue;
+            }
+            if (stockReservationMode == StockReservationMode.ACTOR && !product.isStriped()
+                    && inventoryActors.release(product.getProductId(), op.getQuantity()).outcome()
+                    == StockReservation.Outcome.RESERVED) {
+                productCatalogCache.evictStock(product.getProductId());
+                continue;
+            }
+            releaseStock(product, op.getQuantity());
+            if (!product.isStriped()) {
+                productRepo.save(product);
+            }
+            productCatalogCache.evictStock(product.getProductId());
         }
 
+        outboxWriter.orderDeleted(order);
         orderRepo.delete(order);
         log.info("Order with id: {} deleted successfully", id);
     }
 
-    private OrderOutputDto mapToDto(Order order){
-        CustomerOutputDto customerDto = new CustomerOutputDto(
-                order.getCustomer().getCustomerId(),
-                order.getCustomer().getName(),
-                order.getCustomer().getPhoneNumber(),
-                order.getCustomer().getEmail()
-        );
-
-        AddressOutputDto addressDto = new AddressOutputDto(
-                order.getAddress().getAddressId(),
-                order.getAddress().getApartmentNumber(),
-                order.getAddress().getAddress(),
-                order.getAddress().getZipCode(),
-                order.getAddress().getCity(),
-                order.getAddress().getCountry()
-        );
-
-        List<OrderProductOutputDto> items = order.getItems().stream()
-                .map(op -> new OrderProductOutputDto(
-                        op.getOrderProductId(),
-                        op.getProduct().getProductId(),
-                        op.getProduct().getName(),
-                        op.getQuantity(),
-                        op.getUnitPrice(),
-                        op.getUnitPrice().multiply(BigDecimal.valueOf(op.getQuantity()))
-                ))
-                .toList();
-
-        return new OrderOutputDto(
-                order.getOrderId(),
-                customerDto,
-                addressDto,
-                order.getDate(),
-                order.getTotalSum(),
-                order.getShippingCharge(),
-                order.getOrderStatus(),
-                items
-        );
-    }
-
-    private BigDecimal calculateTotal(List<OrderProduct> orderProducts) {
+    BigDecimal calculateTotal(List<OrderProduct> orderProducts) {
         BigDecimal total = orderProducts.stream()
-                .map(op -> op.getUnitPrice().multiply(BigDecimal.valueOf(op.getQuantity())))
+                .map(OrderProduct::getLineTotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         log.info("Calculated total order amount: {}", total);
         return total;
     }
 
-    private BigDecimal calculateShipping(List<OrderProduct> orderProducts) {
-        BigDecimal total = calculateTotal(orderProducts);
+    BigDecimal calculateShipping(List<OrderProduct> orderProducts) {
+        return shippingForTotal(calculateTotal(orderProducts));
+    }
 
+    /**
+     * The shipping charge for an order total, so orders whose lines change later derive it the same way.
+     */
+    public static BigDecimal shippingForTotal(BigDecimal total) {
         if(total.compareTo(FREE_SHIPPING_LIMIT) > 0){
             log.info("Order qualifies for free shipping. Total: {}", total);
             return BigDecimal.ZERO;
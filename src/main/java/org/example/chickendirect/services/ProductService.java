@@ -1,18 +1,32 @@
 package org.example.chickendirect.services;
 
+import jakarta.persistence.EntityManager;
+import org.example.chickendirect.cache.ProductCatalogCache;
+import org.example.chickendirect.dtos.BatchProductResult;
+import org.example.chickendirect.dtos.CursorPage;
 import org.example.chickendirect.dtos.ProductDto;
 import org.example.chickendirect.entities.Product;
 import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.inventory.InventoryActors;
+import org.example.chickendirect.inventory.StripedInventory;
 import org.example.chickendirect.repos.ProductRepo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.example.chickendirect.services.OrderService.LOW_STOCK_THRESHOLD;
 
@@ -21,20 +35,43 @@ public class ProductService {
 
     private static final Logger log = LoggerFactory.getLogger(ProductService.class);
     private final ProductRepo productRepo;
+    private final ProductCatalogCache productCatalogCache;
+    private final EntityManager entityManager;
+    private final StripedInventory stripedInventory;
+    private final InventoryActors inventoryActors;
 
-    public ProductService(ProductRepo productRepo) {
+    public static final int IMPORT_CHUNK_SIZE = 1000;
+
+    public ProductService(ProductRepo productRepo, ProductCatalogCache productCatalogCache, EntityManager entityManager,
+                          StripedInventory stripedInventory, InventoryActors inventoryActors) {
         this.productRepo = productRepo;
+        this.productCatalogCache = productCatalogCache;
+        this.entityManager = entityManager;
+        this.stripedInventory = stripedInventory;
+        this.inventoryActors = inventoryActors;
     }
 
+    @Transactional
     public Product createProduct(ProductDto productDto){
         log.info("Creating product with name='{}'", productDto.name());
 
-        Optional<Product> existingProduct = productRepo.findByName(productDto.name());
+        ensureProductDoesNotExist(productDto.name());
+
+        Product savedProduct = productRepo.save(newProduct(productDto));
+        productCatalogCache.put(savedProduct);
+        log.info("Product '{}' created successfully with id={}", savedProduct.getName(), savedProduct.getProductId());
+        return savedProduct;
+    }
+
+    private void ensureProductDoesNotExist(String name) {
+        Optional<Product> existingProduct = productRepo.findByName(name);
         if (existingProduct.isPresent()){
-            log.warn("Product already exists: {}", productDto.name());
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Product already exists: " + productDto.name());
+            log.warn("Product already exists: {}", name);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Product already exists: " + name);
         }
+    }
 
+    private Product newProduct(ProductDto productDto) {
         Product newProduct = new Product();
         newProduct.setName(productDto.name());
         newProduct.setDescription(productDto.description());
@@ -44,10 +81,7 @@ public class ProductService {
 
         ProductStatus status = determineStatusByQuantity(productDto.quantity());
         newProduct.setProductStatus(status);
-
-        Product savedProduct = productRepo.save(newProduct);
-        log.info("Product '{}' created successfully with id={}", savedProduct.getName(), savedProduct.getProductId());
-        return savedProduct;
+        return newProduct;
     }
 
     private ProductStatus determineStatusByQuantity(int quantity) {
@@ -56,24 +90,79 @@ public class ProductService {
         return ProductStatus.IN_STOCK;
     }
 
-    public List<Product> createProducts(List<ProductDto> productDtos) {
-        log.info("Creating {} products", productDtos.size());
+    /**
+     * Imports products in chunks of {@value #IMPORT_CHUNK_SIZE}. Each chunk checks all of its names with one query,
+     * inserts the accepted rows with one batched {@code saveAll} and is then cleared from the persistence context.
+     * Invalid and duplicate rows are reported in the result instead of aborting the import.
+     */
+    @Transactional
+    public List<BatchProductResult> createProducts(List<ProductDto> productDtos) {
+        log.info("Creating {} products in chunks of {}", productDtos.size(), IMPORT_CHUNK_SIZE);
+
+        BatchProductResult[] results = new BatchProductResult[productDtos.size()];
+        Set<String> requestedNames = new HashSet<>();
+        for (int from = 0; from < productDtos.size(); from += IMPORT_CHUNK_SIZE) {
+            int to = Math.min(from + IMPORT_CHUNK_SIZE, productDtos.size());
+            createProductChunk(productDtos, from, to, requestedNames, results);
+        }
+        productCatalogCache.invalidatePages();
 
-        List<Product> createdProducts = productDtos.stream()
-                .map(dto -> {
-                    try{
-                        return createProduct(dto);
-                    } catch (ResponseStatusException ex){
-                        log.error("Failed to create product '{}' : {}", dto.name(), ex.getReason());
-                        throw ex;
-                    }
-                })
-                .toList();
+        long created = Arrays.stream(results).filter(BatchProductResult::created).count();
+        log.info("Created {} of {} products", created, productDtos.size());
+        return List.of(results);
+    }
 
-        log.info("All {} products created successfully", createdProducts.size());
-                return createdProducts;
+    private void createProductChunk(List<ProductDto> productDtos, int from, int to,
+                                    Set<String> requestedNames, BatchProductResult[] results) {
+        Set<String> existingNames = productRepo.findExistingNames(productDtos.subList(from, to).stream()
+                .map(ProductDto::name)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        List<Product> newProducts = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ProductDto dto = productDtos.get(i);
+            try {
+                validateImportedProduct(dto, existingNames, requestedNames);
+                newProducts.add(newProduct(dto));
+                acceptedIndexes.add(i);
+            } catch (ResponseStatusException ex) {
+                log.warn("Skipping product '{}' : {}", dto.name(), ex.getReason());
+                results[i] = BatchProductResult.failed(i, dto.name(), ex);
+            }
+        }
+
+        List<Product> savedProducts = productRepo.saveAll(newProducts);
+        entityManager.flush();
+        entityManager.clear();
+
+        for (int i = 0; i < savedProducts.size(); i++) {
+            Product saved = savedProducts.get(i);
+            int index = acceptedIndexes.get(i);
+            results[index] = BatchProductResult.created(index, saved.getName(), saved.getProductId());
+        }
     }
 
+    private void validateImportedProduct(ProductDto dto, Set<String> existingNames, Set<String> requestedNames) {
+        if (dto.name() == null || dto.name().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Product name is required");
+        }
+        if (dto.price() == null || dto.price().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Price must be a positive value");
+        }
+        if (dto.quantity() == null || dto.quantity() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantity must be zero or more");
+        }
+        if (existingNames.contains(dto.name())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Product already exists: " + dto.name());
+        }
+        if (!requestedNames.add(dto.name())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Product appears more than once in request: " + dto.name());
+        }
+    }
+
+    @Transactional
     public Product updateProductStatus(String name, ProductStatus newStatus){
         if(newStatus == null){
             log.warn("Missing 'newStatus' in request");
@@ -82,17 +171,14 @@ public class ProductService {
 
         log.info("Updating status for product with name='{}' to {} ", name, newStatus);
 
-        Product product = productRepo.findByName(name)
-                .orElseThrow(() -> {
-                    log.warn("Product not found with name='{}'", name);
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + name);
-                });
+        Product product = findProductByName(name);
 
         product.setProductStatus(newStatus);
         log.info("Product '{}' status updated successfully to {}", name, newStatus);
-        return productRepo.save(product);
+        return saveAndCache(product);
     }
 
+    @Transactional
     public Product updateProductPrice(String name, BigDecimal newPrice){
         if(newPrice == null){
             log.warn("Missing 'newPrice' in request");
@@ -105,33 +191,60 @@ public class ProductService {
 
         log.info("Updating price for product with name='{}' to {}", name, newPrice);
 
-        Product product = productRepo.findByName(name)
-                .orElseThrow(() -> {
-                    log.warn("Product not found with name='{}'", name);
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + name);
-                });
+        Product product = findProductByName(name);
 
                 product.setPrice(newPrice);
                 log.info("Product '{}' price updated successfully to {}", name, newPrice);
-                return productRepo.save(product);
+                return saveAndCache(product);
+    }
+
+    /**
+     * Resolves the name through the catalog cache, so a warm cache answers without a query. The cached product is a
+     * detached snapshot that must not be written back, so the managed product is taken as a reference that Hibernate
+     * loads from its second-level cache when the caller changes it.
+     */
+    private Product findProductByName(String name) {
+        Optional<Product> product = productCatalogCache.getIdByName(name, productRepo::findByName)
+                .flatMap(id -> productCatalogCache.getById(id, productRepo::findById))
+                .filter(cached -> name.equals(cached.getName()))
+                .map(cached -> productRepo.getReferenceById(cached.getProductId()));
+        if (product.isEmpty()) {
+            productCatalogCache.evictName(name);
+            product = productRepo.findByName(name);
+        }
+        return product.orElseThrow(() -> {
+            log.warn("Product not found with name='{}'", name);
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + name);
+        });
+    }
+
+    private Product saveAndCache(Product product) {
+        Product savedProduct = productRepo.save(product);
+        productCatalogCache.put(savedProduct);
+        return savedProduct;
     }
 
-    public List<Product> findAllProducts(){
-        log.info("Fetching all products");
+    @Transactional(readOnly = true)
+    public CursorPage<Product> findAllProducts(long after, int limit){
+        log.info("Fetching products after id={} with limit={}", after, limit);
 
-        List<Product> products = productRepo.findAll();
+        Limit fetchLimit = CursorPage.fetchLimit(limit);
+        CursorPage<Product> products = productCatalogCache.getPage(after, limit, () -> CursorPage.of(
+                productRepo.findByProductIdGreaterThanOrderByProductIdAsc(after, fetchLimit),
+                limit, Product::getProductId));
 
-        if(products.isEmpty()){
+        if(products.items().isEmpty()){
             log.warn("No products found in the database");
         } else {
-            log.info("Fetched {} products", products.size());
+            log.info("Fetched {} products", products.items().size());
         }
         return products;
     }
 
+    @Transactional(readOnly = true)
     public Product findProductById(long id){
         log.info("Fetching product with id={}", id);
-        return productRepo.findById(id)
+        return productCatalogCache.getById(id, productRepo::findById)
                 .orElseThrow(() ->  {
                     log.warn("Product not found with id={}", id);
                     return new ResponseStatusException(
@@ -140,6 +253,7 @@ public class ProductService {
     }
 
 
+    @Transactional
     public Product updateProductQuantity(long productId, Integer newQuantity) {
         if(newQuantity == null){
             log.warn("Missing 'newQuantity' in request");
@@ -148,13 +262,22 @@ public class ProductService {
 
         log.info("Updating quantity for product with id={} to {}", productId, newQuantity);
 
-        Product product = productRepo.findById(productId)
+        // the inventory actors only hand a product over while its row is locked
+        Optional<Product> found = inventoryActors.isEnabled()
+                ? productRepo.findByIdForUpdate(productId)
+                : productRepo.findById(productId);
+        Product product = found
                 .orElseThrow(() -> {
                     log.warn("Product not found with id={}", productId);
                     return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
                 });
 
-        product.setQuantity(newQuantity);
+        if (product.isStriped()) {
+            stripedInventory.reset(product, newQuantity);
+        } else {
+            inventoryActors.settle(product);
+            product.setQuantity(newQuantity);
+        }
 
         if (newQuantity <= 0) {
             product.setProductStatus(ProductStatus.OUT_OF_STOCK);
@@ -170,9 +293,34 @@ public class ProductService {
         Product updatedProduct = productRepo.save(product);
         log.info("Product id={} updated successfully", productId);
 
-        return productRepo.save(updatedProduct);
+        return saveAndCache(updatedProduct);
+    }
+
+    /**
+     * Splits the product's stock over {@code stripes} sub-counters so concurrent orders stop queueing on the product
+     * row, or merges it back into the product row when {@code stripes} is 0.
+     */
+    @Transactional
+    public Product updateStockStripes(long productId, Integer stripes) {
+        if (stripes == null || stripes < 0 || stripes > StripedInventory.MAX_STRIPES) {
+            log.warn("Invalid stripe count {} for product id={}", stripes, productId);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "'stripes' must be between 0 and " + StripedInventory.MAX_STRIPES);
+        }
+
+        Product product = productRepo.findByIdForUpdate(productId)
+                .orElseThrow(() -> {
+                    log.warn("Product not found with id={}", productId);
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+                });
+
+        inventoryActors.settle(product);
+        stripedInventory.restripe(product, stripes);
+        productCatalogCache.evictStock(productId);
+        return saveAndCache(product);
     }
 
+    @Transactional
     public void deleteProductById(long id){
         log.info("Attempting to delete product with id={}", id);
 
@@ -181,6 +329,7 @@ public class ProductService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id " + id);
         }
         productRepo.deleteById(id);
+        productCatalogCache.evict(id);
         log.info("Product with id={} deleted successfully", id);
     }
 
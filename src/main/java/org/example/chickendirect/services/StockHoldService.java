@@ -0,0 +1,447 @@
+package org.example.chickendirect.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.chickendirect.cache.ProductCatalogCache;
+import org.example.chickendirect.dtos.OrderProductInputDto;
+import org.example.chickendirect.dtos.StockHoldInputDto;
+import org.example.chickendirect.dtos.StockHoldOutputDto;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.entities.StockHold;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.inventory.InventoryActors;
+import org.example.chickendirect.inventory.StockReservation;
+import org.example.chickendirect.inventory.StockReservation.Outcome;
+import org.example.chickendirect.inventory.StripedInventory;
+import org.example.chickendirect.inventory.TimingWheel;
+import org.example.chickendirect.outbox.OutboxWriter;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.repos.StockHoldRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Holds stock for a customer's checkout before the order is placed. Creating a hold takes the stock right away,
+ * the same way an order would but without locking the product for longer than one statement: through the actors in
+ * {@code ACTOR} mode, from the stripes for striped products and with a conditional {@code UPDATE} otherwise. The
+ * stock goes back when the hold is released or expires; converting the hold through
+ * {@link OrderService#createOrder} turns the held lines into order lines without touching the products again.
+ * <p>
+ * Expiry runs on an in-memory {@link TimingWheel} instead of scanning {@code stock_hold}. Holds are filed in the
+ * wheel when they are created and once at startup, and never taken out: when a hold comes due it is re-read under
+ * its row lock, so converted and released holds are skipped and extended ones are filed again for their new expiry.
+ * A hold created on another instance is only expired by the instance that created it, or after a restart.
+ */
+@Service
+public class StockHoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockHoldService.class);
+
+    public static final String PENDING_HOLDS = "chickendirect.holds.pending";
+
+    private final StockHoldRepo stockHoldRepo;
+    private final CustomerRepo customerRepo;
+    private final ProductRepo productRepo;
+    private final StripedInventory stripedInventory;
+    private final InventoryActors inventoryActors;
+    private final OutboxWriter outboxWriter;
+    private final ProductCatalogCache productCatalogCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TimingWheel<UUID> expiryWheel;
+    private final AtomicBoolean pendingHoldsLoaded = new AtomicBoolean();
+
+    @Value("${chickendirect.holds.ttl:PT10M}")
+    private Duration defaultTtl = Duration.ofMinutes(10);
+
+    @Value("${chickendirect.holds.max-lifetime:PT1H}")
+    private Duration maxLifetime = Duration.ofHours(1);
+
+    public StockHoldService(StockHoldRepo stockHoldRepo, CustomerRepo customerRepo, ProductRepo productRepo,
+                            StripedInventory stripedInventory, InventoryActors inventoryActors,
+                            OutboxWriter outboxWriter, ProductCatalogCache productCatalogCache,
+                            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                            @Value("${chickendirect.holds.tick:PT1S}") Duration tick) {
+        this.stockHoldRepo = stockHoldRepo;
+        this.customerRepo = customerRepo;
+        this.productRepo = productRepo;
+        this.stripedInventory = stripedInventory;
+        this.inventoryActors = inventoryActors;
+        this.outboxWriter = outboxWriter;
+        this.productCatalogCache = productCatalogCache;
+        this.transactionTemplate = transactionTemplate;
+        this.expiryWheel = new TimingWheel<>(tick, System.currentTimeMillis());
+        Gauge.builder(PENDING_HOLDS, expiryWheel, TimingWheel::size)
+                .description("Stock holds waiting for their expiry in the timing wheel")
+                .register(meterRegistry);
+    }
+
+    @Transactional
+    public StockHoldOutputDto createHold(StockHoldInputDto input) {
+        log.info("Creating stock hold for customerId: {}", input.customerId());
+        if (!customerRepo.existsById(input.customerId())) {
+            log.warn("Customer not found with id: {}", input.customerId());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found with id " + input.customerId());
+        }
+        Map<Long, Integer> lines = mergeHoldLines(input.productItems());
+
+        Instant now = Instant.now();
+        StockHold hold = new StockHold(input.customerId(), now, expiry(input.ttl(), now, now));
+        takeStock(lines);
+        hold.getLines().putAll(lines);
+        StockHold saved = stockHoldRepo.save(hold);
+
+        expiryWheel.schedule(saved.getHoldId(), saved.getExpiresAt().toEpochMilli());
+        log.info("Stock hold {} created for {} products, expires at {}",
+                saved.getHoldId(), lines.size(), saved.getExpiresAt());
+        return mapToDto(saved);
+    }
+
+    /**
+     * Moves the expiry to {@code ttl} from now, but never earlier than it is and never further than the configured
+     * maximum lifetime after the hold was created.
+     */
+    @Transactional
+    public StockHoldOutputDto extendHold(UUID holdId, Duration ttl) {
+        log.info("Extending stock hold {} by {}", holdId, ttl);
+        StockHold hold = lockHold(holdId);
+        Instant now = Instant.now();
+        checkNotExpired(hold, now);
+
+        Instant expiresAt = expiry(ttl, hold.getCreatedAt(), now);
+        if (expiresAt.isAfter(hold.getExpiresAt())) {
+            hold.setExpiresAt(expiresAt);
+        }
+        log.info("Stock hold {} now expires at {}", holdId, hold.getExpiresAt());
+        return mapToDto(hold);
+    }
+
+    @Transactional
+    public void releaseHold(UUID holdId) {
+        log.info("Releasing stock hold {}", holdId);
+        StockHold hold = lockHold(holdId);
+        hold.getLines().forEach(this::returnStock);
+        stockHoldRepo.delete(hold);
+        log.info("Stock hold {} released", holdId);
+    }
+
+    @Transactional(readOnly = true)
+    public StockHoldOutputDto findHoldById(UUID holdId) {
+        return stockHoldRepo.findById(holdId)
+                .map(this::mapToDto)
+                .orElseThrow(() -> holdNotFound(holdId));
+    }
+
+    /**
+     * Converts a hold into the lines of the caller's order. The order may take less than was held; the rest goes
+     * back to stock. Only the hold row is locked, the held stock has already been taken from the products.
+     *
+     * @param orderedQuantities the order's lines, or empty to take every held line
+     * @return the quantities the order was given, by product id
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Integer> claimHold(UUID holdId, long customerId, Map<Long, Integer> orderedQuantities) {
+        StockHold hold = lockHold(holdId);
+        if (hold.getCustomerId() != customerId) {
+            log.warn("Stock hold {} belongs to customerId: {}, not {}", holdId, hold.getCustomerId(), customerId);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Stock hold " + holdId + " was not placed by customer " + customerId);
+        }
+        checkNotExpired(hold, Instant.now());
+
+        Map<Long, Integer> lines = orderedQuantities.isEmpty() ? new TreeMap<>(hold.getLines()) : orderedQuantities;
+        lines.forEach((productId, quantity) -> {
+            int held = hold.getLines().getOrDefault(productId, 0);
+            if (quantity > held) {
+                log.warn("Order asks for {} units of productId: {} but hold {} has {}",
+                        quantity, productId, holdId, held);
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Stock hold " + holdId + " only holds " + held + " units of product with id " + productId);
+            }
+        });
+        hold.getLines().forEach((productId, held) -> {
+            int leftover = held - lines.getOrDefault(productId, 0);
+            if (leftover > 0) {
+                returnStock(productId, leftover);
+            }
+        });
+
+        stockHoldRepo.delete(hold);
+        log.info("Stock hold {} converted into an order with {} products", holdId, lines.size());
+        return lines;
+    }
+
+    /**
+     * Advances the expiry wheel and gives the stock of every hold that came due back, each in its own transaction.
+     * The first run files the holds already in the database.
+     *
+     * @return number of holds that expired
+     */
+    @Scheduled(fixedDelayString = "${chickendirect.holds.tick:PT1S}")
+    public int expireHolds() {
+        if (pendingHoldsLoaded.compareAndSet(false, true)) {
+            List<StockHoldRepo.PendingHold> pending = stockHoldRepo.findPendingHolds();
+            pending.forEach(hold -> expiryWheel.schedule(hold.getHoldId(), hold.getExpiresAt().toEpochMilli()));
+            log.info("Filed {} pending stock holds for expiry", pending.size());
+        }
+
+        int expired = 0;
+        for (UUID holdId : expiryWheel.advance(System.currentTimeMillis())) {
+            Instant now = Instant.now();
+            try {
+                Instant expiresAt = transactionTemplate.execute(status -> expire(holdId, now));
+                if (expiresAt == null) {
+                    continue;
+                }
+                if (expiresAt.isAfter(now)) {
+                    expiryWheel.schedule(holdId, expiresAt.toEpochMilli());
+                } else {
+                    expired++;
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Could not expire stock hold {}, retrying with the next tick", holdId, ex);
+                expiryWheel.schedule(holdId, now.toEpochMilli());
+            }
+        }
+        if (expired > 0) {
+            log.info("Expired {} stock holds", expired);
+        }
+        return expired;
+    }
+
+    /**
+     * @return the hold's expiry, or {@code null} when it no longer exists
+     */
+    private Instant expire(UUID holdId, Instant now) {
+        Optional<StockHold> locked = stockHoldRepo.findByIdForUpdate(holdId);
+        if (locked.isEmpty()) {
+            return null;
+        }
+        StockHold hold = locked.get();
+        if (hold.isExpired(now)) {
+            hold.getLines().forEach(this::returnStock);
+            stockHoldRepo.delete(hold);
+            log.info("Stock hold {} expired, {} products returned to stock", holdId, hold.getLines().size());
+        }
+        return hold.getExpiresAt();
+    }
+
+    private void takeStock(Map<Long, Integer> lines) {
+        Map<Long, StockReservation> byActors = Map.of();
+        if (inventoryActors.isEnabled()) {
+            byActors = reserveWithActors(lines);
+        }
+
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            long productId = line.getKey();
+            int quantity = line.getValue();
+            StockReservation reservation = byActors.get(productId);
+            if (reservation == null) {
+                takeFromProduct(productId, quantity);
+            } else if (reservation.outcome() == Outcome.STRIPED) {
+                takeFromStripes(productRepo.findById(productId).orElseThrow(() -> productNotFound(productId)),
+                        quantity);
+            } else if (reservation.outcome() == Outcome.NOT_FOUND) {
+                throw productNotFound(productId);
+            } else if (reservation.outcome() == Outcome.INSUFFICIENT_STOCK) {
+                Product product = productRepo.findById(productId).orElseThrow(() -> productNotFound(productId));
+                throw insufficientStock(product, reservation.available(), quantity);
+            }
+            productCatalogCache.evictStock(productId);
+        }
+    }
+
+    /**
+     * Hands every row-stock line to its product's actor. The striped set is only a hint, so the lines it calls
+     * striped are checked against {@code stripe_count} first: stock that moved back into the row belongs to the
+     * actors as well. Every line gets a reply, {@link Outcome#STRIPED} for the ones to take from the stripes.
+     */
+    private Map<Long, StockReservation> reserveWithActors(Map<Long, Integer> lines) {
+        Map<Long, Integer> rowLines = new HashMap<>();
+        List<Long> hinted = new ArrayList<>();
+        lines.forEach((productId, quantity) -> {
+            if (stripedInventory.isStriped(productId)) {
+                hinted.add(productId);
+            } else {
+                rowLines.put(productId, quantity);
+            }
+        });
+        if (!hinted.isEmpty()) {
+            productRepo.findAllById(hinted).stream()
+                    .filter(product -> !product.isStriped())
+                    .forEach(product -> rowLines.put(product.getProductId(), lines.get(product.getProductId())));
+        }
+
+        Map<Long, StockReservation> reservations = new HashMap<>(inventoryActors.reserve(rowLines));
+        StockReservation striped = new StockReservation(Outcome.STRIPED, 0);
+        lines.keySet().forEach(productId -> reservations.putIfAbsent(productId, striped));
+        return reservations;
+    }
+
+    /**
+     * Takes row stock with a conditional {@code UPDATE}, or from the stripes when the product turns out to be
+     * striped.
+     */
+    private void takeFromProduct(long productId, int quantity) {
+        Optional<Product> reserved = productRepo.reserveStock(productId, quantity, OrderService.LOW_STOCK_THRESHOLD);
+        if (reserved.isPresent()) {
+            Product product = reserved.get();
+            if (product.getProductStatus() != OrderService.statusForQuantity(product.getQuantity() + quantity)) {
+                outboxWriter.stockStatusChanged(product);
+            }
+            return;
+        }
+
+        Product product = productRepo.findById(productId).orElseThrow(() -> productNotFound(productId));
+        if (!product.isStriped()) {
+            if (product.getQuantity() < quantity) {
+                throw insufficientStock(product, product.getQuantity(), quantity);
+            }
+            log.warn("Stock for productId: {} changed while holding {} units", productId, quantity);
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Stock for product with id " + productId + " changed, please try again");
+        }
+        takeFromStripes(product, quantity);
+    }
+
+    private void takeFromStripes(Product product, int quantity) {
+        StripedInventory.Reservation reservation = stripedInventory.reserve(product, quantity);
+        if (!reservation.reserved()) {
+            throw insufficientStock(product, reservation.available(), quantity);
+        }
+        updateStatus(product, reservation.available());
+    }
+
+    private void returnStock(long productId, int quantity) {
+        if (inventoryActors.isEnabled()) {
+            returnWithActors(productId, quantity);
+            productCatalogCache.evictStock(productId);
+            return;
+        }
+
+        Optional<Product> returned = productRepo.returnStock(productId, quantity, OrderService.LOW_STOCK_THRESHOLD);
+        if (returned.isPresent()) {
+            Product product = returned.get();
+            if (product.getProductStatus() != OrderService.statusForQuantity(product.getQuantity() - quantity)) {
+                outboxWriter.stockStatusChanged(product);
+            }
+        } else {
+            productRepo.findById(productId).filter(Product::isStriped)
+                    .ifPresent(product -> updateStatus(product, stripedInventory.release(product, quantity)));
+        }
+        productCatalogCache.evictStock(productId);
+    }
+
+    /**
+     * Gives row stock back through the product's actor and striped stock back to the stripes, checking a striped
+     * hint against {@code stripe_count} like {@link #reserveWithActors} does.
+     */
+    private void returnWithActors(long productId, int quantity) {
+        boolean hinted = stripedInventory.isStriped(productId);
+        if (!hinted && inventoryActors.release(productId, quantity).outcome() != Outcome.STRIPED) {
+            return;
+        }
+        Optional<Product> product = productRepo.findById(productId);
+        if (product.isEmpty()) {
+            return;
+        }
+        if (hinted && !product.get().isStriped()) {
+            inventoryActors.release(productId, quantity);
+        } else {
+            updateStatus(product.get(), stripedInventory.release(product.get(), quantity));
+        }
+    }
+
+    private void updateStatus(Product product, int quantity) {
+        ProductStatus status = OrderService.statusForQuantity(quantity);
+        if (product.getProductStatus() != status) {
+            product.setProductStatus(status);
+            outboxWriter.stockStatusChanged(product);
+        }
+    }
+
+    private Map<Long, Integer> mergeHoldLines(List<OrderProductInputDto> items) {
+        if (items == null || items.isEmpty()
+                || items.stream().anyMatch(item -> item == null || item.productId() == null || item.quantity() <= 0)) {
+            log.warn("Rejected stock hold without positive quantities: {}", items);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A stock hold needs at least one product with a positive quantity");
+        }
+        return items.stream()
+                .collect(Collectors.toMap(
+                        OrderProductInputDto::productId,
+                        OrderProductInputDto::quantity,
+                        Integer::sum,
+                        TreeMap::new));
+    }
+
+    private Instant expiry(Duration ttl, Instant createdAt, Instant now) {
+        Duration requested = ttl == null ? defaultTtl : ttl;
+        if (requested.isNegative() || requested.isZero()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A stock hold TTL must be positive");
+        }
+        Instant expiresAt = now.plus(requested);
+        Instant latest = createdAt.plus(maxLifetime);
+        return expiresAt.isAfter(latest) ? latest : expiresAt;
+    }
+
+    private StockHold lockHold(UUID holdId) {
+        return stockHoldRepo.findByIdForUpdate(holdId).orElseThrow(() -> holdNotFound(holdId));
+    }
+
+    private void checkNotExpired(StockHold hold, Instant now) {
+        if (hold.isExpired(now)) {
+            log.warn("Stock hold {} expired at {}", hold.getHoldId(), hold.getExpiresAt());
+            throw new ResponseStatusException(HttpStatus.GONE, "Stock hold " + hold.getHoldId() + " has expired");
+        }
+    }
+
+    private ResponseStatusException holdNotFound(UUID holdId) {
+        log.warn("Stock hold not found with id: {}", holdId);
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Stock hold not found with id " + holdId);
+    }
+
+    private ResponseStatusException productNotFound(long productId) {
+        log.warn("Product not found with id: {}", productId);
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id " + productId);
+    }
+
+    private ResponseStatusException insufficientStock(Product product, int available, int quantity) {
+        log.warn("Product '{}' has insufficient stock to hold. Requested: {}, Available: {}",
+                product.getName(), quantity, available);
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Product " + product.getName() + " only has " + available + "kg in stock ");
+    }
+
+    private StockHoldOutputDto mapToDto(StockHold hold) {
+        return new StockHoldOutputDto(
+                hold.getHoldId(),
+                hold.getCustomerId(),
+                hold.getCreatedAt(),
+                hold.getExpiresAt(),
+                hold.getLines().entrySet().stream()
+                        .map(line -> new OrderProductInputDto(line.getKey(), line.getValue()))
+                        .toList()
+        );
+    }
+}
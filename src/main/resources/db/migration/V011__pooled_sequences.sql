@@ -0,0 +1,5 @@
+ALTER SEQUENCE customer_seq INCREMENT BY 50;
+ALTER SEQUENCE order_seq INCREMENT BY 50;
+ALTER SEQUENCE address_seq INCREMENT BY 50;
+ALTER SEQUENCE product_seq INCREMENT BY 50;
+ALTER SEQUENCE order_product_seq INCREMENT BY 50;
@@ -0,0 +1,11 @@
+CREATE TABLE order_idempotency_key (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    order_id BIGINT REFERENCES customer_order(order_id) ON DELETE CASCADE,
+    response_body TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_order_idempotency_key_expires_at ON order_idempotency_key(expires_at);
+CREATE INDEX idx_order_idempotency_key_order_id ON order_idempotency_key(order_id);
@@ -0,0 +1,16 @@
+CREATE INDEX idx_customer_email ON customer(email);
+CREATE INDEX idx_customer_lower_email ON customer(lower(email));
+CREATE INDEX idx_customer_phone_number ON customer(phone_number);
+
+CREATE INDEX idx_product_name ON product(name);
+
+CREATE INDEX idx_address_natural_key ON address(apartment_number, address, zip_code, city);
+
+CREATE INDEX idx_customer_address_address_id ON customer_address(address_id);
+
+CREATE INDEX idx_customer_order_customer_id ON customer_order(customer_id);
+CREATE INDEX idx_customer_order_address_id ON customer_order(address_id);
+
+CREATE INDEX idx_order_product_order_id ON order_product(order_id);
+CREATE INDEX idx_order_product_product_id ON order_product(product_id);
+CREATE INDEX idx_order_product_customer_id ON order_product(customer_id);
@@ -0,0 +1,12 @@
+CREATE SEQUENCE outbox_seq INCREMENT BY 50;
+
+CREATE TABLE outbox (
+    outbox_id BIGINT PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Rows are deleted as soon as they are relayed, so keep dead tuples from piling up between vacuums.
+ALTER TABLE outbox SET (autovacuum_vacuum_scale_factor = 0.0, autovacuum_vacuum_threshold = 1000);
@@ -0,0 +1,10 @@
+ALTER TABLE product ADD COLUMN stripe_count INT NOT NULL DEFAULT 0;
+
+CREATE TABLE product_stock_stripe (
+    product_id BIGINT NOT NULL REFERENCES product(product_id) ON DELETE CASCADE,
+    stripe INT NOT NULL,
+    quantity INT NOT NULL CHECK (quantity >= 0),
+    PRIMARY KEY (product_id, stripe)
+);
+
+CREATE INDEX idx_product_striped ON product(product_id) WHERE stripe_count > 0;
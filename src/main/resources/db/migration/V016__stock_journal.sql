@@ -0,0 +1,11 @@
+CREATE TABLE stock_journal (
+    journal_id BIGSERIAL PRIMARY KEY,
+    product_id BIGINT NOT NULL REFERENCES product(product_id) ON DELETE CASCADE,
+    delta INT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_stock_journal_product ON stock_journal(product_id);
+
+-- Rows are deleted as soon as they are written behind to product.quantity, like the outbox.
+ALTER TABLE stock_journal SET (autovacuum_vacuum_scale_factor = 0.0, autovacuum_vacuum_threshold = 1000);
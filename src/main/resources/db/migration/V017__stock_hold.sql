@@ -0,0 +1,17 @@
+CREATE TABLE stock_hold (
+    hold_id UUID PRIMARY KEY,
+    customer_id BIGINT NOT NULL REFERENCES customer(customer_id),
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE TABLE stock_hold_line (
+    hold_id UUID NOT NULL REFERENCES stock_hold(hold_id) ON DELETE CASCADE,
+    product_id BIGINT NOT NULL REFERENCES product(product_id) ON DELETE CASCADE,
+    quantity INT NOT NULL CHECK (quantity > 0),
+    PRIMARY KEY (hold_id, product_id)
+);
+
+-- Expiry is driven by an in-memory timing wheel, so there is deliberately no index on expires_at.
+CREATE INDEX idx_stock_hold_customer ON stock_hold(customer_id);
+CREATE INDEX idx_stock_hold_line_product ON stock_hold_line(product_id);
@@ -0,0 +1,14 @@
+ALTER TABLE order_product ADD COLUMN line_total DECIMAL;
+
+UPDATE order_product SET line_total = COALESCE(unit_price, 0) * quantity;
+
+ALTER TABLE order_product ALTER COLUMN line_total SET NOT NULL;
+
+-- Line edits used to rebuild total_sum without touching shipping_charge. Orders that can still be edited get both
+-- derived from their lines once, so the incremental updates start from consistent totals (free shipping above 600).
+UPDATE customer_order o
+SET total_sum = lines.total,
+    shipping_charge = CASE WHEN lines.total > 600 THEN 0 ELSE 150 END
+FROM (SELECT order_id, SUM(line_total) AS total FROM order_product GROUP BY order_id) lines
+WHERE lines.order_id = o.order_id
+  AND o.order_status = 'CONFIRMED';
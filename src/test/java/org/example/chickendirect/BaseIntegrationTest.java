@@ -1,19 +1,37 @@
 package org.example.chickendirect;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.chickendirect.RecordingStatementInspector.StatementAction;
+import org.example.chickendirect.cache.ProductCatalogCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.TestInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.postgresql.PostgreSQLContainer;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @Transactional
 @Testcontainers
 @ActiveProfiles("integration-test")
+@TestPropertySource(properties = RecordingStatementInspector.PROPERTY)
 public abstract class BaseIntegrationTest {
 
+    private static final Logger log = LoggerFactory.getLogger(BaseIntegrationTest.class);
+
     @Container
     static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:latest");
 
@@ -25,4 +43,55 @@ public abstract class BaseIntegrationTest {
         System.setProperty("spring.datasource.password", postgres.getPassword());
     }
 
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<String> testStatements;
+
+    @BeforeEach
+    void clearCaches() {
+        productCatalogCache.invalidateAll();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @BeforeEach
+    void startStatementRecording() {
+        testStatements = RecordingStatementInspector.start();
+    }
+
+    @AfterEach
+    void stopStatementRecording(TestInfo testInfo) {
+        RecordingStatementInspector.stop(testStatements);
+        log.info("{} executed {} SQL statements", testInfo.getDisplayName(), testStatements.size());
+    }
+
+    /**
+     * Number of SQL statements the current test has executed on its own thread so far, setup included.
+     */
+    protected int statementsExecutedInTest() {
+        return testStatements.size();
+    }
+
+    /**
+     * Flushes and clears the persistence context so nothing is served from entities the test set up, runs the
+     * request and fails when it executes more than {@code max} SQL statements. Lazy loading during mapping or JSON
+     * serialization counts, so N+1 regressions show up as a growing statement count.
+     */
+    protected List<String> assertMaxStatements(int max, StatementAction request) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+
+        List<String> statements = RecordingStatementInspector.record(request);
+
+        assertTrue(statements.size() <= max, () -> "Expected at most " + max + " SQL statements but "
+                + statements.size() + " were executed:\n" + String.join("\n", statements));
+        return statements;
+    }
+
 }
@@ -0,0 +1,87 @@
+package org.example.chickendirect;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Records the SQL statements Hibernate prepares on the current thread while a recording is open, so tests can
+ * count what a request or a whole test executed and EXPLAIN exactly what a repository method sends. Registered for
+ * every integration test through {@link #PROPERTY} on {@link BaseIntegrationTest}.
+ * <p>
+ * Recordings nest: a statement is added to every recording open on the thread, so a per-request count inside a
+ * test also shows up in the per-test total. Statements from other threads are ignored.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "org.example.chickendirect.RecordingStatementInspector";
+
+    private static final ThreadLocal<Deque<List<String>>> recordings = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public String inspect(String sql) {
+        for (List<String> recording : recordings.get()) {
+            recording.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Runs the action and returns the statements it prepared.
+     */
+    public static List<String> record(StatementAction action) throws Exception {
+        List<String> statements = start();
+        try {
+            action.run();
+        } finally {
+            stop(statements);
+        }
+        return statements;
+    }
+
+    /**
+     * Runs the action and returns the statements it prepared, with JDBC {@code ?} placeholders rewritten to the
+     * numbered {@code $n} parameters that {@code PREPARE} expects.
+     */
+    public static List<String> capture(Runnable action) {
+        List<String> statements = start();
+        try {
+            action.run();
+        } finally {
+            stop(statements);
+        }
+        return statements.stream().map(RecordingStatementInspector::numberParameters).toList();
+    }
+
+    static List<String> start() {
+        List<String> statements = new ArrayList<>();
+        recordings.get().push(statements);
+        return statements;
+    }
+
+    static void stop(List<String> statements) {
+        recordings.get().removeFirstOccurrence(statements);
+    }
+
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length());
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    @FunctionalInterface
+    public interface StatementAction {
+        void run() throws Exception;
+    }
+}
@@ -3,6 +3,7 @@ package org.example.chickendirect.integration.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.chickendirect.BaseIntegrationTest;
 import org.example.chickendirect.dtos.CustomerDto;
+import org.example.chickendirect.entities.Address;
 import org.example.chickendirect.entities.Customer;
 import org.example.chickendirect.repos.CustomerRepo;
 import org.junit.jupiter.api.AfterEach;
@@ -105,9 +106,28 @@ public class CustomerControllerIntegrationTest extends BaseIntegrationTest {
         customerRepo.save(c1);
         customerRepo.save(c2);
 
-        mockMvc.perform(get("/api/customer"))
+        assertMaxStatements(2, () -> mockMvc.perform(get("/api/customer"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2));
+                .andExpect(jsonPath("$.length()").value(2)));
+    }
+
+    @Test
+    void findAllCustomers_shouldNotLoadAddressesPerCustomer() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Customer customer = new Customer();
+            customer.setName("Customer " + i);
+            customer.setPhoneNumber("5550000" + i);
+            customer.setEmail("customer" + i + "@test.no");
+            customer.setAddressList(new ArrayList<>(List.of(
+                    new Address("1A", "Home Street " + i, "0150", "Oslo"),
+                    new Address("2B", "Work Street " + i, "0151", "Oslo"))));
+            customerRepo.save(customer);
+        }
+
+        assertMaxStatements(2, () -> mockMvc.perform(get("/api/customer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[4].addressList.length()").value(2)));
     }
 
     @Test
@@ -119,10 +139,10 @@ public class CustomerControllerIntegrationTest extends BaseIntegrationTest {
         customer.setAddressList(new ArrayList<>());
         Customer saved = customerRepo.save(customer);
 
-        mockMvc.perform(get("/api/customer/{id}", saved.getCustomerId()))
+        assertMaxStatements(1, () -> mockMvc.perform(get("/api/customer/{id}", saved.getCustomerId()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("Russ"))
-                .andExpect(jsonPath("$.email").value("russ@test.no"));
+                .andExpect(jsonPath("$.email").value("russ@test.no")));
     }
 
     @Test
@@ -161,7 +181,8 @@ public class CustomerControllerIntegrationTest extends BaseIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(customers)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2));
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.saved").value(2));
 
         assertThat(customerRepo.findAll()).hasSize(2);
     }
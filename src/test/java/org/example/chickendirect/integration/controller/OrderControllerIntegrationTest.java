@@ -120,13 +120,13 @@ public class OrderControllerIntegrationTest extends BaseIntegrationTest {
                         .content(objectMapper.writeValueAsString(orderInput)))
                 .andExpect(status().isCreated());
 
-        mockMvc.perform(get("/api/order")
+        assertMaxStatements(2, () -> mockMvc.perform(get("/api/order")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].customer.customerId").value(savedCustomer.getCustomerId()))
                 .andExpect(jsonPath("$[0].address.addressId").value(savedAddress.getAddressId()))
                 .andExpect(jsonPath("$[0].orderItems[0].productId").value(savedProduct.getProductId()))
-                .andExpect(jsonPath("$[0].orderItems[0].quantity").value(5));
+                .andExpect(jsonPath("$[0].orderItems[0].quantity").value(5)));
 
     }
 
@@ -149,13 +149,13 @@ public class OrderControllerIntegrationTest extends BaseIntegrationTest {
         Number orderIdNumber = JsonPath.read(response, "$.orderId");
         long orderId = orderIdNumber.longValue();
 
-        mockMvc.perform(get("/api/order/{orderId}", orderId)
+        assertMaxStatements(2, () -> mockMvc.perform(get("/api/order/{orderId}", orderId)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.orderId").value(orderId))
                 .andExpect(jsonPath("$.customer.customerId").value(savedCustomer.getCustomerId()))
                 .andExpect(jsonPath("$.orderItems[0].productId").value(savedProduct.getProductId()))
-                .andExpect(jsonPath("$.orderItems[0].quantity").value(5));
+                .andExpect(jsonPath("$.orderItems[0].quantity").value(5)));
     }
 
     @Test
@@ -222,12 +222,33 @@ public class OrderControllerIntegrationTest extends BaseIntegrationTest {
         OrderOutputDto savedOrder1 = orderService.createOrder(orderInput1);
         OrderOutputDto savedOrder2 = orderService.createOrder(orderInput2);
 
-        mockMvc.perform(get("/api/order/customer/{customerId}", savedCustomer.getCustomerId())
+        assertMaxStatements(2, () -> mockMvc.perform(get("/api/order/customer/{customerId}", savedCustomer.getCustomerId())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(2))
                 .andExpect(jsonPath("$[0].orderId").value(savedOrder1.orderId()))
-                .andExpect(jsonPath("$[1].orderId").value(savedOrder2.orderId()));
+                .andExpect(jsonPath("$[1].orderId").value(savedOrder2.orderId())));
+    }
+
+    @Test
+    void testFindAllOrdersStatementCountDoesNotGrowWithOrders() throws Exception {
+        Product thighs = productRepo.save(new Product("Chicken Thighs", "Thighs of chicken",
+                BigDecimal.valueOf(49.99), ProductStatus.IN_STOCK, 45, "kg"));
+        for (int i = 0; i < 5; i++) {
+            orderService.createOrder(new OrderInputDto(
+                    savedCustomer.getCustomerId(),
+                    savedAddress.getAddressId(),
+                    List.of(new OrderProductInputDto(savedProduct.getProductId(), 1),
+                            new OrderProductInputDto(thighs.getProductId(), 1))
+            ));
+        }
+
+        assertMaxStatements(2, () -> mockMvc.perform(get("/api/order")
+                        .param("limit", "5")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[4].orderItems.length()").value(2)));
     }
 
 
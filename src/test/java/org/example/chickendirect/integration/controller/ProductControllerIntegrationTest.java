@@ -1,6 +1,7 @@
 package org.example.chickendirect.integration.controller;
 
 import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.CursorPage;
 import org.example.chickendirect.dtos.ProductDto;
 import org.example.chickendirect.dtos.UpdateProductQuantity;
 import org.example.chickendirect.entities.Product;
@@ -91,6 +92,28 @@ public class ProductControllerIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$[*].name", hasItem("Chicken Feet")));
     }
 
+    @Test
+    void testGetAllProductsPagesWithCursor() throws Exception {
+        Product first = productRepo.save(new Product("Chicken Feet", "Feet of chicken", BigDecimal.valueOf(79.99), ProductStatus.IN_STOCK, 12, "kg"));
+        Product second = productRepo.save(new Product("Chicken Wings", "Wings of chicken", BigDecimal.valueOf(59.99), ProductStatus.IN_STOCK, 45, "kg"));
+        Product third = productRepo.save(new Product("Chicken Liver", "Liver of chicken", BigDecimal.valueOf(19.99), ProductStatus.IN_STOCK, 30, "kg"));
+
+        mockMvc.perform(get("/api/product")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value(first.getName()))
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, String.valueOf(second.getProductId())));
+
+        mockMvc.perform(get("/api/product")
+                        .param("after", String.valueOf(second.getProductId()))
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value(third.getName()))
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER));
+    }
+
     @Test
     void testUpdateProductStatus() throws Exception{
         Product product = new Product("Chicken Feet", "Feet of chicken", BigDecimal.valueOf(79.99), ProductStatus.IN_STOCK, 12, "kg");
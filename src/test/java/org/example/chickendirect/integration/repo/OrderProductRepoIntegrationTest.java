@@ -129,4 +129,59 @@ public class OrderProductRepoIntegrationTest extends BaseIntegrationTest {
 
         assertThat(result).isEmpty();
     }
+
+    @Test
+    void findByOrderOrderIdAndProductProductId_shouldReturnDuplicateLinesOldestFirst() {
+        Customer customer = new Customer();
+        customer.setName("Missy Elliott");
+        customer.setPhoneNumber("11223344");
+        customer.setEmail("missy@elliott.no");
+        customerRepo.save(customer);
+
+        Address address = new Address();
+        address.setApartmentNumber("3C");
+        address.setAddress("Famous road");
+        address.setZipCode("0789");
+        address.setCity("LA");
+        address.setCountry("USA");
+        addressRepo.save(address);
+
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setAddress(address);
+        order.setDate(LocalDate.now());
+        order.setTotalSum(BigDecimal.valueOf(150));
+        order.setShippingCharge(BigDecimal.valueOf(150));
+        order.setOrderStatus(OrderStatus.CONFIRMED);
+        orderRepo.save(order);
+
+        Product product = new Product();
+        product.setName("Chicken Thighs");
+        product.setPrice(BigDecimal.valueOf(50));
+        productRepo.save(product);
+
+        OrderProduct first = new OrderProduct();
+        first.setOrder(order);
+        first.setProduct(product);
+        first.setQuantity(2);
+        first.setUnitPrice(BigDecimal.valueOf(50));
+        orderProductRepo.save(first);
+
+        OrderProduct second = new OrderProduct();
+        second.setOrder(order);
+        second.setProduct(product);
+        second.setQuantity(1);
+        second.setUnitPrice(BigDecimal.valueOf(50));
+        orderProductRepo.save(second);
+
+        List<OrderProduct> byId = orderProductRepo.findByOrderOrderIdAndProductProductIdOrderByOrderProductIdAsc(
+                order.getOrderId(), product.getProductId());
+        List<OrderProduct> byName = orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(
+                order.getOrderId(), "chicken thighs");
+
+        assertThat(byId).extracting(OrderProduct::getOrderProductId)
+                .containsExactly(first.getOrderProductId(), second.getOrderProductId());
+        assertThat(byName).extracting(OrderProduct::getOrderProductId)
+                .containsExactly(first.getOrderProductId(), second.getOrderProductId());
+    }
 }
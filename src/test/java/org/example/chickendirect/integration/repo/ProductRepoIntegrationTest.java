@@ -51,6 +51,19 @@ public class ProductRepoIntegrationTest extends BaseIntegrationTest {
         Product productpp = lockedProduct.orElseThrow();
         assertThat(productpp.getName()).isEqualTo("Chicken Burger");
     }
-}
 
+    @Test
+    void testCountByProductStatus(){
+        long outOfStockBefore = countWithStatus(ProductStatus.OUT_OF_STOCK);
+        productRepo.save(new Product("Chicken Gauge", "Test", BigDecimal.ONE, ProductStatus.OUT_OF_STOCK, 0, "kg"));
+
+        assertThat(countWithStatus(ProductStatus.OUT_OF_STOCK)).isEqualTo(outOfStockBefore + 1);
+    }
 
+    private long countWithStatus(ProductStatus status){
+        return productRepo.countByProductStatus().stream()
+                .filter(row -> row[0] == status)
+                .mapToLong(row -> (Long) row[1])
+                .sum();
+    }
+}
@@ -0,0 +1,376 @@
+package org.example.chickendirect.integration.repo;
+
+import jakarta.persistence.EntityManager;
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.RecordingStatementInspector;
+import org.example.chickendirect.repos.AddressRepo;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.OrderIdempotencyKeyRepo;
+import org.example.chickendirect.repos.OrderProductRepo;
+import org.example.chickendirect.repos.OrderRepo;
+import org.example.chickendirect.repos.OutboxEventRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.repos.ProductStockStripeRepo;
+import org.example.chickendirect.repos.StockHoldRepo;
+import org.example.chickendirect.repos.StockJournalRepo;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeds a large synthetic dataset, EXPLAINs the SQL of every repository query method and compares each plan with
+ * {@code src/test/resources/query-plans/baseline.json}.
+ * <p>
+ * A plan is reduced to how each table is read: {@code index} (index, index-only or bitmap scan) or {@code seq}.
+ * Join order and join algorithms legitimately shift with statistics, but a table falling back to a sequential scan
+ * is the regression this suite exists to catch. The estimated total cost must also stay below the stored ceiling.
+ * <p>
+ * After an intentional change, run with {@code -Dquery-plan.record=true} to rewrite the baseline from the current
+ * plans, and commit the file as written. Each recorded {@code maxTotalCost} is the observed cost plus 50% headroom,
+ * rounded up, so statistics drift passes while a plan that gets markedly more expensive fails. The observed plans are
+ * always written to {@code target/query-plans/observed.json}.
+ * <p>
+ * Every repository query method is covered, except:
+ * <ul>
+ *     <li>{@code OrderRepo.streamAllWithItems}, which joins every order with every line for the export and
+ *     {@code StockHoldRepo.findPendingHolds}, which reads every hold once at startup: their plans are full reads
+ *     whichever strategy wins.</li>
+ *     <li>{@code StockJournalRepo.append}, {@code ProductStockStripeRepo.insertStripes} and
+ *     {@code OrderIdempotencyKeyRepo.claim}, which insert without reading any table.</li>
+ * </ul>
+ */
+@ActiveProfiles("integration-test")
+public class QueryPlanRegressionIntegrationTest extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanRegressionIntegrationTest.class);
+
+    private static final String BASELINE_RESOURCE = "/query-plans/baseline.json";
+    private static final Path BASELINE_SOURCE = Path.of("src/test/resources/query-plans/baseline.json");
+    private static final Path OBSERVED_OUTPUT = Path.of("target/query-plans/observed.json");
+    private static final double RECORDED_COST_HEADROOM = 1.5;
+
+    private static final int CUSTOMERS = 100_000;
+    private static final int PRODUCTS = 50_000;
+    private static final int ORDERS = 200_000;
+    private static final int LINES_PER_ORDER = 3;
+    private static final int STRIPED_EVERY = 100;
+    private static final int STRIPES = 4;
+    private static final int JOURNAL_ENTRIES = 20_000;
+    private static final int HOLDS = 20_000;
+    private static final int IDEMPOTENCY_KEYS = 50_000;
+    private static final int OUTBOX_EVENTS = 20_000;
+    private static final long ID_OFFSET = 1_000_000;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private AddressRepo addressRepo;
+
+    @Autowired
+    private OrderRepo orderRepo;
+
+    @Autowired
+    private OrderProductRepo orderProductRepo;
+
+    @Autowired
+    private ProductStockStripeRepo stockStripeRepo;
+
+    @Autowired
+    private StockJournalRepo stockJournalRepo;
+
+    @Autowired
+    private StockHoldRepo stockHoldRepo;
+
+    @Autowired
+    private OrderIdempotencyKeyRepo idempotencyKeyRepo;
+
+    @Autowired
+    private OutboxEventRepo outboxEventRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Test
+    void testRepositoryQueryPlansMatchBaseline() throws IOException {
+        seedDataset();
+
+        Map<String, ObservedPlan> observed = new LinkedHashMap<>();
+        queries().forEach((name, query) -> {
+            entityManager.clear();
+            List<String> statements = RecordingStatementInspector.capture(query);
+            assertFalse(statements.isEmpty(), () -> name + " did not prepare any statement");
+            for (int i = 0; i < statements.size(); i++) {
+                observed.put(i == 0 ? name : name + "#" + (i + 1), explain(statements.get(i)));
+            }
+        });
+
+        ObjectNode observedJson = toJson(observed);
+        Files.createDirectories(OBSERVED_OUTPUT.getParent());
+        Files.writeString(OBSERVED_OUTPUT, jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString(observedJson));
+
+        if (Boolean.getBoolean("query-plan.record")) {
+            Files.writeString(BASELINE_SOURCE, jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString(observedJson));
+            log.info("Recorded {} query plans to {}", observed.size(), BASELINE_SOURCE);
+            return;
+        }
+
+        JsonNode baseline = readBaseline();
+        List<String> regressions = new ArrayList<>();
+        observed.forEach((name, plan) -> {
+            JsonNode expected = baseline.get(name);
+            if (expected == null) {
+                regressions.add(name + ": no baseline, observed " + plan.accessPaths());
+                return;
+            }
+            Map<String, String> expectedPaths = new TreeMap<>();
+            expected.path("accessPaths").properties()
+                    .forEach(entry -> expectedPaths.put(entry.getKey(), entry.getValue().asString()));
+            if (!expectedPaths.equals(plan.accessPaths())) {
+                regressions.add(name + ": expected " + expectedPaths + " but was " + plan.accessPaths()
+                        + "\n  " + plan.sql());
+            }
+            double maxCost = expected.path("maxTotalCost").asDouble();
+            if (plan.totalCost() > maxCost) {
+                regressions.add(name + ": estimated cost " + plan.totalCost() + " exceeds baseline " + maxCost
+                        + "\n  " + plan.sql());
+            }
+        });
+
+        assertTrue(regressions.isEmpty(), () -> "Query plan regressions (observed plans in " + OBSERVED_OUTPUT
+                + "):\n" + String.join("\n", regressions));
+    }
+
+    private Map<String, Runnable> queries() {
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("CustomerRepo.findByEmail", () -> customerRepo.findByEmail("nobody@plan.test"));
+        queries.put("CustomerRepo.existsByEmailIgnoreCase", () -> customerRepo.existsByEmailIgnoreCase("Nobody@Plan.test"));
+        queries.put("CustomerRepo.existsByPhoneNumber", () -> customerRepo.existsByPhoneNumber("00000000"));
+        queries.put("CustomerRepo.findExistingEmailsIgnoreCase",
+                () -> customerRepo.findExistingEmailsIgnoreCase(Set.of("a@plan.test", "b@plan.test")));
+        queries.put("CustomerRepo.findExistingPhoneNumbers",
+                () -> customerRepo.findExistingPhoneNumbers(Set.of("00000001", "00000002")));
+        queries.put("CustomerRepo.findCustomerIdsAfter",
+                () -> customerRepo.findCustomerIdsAfter(Long.MAX_VALUE, Limit.of(100)));
+        queries.put("CustomerRepo.findAllWithAddressesByCustomerIdIn",
+                () -> customerRepo.findAllWithAddressesByCustomerIdIn(List.of(0L, -1L)));
+        queries.put("CustomerRepo.findWithAddressesByCustomerId", () -> customerRepo.findWithAddressesByCustomerId(0L));
+
+        queries.put("ProductRepo.findByName", () -> productRepo.findByName("No Such Product"));
+        queries.put("ProductRepo.findExistingNames",
+                () -> productRepo.findExistingNames(Set.of("No Such Product", "Another Missing Product")));
+        queries.put("ProductRepo.findByProductIdGreaterThanOrderByProductIdAsc",
+                () -> productRepo.findByProductIdGreaterThanOrderByProductIdAsc(Long.MAX_VALUE, Limit.of(100)));
+        queries.put("ProductRepo.countByProductStatus", () -> productRepo.countByProductStatus());
+        queries.put("ProductRepo.findByIdForUpdate", () -> productRepo.findByIdForUpdate(0L));
+        queries.put("ProductRepo.findAllByIdForUpdate", () -> productRepo.findAllByIdForUpdate(List.of(0L, -1L)));
+        queries.put("ProductRepo.reserveStock", () -> productRepo.reserveStock(0L, 1, 10));
+        queries.put("ProductRepo.returnStock", () -> productRepo.returnStock(0L, 1, 10));
+        queries.put("ProductRepo.syncStripeTotal", () -> productRepo.syncStripeTotal(0L, 1, "IN_STOCK"));
+        queries.put("ProductRepo.findStripedProductIds", () -> productRepo.findStripedProductIds());
+
+        queries.put("AddressRepo.findByApartmentNumberAndAddressAndZipCodeAndCity",
+                () -> addressRepo.findByApartmentNumberAndAddressAndZipCodeAndCity("0Z", "No Street", "0000", "Nowhere"));
+
+        queries.put("OrderRepo.findByCustomerCustomerId", () -> orderRepo.findByCustomerCustomerId(0L));
+        queries.put("OrderRepo.findOrderIdsAfter", () -> orderRepo.findOrderIdsAfter(Long.MAX_VALUE, Limit.of(100)));
+        queries.put("OrderRepo.findAllWithDetailsByOrderIdIn",
+                () -> orderRepo.findAllWithDetailsByOrderIdIn(List.of(0L, -1L)));
+        queries.put("OrderRepo.findWithDetailsByOrderId", () -> orderRepo.findWithDetailsByOrderId(0L));
+        queries.put("OrderRepo.findByIdForUpdate", () -> orderRepo.findByIdForUpdate(0L));
+        queries.put("OrderRepo.existsByAddress_AddressId", () -> orderRepo.existsByAddress_AddressId(0L));
+        queries.put("OrderRepo.existsByCustomer_CustomerId", () -> orderRepo.existsByCustomer_CustomerId(0L));
+
+        queries.put("OrderProductRepo.findByOrderOrderIdAndOrderCustomerEmail",
+                () -> orderProductRepo.findByOrderOrderIdAndOrderCustomerEmail(0L, "nobody@plan.test"));
+        queries.put("OrderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc",
+                () -> orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(0L, "No Such Product"));
+        queries.put("OrderProductRepo.findByOrderOrderIdAndProductProductIdOrderByOrderProductIdAsc",
+                () -> orderProductRepo.findByOrderOrderIdAndProductProductIdOrderByOrderProductIdAsc(0L, 0L));
+        queries.put("OrderProductRepo.existsByOrderOrderIdAndProductProductId",
+                () -> orderProductRepo.existsByOrderOrderIdAndProductProductId(0L, 0L));
+        queries.put("OrderProductRepo.findByOrderProductIdGreaterThanOrderByOrderProductIdAsc",
+                () -> orderProductRepo.findByOrderProductIdGreaterThanOrderByOrderProductIdAsc(Long.MAX_VALUE, Limit.of(100)));
+
+        queries.put("ProductStockStripeRepo.takeFromAnyStripe", () -> stockStripeRepo.takeFromAnyStripe(0L, 1, 0));
+        queries.put("ProductStockStripeRepo.addToEmptiestStripe", () -> stockStripeRepo.addToEmptiestStripe(0L, 1));
+        queries.put("ProductStockStripeRepo.lockStripes", () -> stockStripeRepo.lockStripes(0L));
+        queries.put("ProductStockStripeRepo.readStripes", () -> stockStripeRepo.readStripes(0L));
+        queries.put("ProductStockStripeRepo.sumQuantity", () -> stockStripeRepo.sumQuantity(0L));
+        queries.put("ProductStockStripeRepo.redistribute", () -> stockStripeRepo.redistribute(0L, 8, STRIPES));
+        queries.put("ProductStockStripeRepo.deleteStripes", () -> stockStripeRepo.deleteStripes(0L));
+
+        queries.put("StockJournalRepo.findJournaledStock", () -> stockJournalRepo.findJournaledStock(0L));
+        queries.put("StockJournalRepo.findJournaledProductIds", () -> stockJournalRepo.findJournaledProductIds(100));
+        queries.put("StockJournalRepo.drainTotals", () -> stockJournalRepo.drainTotals(List.of(0L, -1L)));
+        queries.put("StockJournalRepo.drain", () -> stockJournalRepo.drain(0L));
+
+        queries.put("StockHoldRepo.findByIdForUpdate", () -> stockHoldRepo.findByIdForUpdate(new UUID(0, 0)));
+
+        queries.put("OrderIdempotencyKeyRepo.complete", () -> idempotencyKeyRepo.complete("no-such-key", 0L, "{}"));
+        queries.put("OrderIdempotencyKeyRepo.deleteExpired",
+                () -> idempotencyKeyRepo.deleteExpired(Instant.EPOCH, 100));
+
+        queries.put("OutboxEventRepo.lockNextBatch", () -> outboxEventRepo.lockNextBatch(100));
+        return queries;
+    }
+
+    /**
+     * Inserted in the test transaction with set-based SQL and analyzed there, so the planner sees realistic row
+     * counts and distributions and the rollback removes everything again.
+     */
+    private void seedDataset() {
+        jdbcTemplate.update("""
+                INSERT INTO customer (customer_id, name, phone_number, email)
+                SELECT ? + g, 'Plan Customer ' || g, 'plan-' || g, 'customer' || g || '@plan.test'
+                FROM generate_series(1, ?) g
+                """, ID_OFFSET, CUSTOMERS);
+        jdbcTemplate.update("""
+                INSERT INTO address (address_id, apartment_number, address, zip_code, city, country)
+                SELECT ? + g, (g % 50) || 'A', 'Plan Street ' || g, lpad((g % 9000)::text, 4, '0'),
+                       'City ' || (g % 200), 'Norway'
+                FROM generate_series(1, ?) g
+                """, ID_OFFSET, CUSTOMERS);
+        jdbcTemplate.update("""
+                INSERT INTO customer_address (customer_id, address_id)
+                SELECT ? + g, ? + g FROM generate_series(1, ?) g
+                """, ID_OFFSET, ID_OFFSET, CUSTOMERS);
+        jdbcTemplate.update("""
+                INSERT INTO product (product_id, name, description, price, product_status, quantity, unit, stripe_count)
+                SELECT ? + g, 'Plan Product ' || g, 'Synthetic product', 10 + g % 90,
+                       (ARRAY['IN_STOCK', 'PENDING_RESTOCK', 'OUT_OF_STOCK'])[1 + g % 3], 1000, 'kg',
+                       CASE WHEN g % ? = 0 THEN ? ELSE 0 END
+                FROM generate_series(1, ?) g
+                """, ID_OFFSET, STRIPED_EVERY, STRIPES, PRODUCTS);
+        jdbcTemplate.update("""
+                INSERT INTO product_stock_stripe (product_id, stripe, quantity)
+                SELECT ? + p, s, 250
+                FROM generate_series(?, ?, ?) p, generate_series(0, ? - 1) s
+                """, ID_OFFSET, STRIPED_EVERY, PRODUCTS, STRIPED_EVERY, STRIPES);
+        jdbcTemplate.update("""
+                INSERT INTO customer_order (order_id, customer_id, address_id, order_date, total_sum,
+                                            shipping_charge, order_status)
+                SELECT ? + g, ? + 1 + g % ?, ? + 1 + g % ?, DATE '2025-01-01' + g % 365, 100, 0, 'CONFIRMED'
+                FROM generate_series(1, ?) g
+                """, ID_OFFSET, ID_OFFSET, CUSTOMERS, ID_OFFSET, CUSTOMERS, ORDERS);
+        jdbcTemplate.update("""
+                INSERT INTO order_product (order_product_id, order_id, product_id, customer_id, quantity, unit_price,
+                                           line_total)
+                SELECT ? + g, ? + 1 + (g - 1) / ?, ? + 1 + g % ?, ? + 1 + (1 + (g - 1) / ?) % ?, 1, 10, 10
+                FROM generate_series(1, ?) g
+                """, ID_OFFSET, ID_OFFSET, LINES_PER_ORDER, ID_OFFSET, PRODUCTS,
+                ID_OFFSET, LINES_PER_ORDER, CUSTOMERS, ORDERS * LINES_PER_ORDER);
+        jdbcTemplate.update("""
+                INSERT INTO stock_journal (product_id, delta)
+                SELECT ? + 1 + g % (? / 10), -1
+                FROM generate_series(1, ?) g
+                """, ID_OFFSET, PRODUCTS, JOURNAL_ENTRIES);
+        jdbcTemplate.update("""
+                INSERT INTO stock_hold (hold_id, customer_id, expires_at)
+                SELECT gen_random_uuid(), ? + 1 + g % ?, now() + INTERVAL '10 minutes'
+                FROM generate_series(1, ?) g
+                """, ID_OFFSET, CUSTOMERS, HOLDS);
+        jdbcTemplate.update("""
+                INSERT INTO order_idempotency_key (idempotency_key, request_hash, created_at, expires_at)
+                SELECT 'plan-key-' || g, md5(g::text), now(), now() + INTERVAL '1 day' * (1 + g % 7)
+                FROM generate_series(1, ?) g
+                """, IDEMPOTENCY_KEYS);
+        jdbcTemplate.update("""
+                INSERT INTO outbox (outbox_id, event_type, aggregate_id, payload, created_at)
+                SELECT ? + g, 'ORDER_CREATED', ? + g, '{}', now()
+                FROM generate_series(1, ?) g
+                """, ID_OFFSET, ID_OFFSET, OUTBOX_EVENTS);
+        jdbcTemplate.execute("ANALYZE customer, address, customer_address, product, customer_order, order_product, "
+                + "product_stock_stripe, stock_journal, stock_hold, order_idempotency_key, outbox");
+    }
+
+    /**
+     * Plans the statement the way a prepared statement runs once its plan is cached. {@code EXPLAIN (GENERIC_PLAN)}
+     * cannot be used here: the driver sends it over the extended protocol, where the server expects a value for
+     * every {@code $n}.
+     */
+    private ObservedPlan explain(String sql) {
+        jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+        jdbcTemplate.execute("PREPARE query_plan AS " + sql);
+        Integer parameters = jdbcTemplate.queryForObject(
+                "SELECT cardinality(parameter_types) FROM pg_prepared_statements WHERE name = 'query_plan'",
+                Integer.class);
+        String arguments = parameters == 0 ? "" : "(" + String.join(", ", Collections.nCopies(parameters, "NULL")) + ")";
+        String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) EXECUTE query_plan" + arguments, String.class);
+        jdbcTemplate.execute("DEALLOCATE query_plan");
+        JsonNode plan = jsonMapper.readTree(json).get(0).get("Plan");
+        Map<String, String> accessPaths = new TreeMap<>();
+        collectAccessPaths(plan, accessPaths);
+        return new ObservedPlan(sql, accessPaths, plan.get("Total Cost").asDouble());
+    }
+
+    private void collectAccessPaths(JsonNode node, Map<String, String> accessPaths) {
+        String relation = node.hasNonNull("Relation Name") ? node.get("Relation Name").asString() : null;
+        String access = switch (node.path("Node Type").asString()) {
+            case "Seq Scan" -> "seq";
+            case "Index Scan", "Index Only Scan", "Bitmap Heap Scan" -> "index";
+            default -> null;
+        };
+        if (relation != null && access != null) {
+            accessPaths.merge(relation, access, (previous, current) -> previous.equals("seq") ? previous : current);
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectAccessPaths(child, accessPaths);
+        }
+    }
+
+    private JsonNode readBaseline() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(BASELINE_RESOURCE)) {
+            assertNotNull(in, "Missing " + BASELINE_RESOURCE + ", run with -Dquery-plan.record=true to create it");
+            return jsonMapper.readTree(in);
+        }
+    }
+
+    private ObjectNode toJson(Map<String, ObservedPlan> plans) {
+        ObjectNode root = jsonMapper.createObjectNode();
+        plans.forEach((name, plan) -> {
+            ObjectNode entry = root.putObject(name);
+            ObjectNode paths = entry.putObject("accessPaths");
+            plan.accessPaths().forEach(paths::put);
+            entry.put("maxTotalCost", Math.ceil(plan.totalCost() * RECORDED_COST_HEADROOM));
+            entry.put("observedTotalCost", plan.totalCost());
+            entry.put("sql", plan.sql());
+        });
+        return root;
+    }
+
+    private record ObservedPlan(String sql, Map<String, String> accessPaths, double totalCost) {
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.chickendirect.integration.service;
+
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.OrderProductInputDto;
+import org.example.chickendirect.dtos.StockHoldInputDto;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.inventory.InventoryActors;
+import org.example.chickendirect.inventory.StockReservation;
+import org.example.chickendirect.inventory.StockReservation.Outcome;
+import org.example.chickendirect.inventory.StripedInventory;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.services.StockHoldService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The actors journal in the caller's transaction and react to its outcome, so every step commits or rolls back
+ * for real. The scheduled write-behind is pushed out of the way so the tests decide when it runs.
+ */
+@ActiveProfiles("integration-test")
+@TestPropertySource(properties = {
+        "chickendirect.order.stock-reservation-mode=ACTOR",
+        "chickendirect.inventory.actors.write-behind.interval=PT1H"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class InventoryActorsIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private InventoryActors inventoryActors;
+
+    @Autowired
+    private StockHoldService stockHoldService;
+
+    @Autowired
+    private StripedInventory stripedInventory;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        product = productRepo.save(new Product("Actor Wings", "Test", BigDecimal.TEN, ProductStatus.IN_STOCK, 20, "kg"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepo.deleteById(product.getProductId());
+    }
+
+    @Test
+    void testReservationIsJournaledAndWrittenBehind() {
+        assertEquals(new StockReservation(Outcome.RESERVED, 15), reserve(5));
+        assertEquals(20, quantity());
+        assertEquals(-5, journaled());
+
+        inventoryActors.writeBehind();
+
+        assertEquals(15, quantity());
+        assertEquals(0, journaled());
+        assertEquals(new StockReservation(Outcome.INSUFFICIENT_STOCK, 15), reserve(16));
+    }
+
+    @Test
+    void testRollbackHandsStockBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            inventoryActors.reserve(Map.of(product.getProductId(), 18));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, journaled());
+        assertEquals(new StockReservation(Outcome.RESERVED, 0), reserve(20));
+    }
+
+    @Test
+    void testReleasedStockCountsOnceCommitted() {
+        reserve(20);
+
+        transactionTemplate.executeWithoutResult(status -> inventoryActors.release(product.getProductId(), 4));
+
+        assertEquals(new StockReservation(Outcome.RESERVED, 0), reserve(4));
+        inventoryActors.writeBehind();
+        assertEquals(0, quantity());
+        assertEquals(ProductStatus.OUT_OF_STOCK.name(), jdbcTemplate.queryForObject(
+                "SELECT product_status FROM product WHERE product_id = ?", String.class, product.getProductId()));
+    }
+
+    @Test
+    void testStockIsRecoveredFromProductRowAndJournal() {
+        // a journal left behind by a previous run, before this product's actor was ever loaded
+        jdbcTemplate.update("INSERT INTO stock_journal (product_id, delta) VALUES (?, ?)", product.getProductId(), -12);
+
+        assertEquals(new StockReservation(Outcome.INSUFFICIENT_STOCK, 8), reserve(9));
+        assertEquals(new StockReservation(Outcome.RESERVED, 0), reserve(8));
+    }
+
+    @Test
+    void testHoldGivesRowStockBehindStaleStripedHintToActor() {
+        Object striping = AopTestUtils.getTargetObject(stripedInventory);
+        Object hint = ReflectionTestUtils.getField(striping, "stripedProductIds");
+        Customer customer = customerRepo.save(
+                new Customer("Hold Buyer", "90000031", "hold@actors.test", new ArrayList<>()));
+        try {
+            // the product was striped when the hint was last refreshed, but its stock is back in the row
+            ReflectionTestUtils.setField(striping, "stripedProductIds", Set.of(product.getProductId()));
+
+            stockHoldService.createHold(new StockHoldInputDto(customer.getCustomerId(),
+                    List.of(new OrderProductInputDto(product.getProductId(), 5)), null));
+
+            assertEquals(20, quantity());
+            assertEquals(-5, journaled());
+            assertEquals(new StockReservation(Outcome.INSUFFICIENT_STOCK, 15), reserve(16));
+        } finally {
+            ReflectionTestUtils.setField(striping, "stripedProductIds", hint);
+            jdbcTemplate.update("DELETE FROM stock_hold WHERE customer_id = ?", customer.getCustomerId());
+            customerRepo.delete(customer);
+        }
+    }
+
+    private StockReservation reserve(int quantity) {
+        return transactionTemplate.execute(status ->
+                inventoryActors.reserve(Map.of(product.getProductId(), quantity)).get(product.getProductId()));
+    }
+
+    private int quantity() {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM product WHERE product_id = ?",
+                Integer.class, product.getProductId());
+    }
+
+    private long journaled() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(delta), 0) FROM stock_journal WHERE product_id = ?",
+                Long.class, product.getProductId());
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.chickendirect.integration.service;
+
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManager;
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.OrderInputDto;
+import org.example.chickendirect.dtos.OrderOutputDto;
+import org.example.chickendirect.dtos.OrderProductInputDto;
+import org.example.chickendirect.entities.Address;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.services.OrderExportService;
+import org.example.chickendirect.services.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("integration-test")
+public class OrderExportServiceIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void testExportWritesOneJsonLinePerOrder() throws Exception {
+        Address address = new Address();
+        address.setApartmentNumber("5E");
+        address.setAddress("Export Street");
+        address.setZipCode("0153");
+        address.setCity("Oslo");
+        address.setCountry("Norway");
+
+        Customer customer = new Customer();
+        customer.setName("Accounting");
+        customer.setPhoneNumber("90000004");
+        customer.setEmail("accounting@export.test");
+        customer.setAddressList(List.of(address));
+        customer = customerRepo.save(customer);
+
+        Product wings = productRepo.save(new Product("Export Wings", "Test", BigDecimal.TEN, ProductStatus.IN_STOCK, 100, "kg"));
+        Product thighs = productRepo.save(new Product("Export Thighs", "Test", BigDecimal.ONE, ProductStatus.IN_STOCK, 100, "kg"));
+
+        OrderOutputDto first = orderService.createOrder(new OrderInputDto(customer.getCustomerId(), address.getAddressId(),
+                List.of(new OrderProductInputDto(wings.getProductId(), 2), new OrderProductInputDto(thighs.getProductId(), 3))));
+        OrderOutputDto second = orderService.createOrder(new OrderInputDto(customer.getCustomerId(), address.getAddressId(),
+                List.of(new OrderProductInputDto(thighs.getProductId(), 1))));
+        entityManager.flush();
+        entityManager.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = orderExportService.exportOrders(out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines()
+                .filter(line -> JsonPath.<String>read(line, "$.customer.email").equals("accounting@export.test"))
+                .toList();
+
+        assertTrue(exported >= 2);
+        assertEquals(2, lines.size());
+
+        Number firstId = JsonPath.read(lines.get(0), "$.orderId");
+        Number secondId = JsonPath.read(lines.get(1), "$.orderId");
+        assertEquals(first.orderId(), firstId.longValue());
+        assertEquals(second.orderId(), secondId.longValue());
+
+        List<Object> firstItems = JsonPath.read(lines.get(0), "$.orderItems");
+        assertEquals(2, firstItems.size());
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.chickendirect.integration.service;
+
+import jakarta.persistence.EntityManager;
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.OrderCreationResult;
+import org.example.chickendirect.dtos.OrderInputDto;
+import org.example.chickendirect.dtos.OrderProductInputDto;
+import org.example.chickendirect.entities.Address;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.OrderIdempotencyKey;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.OrderIdempotencyKeyRepo;
+import org.example.chickendirect.repos.OrderRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.services.OrderIdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("integration-test")
+public class OrderIdempotencyServiceIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private OrderIdempotencyService orderIdempotencyService;
+
+    @Autowired
+    private OrderIdempotencyKeyRepo idempotencyKeyRepo;
+
+    @Autowired
+    private OrderRepo orderRepo;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private OrderInputDto input;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Address address = new Address();
+        address.setApartmentNumber("6F");
+        address.setAddress("Retry Street");
+        address.setZipCode("0154");
+        address.setCity("Oslo");
+        address.setCountry("Norway");
+
+        Customer customer = new Customer();
+        customer.setName("Mobile Client");
+        customer.setPhoneNumber("90000005");
+        customer.setEmail("retry@idempotency.test");
+        customer.setAddressList(List.of(address));
+        customer = customerRepo.save(customer);
+
+        product = productRepo.save(new Product("Retry Wings", "Test", BigDecimal.TEN, ProductStatus.IN_STOCK, 100, "kg"));
+
+        input = new OrderInputDto(customer.getCustomerId(), customer.getAddressList().get(0).getAddressId(),
+                List.of(new OrderProductInputDto(product.getProductId(), 3)));
+    }
+
+    @Test
+    void testRetryWithSameKeyReplaysStoredOrder() {
+        OrderCreationResult first = orderIdempotencyService.createOrder("retry-1", input);
+        OrderCreationResult retry = orderIdempotencyService.createOrder("retry-1", input);
+
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.order(), retry.order());
+        assertEquals(1, orderRepo.findByCustomerCustomerId(input.customerId()).size());
+        assertEquals(97, productRepo.findById(product.getProductId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void testSameKeyWithDifferentRequestIsRejected() {
+        orderIdempotencyService.createOrder("retry-2", input);
+
+        OrderInputDto changed = new OrderInputDto(input.customerId(), input.addressId(),
+                List.of(new OrderProductInputDto(product.getProductId(), 4)));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> orderIdempotencyService.createOrder("retry-2", changed));
+        assertEquals(422, ex.getStatusCode().value());
+    }
+
+    @Test
+    void testPurgeRemovesOnlyExpiredKeys() {
+        orderIdempotencyService.createOrder("expired", input);
+        orderIdempotencyService.createOrder("live", input);
+        entityManager.flush();
+
+        OrderIdempotencyKey expired = idempotencyKeyRepo.findById("expired").orElseThrow();
+        expired.setExpiresAt(Instant.now().minusSeconds(60));
+        idempotencyKeyRepo.saveAndFlush(expired);
+        entityManager.clear();
+
+        int purged = orderIdempotencyService.purgeExpiredKeys();
+
+        assertTrue(purged >= 1);
+        assertFalse(idempotencyKeyRepo.existsById("expired"));
+        assertTrue(idempotencyKeyRepo.existsById("live"));
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.chickendirect.integration.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.OrderInputDto;
+import org.example.chickendirect.dtos.OrderOutputDto;
+import org.example.chickendirect.dtos.OrderProductInputDto;
+import org.example.chickendirect.entities.Address;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.services.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("integration-test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class OrderInsertBatchingIntegrationTest extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderInsertBatchingIntegrationTest.class);
+
+    private static final int ORDER_LINES = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Customer customer;
+    private Address address;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        address = new Address();
+        address.setApartmentNumber("3C");
+        address.setAddress("Batch Street");
+        address.setZipCode("0151");
+        address.setCity("Oslo");
+        address.setCountry("Norway");
+
+        customer = new Customer();
+        customer.setName("Batch Buyer");
+        customer.setPhoneNumber("90000002");
+        customer.setEmail("batch@benchmark.test");
+        customer.setAddressList(List.of(address));
+        customer = customerRepo.save(customer);
+
+        products = new ArrayList<>();
+        for (int i = 0; i < ORDER_LINES; i++) {
+            products.add(new Product("Batch Product " + i, "Test", BigDecimal.ONE, ProductStatus.IN_STOCK, 100, "kg"));
+        }
+        products = productRepo.saveAll(products);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testTwentyLineOrderUsesBatchedStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<OrderProductInputDto> lines = products.stream()
+                .map(product -> new OrderProductInputDto(product.getProductId(), 1))
+                .toList();
+        OrderOutputDto order = orderService.createOrder(
+                new OrderInputDto(customer.getCustomerId(), address.getAddressId(), lines));
+        entityManager.flush();
+
+        long statements = statistics.getPrepareStatementCount();
+        log.info("createOrder with {} lines: preparedStatements={} entityInserts={} entityUpdates={}",
+                ORDER_LINES, statements, statistics.getEntityInsertCount(), statistics.getEntityUpdateCount());
+
+        assertEquals(ORDER_LINES, order.orderItems().size());
+        assertEquals(ORDER_LINES + 1, statistics.getEntityInsertCount());
+        assertTrue(statements <= 10,
+                () -> "Expected at most 10 statements for a " + ORDER_LINES + "-line order, was " + statements);
+    }
+}
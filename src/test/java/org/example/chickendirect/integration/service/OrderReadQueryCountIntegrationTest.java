@@ -0,0 +1,132 @@
+package org.example.chickendirect.integration.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.OrderInputDto;
+import org.example.chickendirect.dtos.OrderOutputDto;
+import org.example.chickendirect.dtos.OrderProductInputDto;
+import org.example.chickendirect.entities.Address;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.services.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("integration-test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class OrderReadQueryCountIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Customer customer;
+    private Address address;
+    private List<Product> products;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        address = new Address();
+        address.setApartmentNumber("4D");
+        address.setAddress("Fetch Street");
+        address.setZipCode("0152");
+        address.setCity("Oslo");
+        address.setCountry("Norway");
+
+        customer = new Customer();
+        customer.setName("Query Counter");
+        customer.setPhoneNumber("90000003");
+        customer.setEmail("queries@read.test");
+        customer.setAddressList(List.of(address));
+        customer = customerRepo.save(customer);
+
+        products = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            products.add(new Product("Read Product " + i, "Test", BigDecimal.ONE, ProductStatus.IN_STOCK, 1_000, "kg"));
+        }
+        products = productRepo.saveAll(products);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testFindAllOrdersUsesConstantNumberOfQueries() {
+        placeOrders(2);
+        long statementsForTwoOrders = countStatements(() -> orderService.findAllOrders(0L, 100));
+
+        placeOrders(8);
+        long statementsForTenOrders = countStatements(() -> orderService.findAllOrders(0L, 100));
+
+        assertEquals(2, statementsForTwoOrders);
+        assertEquals(statementsForTwoOrders, statementsForTenOrders);
+    }
+
+    @Test
+    void testFindOrderByCustomerIdUsesConstantNumberOfQueries() {
+        placeOrders(5);
+
+        List<OrderOutputDto> orders = new ArrayList<>();
+        long statements = countStatements(() -> orders.addAll(orderService.findOrderByCustomerId(customer.getCustomerId())));
+
+        assertEquals(5, orders.size());
+        assertTrue(orders.stream().allMatch(order -> order.orderItems().size() == products.size()));
+        assertEquals(2, statements);
+    }
+
+    @Test
+    void testFindOrderByIdUsesSingleQuery() {
+        OrderOutputDto placed = placeOrders(1).get(0);
+
+        long statements = countStatements(() -> orderService.findOrderById(placed.orderId()));
+
+        assertEquals(1, statements);
+    }
+
+    private List<OrderOutputDto> placeOrders(int count) {
+        List<OrderProductInputDto> lines = products.stream()
+                .map(product -> new OrderProductInputDto(product.getProductId(), 1))
+                .toList();
+
+        List<OrderOutputDto> placed = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            placed.add(orderService.createOrder(new OrderInputDto(customer.getCustomerId(), address.getAddressId(), lines)));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return placed;
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
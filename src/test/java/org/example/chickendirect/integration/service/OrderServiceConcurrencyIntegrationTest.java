@@ -0,0 +1,187 @@
+package org.example.chickendirect.integration.service;
+
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.OrderInputDto;
+import org.example.chickendirect.dtos.OrderProductInputDto;
+import org.example.chickendirect.entities.Address;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.enums.StockReservationMode;
+import org.example.chickendirect.repos.AddressRepo;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.OrderRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.services.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("integration-test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderServiceConcurrencyIntegrationTest extends BaseIntegrationTest {
+
+    private static final int THREADS = 200;
+    private static final int INITIAL_STOCK = 10_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepo orderRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private AddressRepo addressRepo;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size}")
+    private int poolSize;
+
+    private Customer customer;
+    private Address address;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        address = new Address();
+        address.setApartmentNumber("2B");
+        address.setAddress("Wasvei");
+        address.setZipCode("0182");
+        address.setCity("Oslo");
+        address.setCountry("Norway");
+
+        customer = new Customer();
+        customer.setName("Hannah Sval");
+        customer.setPhoneNumber("98334567");
+        customer.setEmail("HannahS@concurrency.test");
+        customer.setAddressList(List.of(address));
+        customer = customerRepo.save(customer);
+        address = customer.getAddressList().get(0);
+
+        products = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            products.add(productRepo.save(new Product(
+                    "Concurrency Product " + i, "Test", BigDecimal.TEN, ProductStatus.IN_STOCK, INITIAL_STOCK, "kg")));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        setMode(StockReservationMode.PESSIMISTIC_LOCK);
+        orderRepo.deleteAll(orderRepo.findByCustomerCustomerId(customer.getCustomerId()));
+        productRepo.deleteAll(products);
+        customerRepo.delete(customer);
+        addressRepo.deleteById(address.getAddressId());
+    }
+
+    @Test
+    void testConcurrentMixedOrdersNeverDeadlock() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicInteger orderedUnits = new AtomicInteger();
+
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                List<OrderProductInputDto> lines = randomMixedLines();
+                try {
+                    start.await();
+                    orderService.createOrder(new OrderInputDto(customer.getCustomerId(), address.getAddressId(), lines));
+                    orderedUnits.addAndGet(lines.stream().mapToInt(OrderProductInputDto::quantity).sum());
+                } catch (Throwable ex) {
+                    failures.add(ex);
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertTrue(failures.isEmpty(), () -> "Concurrent orders failed: " + failures);
+        assertEquals(THREADS, orderRepo.findByCustomerCustomerId(customer.getCustomerId()).size());
+
+        int remainingStock = productRepo.findAllById(products.stream().map(Product::getProductId).toList()).stream()
+                .mapToInt(Product::getQuantity)
+                .sum();
+        assertEquals(products.size() * INITIAL_STOCK - orderedUnits.get(), remainingStock);
+    }
+
+    /**
+     * Every waiting order holds an application connection, so the batches must get theirs elsewhere.
+     */
+    @Test
+    void testGroupCommitOrdersAbovePoolSizeComplete() throws Exception {
+        setMode(StockReservationMode.GROUP_COMMIT);
+        int orders = poolSize * 3;
+        Product hotProduct = products.get(0);
+        ExecutorService executor = Executors.newFixedThreadPool(orders);
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        for (int i = 0; i < orders; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    orderService.createOrder(new OrderInputDto(customer.getCustomerId(), address.getAddressId(),
+                            List.of(new OrderProductInputDto(hotProduct.getProductId(), 1))));
+                } catch (Throwable ex) {
+                    failures.add(ex);
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertTrue(failures.isEmpty(), () -> "Group-commit orders failed: " + failures);
+        assertEquals(INITIAL_STOCK - orders, productRepo.findById(hotProduct.getProductId()).orElseThrow().getQuantity());
+    }
+
+    private void setMode(StockReservationMode mode) {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(orderService), "stockReservationMode", mode);
+    }
+
+    private List<OrderProductInputDto> randomMixedLines() {
+        List<Product> shuffled = new ArrayList<>(products);
+        Collections.shuffle(shuffled);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        List<OrderProductInputDto> lines = new ArrayList<>();
+        for (Product product : shuffled.subList(0, 2 + random.nextInt(shuffled.size() - 1))) {
+            lines.add(new OrderProductInputDto(product.getProductId(), 1 + random.nextInt(3)));
+        }
+        if (random.nextBoolean()) {
+            lines.add(lines.get(0));
+        }
+        return lines;
+    }
+}
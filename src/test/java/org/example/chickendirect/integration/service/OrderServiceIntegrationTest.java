@@ -2,6 +2,7 @@ package org.example.chickendirect.integration.service;
 
 
 import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.BatchOrderResult;
 import org.example.chickendirect.dtos.OrderInputDto;
 import org.example.chickendirect.dtos.OrderOutputDto;
 import org.example.chickendirect.dtos.OrderProductInputDto;
@@ -24,6 +25,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -148,5 +150,43 @@ public class OrderServiceIntegrationTest extends BaseIntegrationTest {
 
     }
 
+    @Test
+    void testCreateOrdersRejectsOnlyOrdersWithMalformedLines() {
+        Address address = new Address();
+        address.setApartmentNumber("4D");
+        address.setAddress("Batchvei");
+        address.setZipCode("0183");
+        address.setCity("Oslo");
+        address.setCountry("Norway");
+
+        Customer customer = new Customer();
+        customer.setName("Batch Buyer");
+        customer.setPhoneNumber("98334568");
+        customer.setEmail("batch@test.com");
+        customer.setAddressList(List.of(address));
+        customer = customerRepo.save(customer);
+        long addressId = customer.getAddressList().get(0).getAddressId();
+
+        Product product = productRepo.save(new Product(
+                "Chicken Thighs", "Fresh thighs", BigDecimal.valueOf(40), ProductStatus.IN_STOCK, 20, "kg"));
+
+        List<BatchOrderResult> results = orderService.createOrders(List.of(
+                new OrderInputDto(customer.getCustomerId(), addressId,
+                        List.of(new OrderProductInputDto(product.getProductId(), 3))),
+                new OrderInputDto(customer.getCustomerId(), addressId,
+                        List.of(new OrderProductInputDto(product.getProductId(), 1),
+                                new OrderProductInputDto(null, 1))),
+                new OrderInputDto(customer.getCustomerId(), addressId, Arrays.asList((OrderProductInputDto) null)),
+                new OrderInputDto(customer.getCustomerId(), addressId,
+                        List.of(new OrderProductInputDto(product.getProductId(), 4)))));
+
+        assertTrue(results.get(0).success());
+        assertEquals(400, results.get(1).status());
+        assertEquals(400, results.get(2).status());
+        assertTrue(results.get(3).success());
+        assertEquals(2, orderRepo.findByCustomerCustomerId(customer.getCustomerId()).size());
+        assertEquals(13, productRepo.findById(product.getProductId()).orElseThrow().getQuantity());
+    }
+
 
 }
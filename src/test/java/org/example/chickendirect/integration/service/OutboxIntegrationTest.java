@@ -0,0 +1,145 @@
+package org.example.chickendirect.integration.service;
+
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManager;
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.OrderInputDto;
+import org.example.chickendirect.dtos.OrderOutputDto;
+import org.example.chickendirect.dtos.OrderProductInputDto;
+import org.example.chickendirect.entities.Address;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.OutboxEvent;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.OrderStatus;
+import org.example.chickendirect.enums.OutboxEventType;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.outbox.OutboxConsumer;
+import org.example.chickendirect.outbox.OutboxRelay;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.OutboxEventRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.services.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("integration-test")
+public class OutboxIntegrationTest extends BaseIntegrationTest {
+
+    @TestConfiguration
+    static class RecordingConsumerConfig {
+
+        @Bean
+        RecordingConsumer recordingConsumer() {
+            return new RecordingConsumer();
+        }
+    }
+
+    static class RecordingConsumer implements OutboxConsumer {
+
+        private final List<OutboxEvent> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void accept(List<OutboxEvent> events) {
+            received.addAll(events);
+        }
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private RecordingConsumer recordingConsumer;
+
+    @Autowired
+    private OutboxEventRepo outboxEventRepo;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private OrderInputDto input;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        recordingConsumer.received.clear();
+
+        Address address = new Address();
+        address.setApartmentNumber("8H");
+        address.setAddress("Outbox Street");
+        address.setZipCode("0156");
+        address.setCity("Oslo");
+        address.setCountry("Norway");
+
+        Customer customer = new Customer();
+        customer.setName("Event Reader");
+        customer.setPhoneNumber("90000021");
+        customer.setEmail("reader@outbox.test");
+        customer.setAddressList(List.of(address));
+        customer = customerRepo.save(customer);
+
+        product = productRepo.save(new Product("Outbox Wings", "Test", BigDecimal.TEN, ProductStatus.IN_STOCK, 15, "kg"));
+
+        input = new OrderInputDto(customer.getCustomerId(), customer.getAddressList().get(0).getAddressId(),
+                List.of(new OrderProductInputDto(product.getProductId(), 6)));
+    }
+
+    @Test
+    void testCreateOrderWritesEventsInSameTransaction() {
+        OrderOutputDto order = orderService.createOrder(input);
+        entityManager.flush();
+
+        List<OutboxEvent> orderEvents = eventsFor(outboxEventRepo.findAll(), order.orderId(), OutboxEventType.ORDER_CREATED);
+        List<OutboxEvent> stockEvents = eventsFor(outboxEventRepo.findAll(), product.getProductId(), OutboxEventType.PRODUCT_LOW_STOCK);
+
+        assertEquals(1, orderEvents.size());
+        assertEquals("CONFIRMED", JsonPath.read(orderEvents.get(0).getPayload(), "$.orderStatus"));
+        assertEquals(1, stockEvents.size());
+        assertEquals(9, (int) JsonPath.read(stockEvents.get(0).getPayload(), "$.quantity"));
+    }
+
+    @Test
+    void testRelayDeliversEventsInOrderAndDeletesThem() {
+        OrderOutputDto order = orderService.createOrder(input);
+        orderService.updateOrderStatus(order.orderId(), OrderStatus.SHIPPED);
+        entityManager.flush();
+
+        assertTrue(outboxRelay.relayPending() >= 3);
+
+        List<OutboxEvent> delivered = recordingConsumer.received.stream()
+                .filter(event -> event.getAggregateId() == (event.getEventType().name().startsWith("PRODUCT_")
+                        ? product.getProductId() : order.orderId()))
+                .toList();
+        assertEquals(List.of(OutboxEventType.PRODUCT_LOW_STOCK, OutboxEventType.ORDER_CREATED,
+                        OutboxEventType.ORDER_STATUS_CHANGED),
+                delivered.stream().map(OutboxEvent::getEventType).toList());
+        assertEquals("CONFIRMED", JsonPath.read(delivered.get(2).getPayload(), "$.previousStatus"));
+
+        entityManager.clear();
+        assertTrue(eventsFor(outboxEventRepo.findAll(), order.orderId(), OutboxEventType.ORDER_CREATED).isEmpty());
+    }
+
+    private List<OutboxEvent> eventsFor(List<OutboxEvent> events, long aggregateId, OutboxEventType type) {
+        return events.stream()
+                .filter(event -> event.getAggregateId() == aggregateId && event.getEventType() == type)
+                .toList();
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.chickendirect.integration.service;
+
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.CustomerDto;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.services.CustomerService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Uses a second, independent Postgres container as the replica. Nothing replicates between the two, so every row
+ * shows which database a statement actually ran on.
+ */
+@ActiveProfiles("integration-test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReadReplicaRoutingIntegrationTest extends BaseIntegrationTest {
+
+    private static final long REPLICA_ONLY_CUSTOMER_ID = 900_000_001L;
+
+    @Container
+    static PostgreSQLContainer replica = new PostgreSQLContainer("postgres:latest");
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        replica.start();
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .load()
+                .migrate();
+        registry.add("chickendirect.datasource.replica.url", replica::getJdbcUrl);
+        registry.add("chickendirect.datasource.replica.username", replica::getUsername);
+        registry.add("chickendirect.datasource.replica.password", replica::getPassword);
+    }
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private JdbcTemplate replicaJdbc;
+
+    @BeforeEach
+    void setUp() {
+        replicaJdbc = new JdbcTemplate(new DriverManagerDataSource(
+                replica.getJdbcUrl(), replica.getUsername(), replica.getPassword()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        replicaJdbc.update("DELETE FROM customer WHERE customer_id = ?", REPLICA_ONLY_CUSTOMER_ID);
+        customerRepo.findByEmail("writer@routing.test").ifPresent(customerRepo::delete);
+    }
+
+    @Test
+    void testReadOnlyTransactionsReadFromReplica() {
+        replicaJdbc.update("INSERT INTO customer (customer_id, name, phone_number, email) VALUES (?, ?, ?, ?)",
+                REPLICA_ONLY_CUSTOMER_ID, "Replica Only", "90000019", "replica@routing.test");
+
+        Customer customer = customerService.findCustomerById(REPLICA_ONLY_CUSTOMER_ID);
+
+        assertEquals("replica@routing.test", customer.getEmail());
+        assertEquals(Boolean.FALSE, transactionTemplate.execute(
+                status -> customerRepo.existsById(REPLICA_ONLY_CUSTOMER_ID)));
+    }
+
+    @Test
+    void testWritesGoToPrimary() {
+        Customer created = customerService.createCustomer(writer());
+
+        assertEquals(0, replicaJdbc.queryForObject(
+                "SELECT count(*) FROM customer WHERE email = ?", Integer.class, "writer@routing.test"));
+        assertEquals(Boolean.TRUE, transactionTemplate.execute(
+                status -> customerRepo.existsById(created.getCustomerId())));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> customerService.findCustomerById(created.getCustomerId()));
+        assertEquals(404, ex.getStatusCode().value());
+    }
+
+    @Test
+    void testReadYourWritesKeepsRequestOnPrimaryAfterWrite() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        Customer created = customerService.createCustomer(writer());
+        Customer found = customerService.findCustomerById(created.getCustomerId());
+
+        assertEquals("writer@routing.test", found.getEmail());
+    }
+
+    private CustomerDto writer() {
+        return new CustomerDto("Primary Writer", "90000020", "writer@routing.test", List.of());
+    }
+}
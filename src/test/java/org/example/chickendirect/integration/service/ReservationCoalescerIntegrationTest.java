@@ -0,0 +1,91 @@
+package org.example.chickendirect.integration.service;
+
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.inventory.ReservationCoalescer;
+import org.example.chickendirect.inventory.StockReservation;
+import org.example.chickendirect.inventory.StockReservation.Outcome;
+import org.example.chickendirect.repos.ProductRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batches commit in their own transactions, so the test data has to be committed as well.
+ */
+@ActiveProfiles("integration-test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReservationCoalescerIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ReservationCoalescer reservationCoalescer;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        product = productRepo.save(new Product("Batched Wings", "Test", BigDecimal.TEN, ProductStatus.IN_STOCK, 10, "kg"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepo.deleteById(product.getProductId());
+    }
+
+    @Test
+    void testRequestsAreAppliedInArrivalOrder() throws Exception {
+        List<CompletableFuture<StockReservation>> results = List.of(
+                reservationCoalescer.reserve(product.getProductId(), 6),
+                reservationCoalescer.reserve(product.getProductId(), 6),
+                reservationCoalescer.reserve(product.getProductId(), 3));
+
+        assertEquals(new StockReservation(Outcome.RESERVED, 4), results.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals(new StockReservation(Outcome.INSUFFICIENT_STOCK, 4), results.get(1).get(5, TimeUnit.SECONDS));
+        assertEquals(new StockReservation(Outcome.RESERVED, 1), results.get(2).get(5, TimeUnit.SECONDS));
+        assertEquals(1, quantity());
+        assertEquals(ProductStatus.PENDING_RESTOCK.name(), jdbcTemplate.queryForObject(
+                "SELECT product_status FROM product WHERE product_id = ?", String.class, product.getProductId()));
+    }
+
+    @Test
+    void testReleaseIsAppliedWithNextBatch() throws Exception {
+        reservationCoalescer.reserve(product.getProductId(), 8).get(5, TimeUnit.SECONDS);
+
+        reservationCoalescer.release(product.getProductId(), 8);
+        StockReservation after = reservationCoalescer.reserve(product.getProductId(), 1).get(5, TimeUnit.SECONDS);
+
+        assertEquals(new StockReservation(Outcome.RESERVED, 9), after);
+        assertEquals(9, quantity());
+    }
+
+    @Test
+    void testUnknownProductIsReported() throws Exception {
+        StockReservation result = reservationCoalescer.reserve(-1L, 1).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Outcome.NOT_FOUND, result.outcome());
+    }
+
+    private int quantity() {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM product WHERE product_id = ?",
+                Integer.class, product.getProductId());
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.chickendirect.integration.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.cache.ProductCatalogCache;
+import org.example.chickendirect.entities.Address;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("integration-test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class SecondLevelCacheIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testCustomerAndAddressesAreServedFromCache() {
+        Address address = new Address("8H", "Cache Street", "0156", "Oslo");
+        Customer customer = new Customer("Cached Customer", "90000009", "cached@l2.test", List.of(address));
+        long customerId = customerRepo.save(customer).getCustomerId();
+        entityManager.flush();
+        entityManager.clear();
+
+        customerRepo.findById(customerId).orElseThrow().getAddressList().size();
+        entityManager.clear();
+        statistics.clear();
+
+        Customer cached = customerRepo.findById(customerId).orElseThrow();
+        assertEquals(1, cached.getAddressList().size());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 3);
+    }
+
+    @Test
+    void testFindByIdForUpdateNeverReturnsCachedStock() {
+        long productId = productRepo.save(
+                new Product("Cached Wings", "Test", BigDecimal.TEN, ProductStatus.IN_STOCK, 100, "kg")).getProductId();
+        entityManager.flush();
+        entityManager.clear();
+        productRepo.findById(productId).orElseThrow();
+        entityManager.clear();
+
+        jdbcTemplate.update("UPDATE product SET quantity = 40 WHERE product_id = ?", productId);
+
+        assertEquals(100, productRepo.findById(productId).orElseThrow().getQuantity());
+        entityManager.clear();
+        assertEquals(40, productRepo.findByIdForUpdate(productId).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void testEvictStockDropsProductFromSecondLevelCache() {
+        long productId = productRepo.save(
+                new Product("Evicted Wings", "Test", BigDecimal.TEN, ProductStatus.IN_STOCK, 100, "kg")).getProductId();
+        entityManager.flush();
+        entityManager.clear();
+        productRepo.findById(productId).orElseThrow();
+        assertTrue(entityManagerFactory.getCache().contains(Product.class, productId));
+
+        productRepo.reserveStock(productId, 30, 10).orElseThrow();
+        productCatalogCache.evictStock(productId);
+        entityManager.clear();
+
+        assertFalse(entityManagerFactory.getCache().contains(Product.class, productId));
+        assertEquals(70, productRepo.findById(productId).orElseThrow().getQuantity());
+    }
+}
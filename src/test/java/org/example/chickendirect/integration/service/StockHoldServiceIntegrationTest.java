@@ -0,0 +1,195 @@
+package org.example.chickendirect.integration.service;
+
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.OrderInputDto;
+import org.example.chickendirect.dtos.OrderOutputDto;
+import org.example.chickendirect.dtos.OrderProductInputDto;
+import org.example.chickendirect.dtos.StockHoldInputDto;
+import org.example.chickendirect.dtos.StockHoldOutputDto;
+import org.example.chickendirect.entities.Address;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.repos.AddressRepo;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.OrderRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.repos.StockHoldRepo;
+import org.example.chickendirect.services.OrderService;
+import org.example.chickendirect.services.StockHoldService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Holds expire in their own transactions on the scheduler thread, so the test data has to be committed. The wheel
+ * ticks fast enough for a short hold to expire within the test.
+ */
+@ActiveProfiles("integration-test")
+@TestPropertySource(properties = "chickendirect.holds.tick=PT0.05S")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StockHoldServiceIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private StockHoldService stockHoldService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockHoldRepo stockHoldRepo;
+
+    @Autowired
+    private OrderRepo orderRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private AddressRepo addressRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+    private Address address;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        address = new Address();
+        address.setApartmentNumber("4C");
+        address.setAddress("Holdveien");
+        address.setZipCode("0150");
+        address.setCity("Oslo");
+        address.setCountry("Norway");
+
+        customer = new Customer();
+        customer.setName("Kari Hold");
+        customer.setPhoneNumber("98112233");
+        customer.setEmail("kari@hold.test");
+        customer.setAddressList(List.of(address));
+        customer = customerRepo.save(customer);
+        address = customer.getAddressList().get(0);
+
+        product = productRepo.save(
+                new Product("Held Thighs", "Test", BigDecimal.TEN, ProductStatus.IN_STOCK, 20, "kg"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM stock_hold WHERE customer_id = ?", customer.getCustomerId());
+        orderRepo.deleteAll(orderRepo.findByCustomerCustomerId(customer.getCustomerId()));
+        productRepo.deleteById(product.getProductId());
+        customerRepo.delete(customer);
+        addressRepo.deleteById(address.getAddressId());
+    }
+
+    @Test
+    void testHoldTakesStockAndReleaseGivesItBack() {
+        StockHoldOutputDto hold = hold(8, null);
+
+        assertEquals(12, quantity());
+        assertEquals(List.of(new OrderProductInputDto(product.getProductId(), 8)), hold.productItems());
+
+        stockHoldService.releaseHold(hold.holdId());
+
+        assertEquals(20, quantity());
+        assertFalse(stockHoldRepo.existsById(hold.holdId()));
+    }
+
+    @Test
+    void testConvertedHoldDoesNotTakeStockAgain() {
+        StockHoldOutputDto hold = hold(8, null);
+
+        OrderOutputDto order = orderService.createOrder(new OrderInputDto(customer.getCustomerId(),
+                address.getAddressId(), List.of(new OrderProductInputDto(product.getProductId(), 5)), hold.holdId()));
+
+        assertEquals(1, order.orderItems().size());
+        assertEquals(5, order.orderItems().get(0).quantity());
+        // 8 held, 5 ordered and the other 3 given back
+        assertEquals(15, quantity());
+        assertFalse(stockHoldRepo.existsById(hold.holdId()));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> orderService.createOrder(new OrderInputDto(customer.getCustomerId(), address.getAddressId(),
+                        List.of(), hold.holdId())));
+        assertEquals(404, ex.getStatusCode().value());
+    }
+
+    @Test
+    void testOrderCannotTakeMoreThanWasHeld() {
+        StockHoldOutputDto hold = hold(4, null);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> orderService.createOrder(new OrderInputDto(customer.getCustomerId(), address.getAddressId(),
+                        List.of(new OrderProductInputDto(product.getProductId(), 5)), hold.holdId())));
+
+        assertEquals(409, ex.getStatusCode().value());
+        assertEquals(16, quantity());
+        assertTrue(stockHoldRepo.existsById(hold.holdId()));
+    }
+
+    @Test
+    void testHoldCannotExceedStock() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> hold(21, null));
+
+        assertEquals(400, ex.getStatusCode().value());
+        assertEquals(20, quantity());
+    }
+
+    @Test
+    void testExpiredHoldGivesStockBack() throws InterruptedException {
+        StockHoldOutputDto hold = hold(6, Duration.ofMillis(200));
+        assertEquals(14, quantity());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (stockHoldRepo.existsById(hold.holdId()) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertFalse(stockHoldRepo.existsById(hold.holdId()));
+        assertEquals(20, quantity());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> stockHoldService.extendHold(hold.holdId(), Duration.ofMinutes(5)));
+        assertEquals(404, ex.getStatusCode().value());
+    }
+
+    @Test
+    void testExtendedHoldOutlivesItsFirstExpiry() throws InterruptedException {
+        StockHoldOutputDto hold = hold(6, Duration.ofMillis(300));
+
+        StockHoldOutputDto extended = stockHoldService.extendHold(hold.holdId(), Duration.ofMinutes(5));
+        Thread.sleep(600);
+
+        assertTrue(extended.expiresAt().isAfter(hold.expiresAt()));
+        assertTrue(stockHoldRepo.existsById(hold.holdId()));
+        assertEquals(14, quantity());
+    }
+
+    private StockHoldOutputDto hold(int quantity, Duration ttl) {
+        return stockHoldService.createHold(new StockHoldInputDto(customer.getCustomerId(),
+                List.of(new OrderProductInputDto(product.getProductId(), quantity)), ttl));
+    }
+
+    private int quantity() {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM product WHERE product_id = ?",
+                Integer.class, product.getProductId());
+    }
+}
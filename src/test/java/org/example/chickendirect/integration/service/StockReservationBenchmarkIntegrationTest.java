@@ -0,0 +1,155 @@
+package org.example.chickendirect.integration.service;
+
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.OrderInputDto;
+import org.example.chickendirect.dtos.OrderProductInputDto;
+import org.example.chickendirect.entities.Address;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.enums.StockReservationMode;
+import org.example.chickendirect.inventory.InventoryActors;
+import org.example.chickendirect.repos.AddressRepo;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.OrderRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.services.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The inventory actors only run when the {@code ACTOR} mode is configured, so it is configured here and the other
+ * modes are switched to at runtime.
+ */
+@ActiveProfiles("integration-test")
+@TestPropertySource(properties = "chickendirect.order.stock-reservation-mode=ACTOR")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StockReservationBenchmarkIntegrationTest extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationBenchmarkIntegrationTest.class);
+
+    private static final int THREADS = 32;
+    private static final int ORDERS_PER_THREAD = 25;
+    private static final int INITIAL_STOCK = 1_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InventoryActors inventoryActors;
+
+    @Autowired
+    private OrderRepo orderRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private AddressRepo addressRepo;
+
+    private Customer customer;
+    private Address address;
+    private Product hotProduct;
+
+    @BeforeEach
+    void setUp() {
+        address = new Address();
+        address.setApartmentNumber("1A");
+        address.setAddress("Hot Street");
+        address.setZipCode("0150");
+        address.setCity("Oslo");
+        address.setCountry("Norway");
+
+        customer = new Customer();
+        customer.setName("Flash Sale");
+        customer.setPhoneNumber("90000001");
+        customer.setEmail("flash@benchmark.test");
+        customer.setAddressList(List.of(address));
+        customer = customerRepo.save(customer);
+        address = customer.getAddressList().get(0);
+
+        hotProduct = productRepo.save(new Product(
+                "Hot Chicken Breast", "Benchmark", BigDecimal.TEN, ProductStatus.IN_STOCK, INITIAL_STOCK, "kg"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        setMode(StockReservationMode.PESSIMISTIC_LOCK);
+        orderRepo.deleteAll(orderRepo.findByCustomerCustomerId(customer.getCustomerId()));
+        productRepo.delete(hotProduct);
+        customerRepo.delete(customer);
+        addressRepo.deleteById(address.getAddressId());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StockReservationMode.class)
+    void benchmarkSingleHotSku(StockReservationMode mode) throws Exception {
+        setMode(mode);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicInteger placed = new AtomicInteger();
+        OrderInputDto input = new OrderInputDto(customer.getCustomerId(), address.getAddressId(),
+                List.of(new OrderProductInputDto(hotProduct.getProductId(), 1)));
+
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < ORDERS_PER_THREAD; j++) {
+                        orderService.createOrder(input);
+                        placed.incrementAndGet();
+                    }
+                } catch (Throwable ex) {
+                    failures.add(ex);
+                }
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+
+        log.info("mode={} threads={} orders={} elapsedMs={} ordersPerSecond={}",
+                mode, THREADS, placed.get(), elapsedMillis, placed.get() * 1000L / elapsedMillis);
+
+        assertTrue(failures.isEmpty(), () -> "Orders failed: " + failures);
+        inventoryActors.writeBehind();
+        Product remaining = productRepo.findById(hotProduct.getProductId()).orElseThrow();
+        assertEquals(INITIAL_STOCK - THREADS * ORDERS_PER_THREAD, remaining.getQuantity());
+        assertEquals(ProductStatus.IN_STOCK, remaining.getProductStatus());
+    }
+
+    private void setMode(StockReservationMode mode) {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(orderService), "stockReservationMode", mode);
+    }
+}
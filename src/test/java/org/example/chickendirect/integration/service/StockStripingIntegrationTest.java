@@ -0,0 +1,180 @@
+package org.example.chickendirect.integration.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.example.chickendirect.BaseIntegrationTest;
+import org.example.chickendirect.dtos.OrderInputDto;
+import org.example.chickendirect.dtos.OrderOutputDto;
+import org.example.chickendirect.dtos.OrderProductInputDto;
+import org.example.chickendirect.entities.Address;
+import org.example.chickendirect.entities.Customer;
+import org.example.chickendirect.entities.Product;
+import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.inventory.StripedInventory;
+import org.example.chickendirect.repos.CustomerRepo;
+import org.example.chickendirect.repos.ProductRepo;
+import org.example.chickendirect.services.OrderService;
+import org.example.chickendirect.services.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("integration-test")
+public class StockStripingIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StripedInventory stripedInventory;
+
+    @Autowired
+    private CustomerRepo customerRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Address address = new Address();
+        address.setApartmentNumber("3C");
+        address.setAddress("Stripe Street");
+        address.setZipCode("0157");
+        address.setCity("Oslo");
+        address.setCountry("Norway");
+
+        customer = new Customer();
+        customer.setName("Hot Buyer");
+        customer.setPhoneNumber("90000022");
+        customer.setEmail("buyer@stripes.test");
+        customer.setAddressList(List.of(address));
+        customer = customerRepo.save(customer);
+
+        product = productRepo.save(new Product("Striped Wings", "Test", BigDecimal.TEN, ProductStatus.IN_STOCK, 100, "kg"));
+    }
+
+    @Test
+    void testStripingSpreadsStockEvenly() {
+        Product striped = productService.updateStockStripes(product.getProductId(), 4);
+
+        assertEquals(4, striped.getStripeCount());
+        assertEquals(List.of(25, 25, 25, 25), stripes());
+        assertEquals(100, reloadedQuantity());
+    }
+
+    @Test
+    void testOrdersTakeFromStripesAndFallBackToAllStripes() {
+        productService.updateStockStripes(product.getProductId(), 4);
+        double slowPath = slowPathReservations();
+
+        order(30);
+        assertEquals(List.of(18, 18, 17, 17), stripes());
+        assertEquals(slowPath + 1, slowPathReservations());
+
+        order(5);
+        assertEquals(65, stripes().stream().mapToInt(Integer::intValue).sum());
+        assertEquals(slowPath + 1, slowPathReservations());
+        assertEquals(65, reloadedQuantity());
+    }
+
+    @Test
+    void testInsufficientStripedStockIsRejected() {
+        productService.updateStockStripes(product.getProductId(), 4);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> order(101));
+
+        assertEquals(400, ex.getStatusCode().value());
+        assertEquals(100, stripes().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void testDeleteOrderRestoresStripesAndMergeKeepsTotal() {
+        productService.updateStockStripes(product.getProductId(), 4);
+        OrderOutputDto order = order(20);
+
+        orderService.deleteOrderById(order.orderId());
+        assertEquals(100, stripes().stream().mapToInt(Integer::intValue).sum());
+
+        Product merged = productService.updateStockStripes(product.getProductId(), 0);
+        assertFalse(merged.isStriped());
+        assertTrue(stripes().isEmpty());
+        assertEquals(100, reloadedQuantity());
+    }
+
+    @Test
+    void testRebalanceEvensOutStripesAndMirrorsTotal() {
+        productService.updateStockStripes(product.getProductId(), 4);
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE product_stock_stripe SET quantity = CASE WHEN stripe = 0 THEN 1 ELSE 33 END "
+                + "WHERE product_id = ?", product.getProductId());
+
+        assertTrue(stripedInventory.rebalance() >= 1);
+        entityManager.flush();
+
+        assertEquals(List.of(25, 25, 25, 25), stripes());
+        assertEquals(100, jdbcTemplate.queryForObject(
+                "SELECT quantity FROM product WHERE product_id = ?", Integer.class, product.getProductId()));
+    }
+
+    @Test
+    void testRebalanceOnlyWritesStockColumns() {
+        productService.updateStockStripes(product.getProductId(), 4);
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE product SET price = 12 WHERE product_id = ?", product.getProductId());
+        jdbcTemplate.update("UPDATE product_stock_stripe SET quantity = quantity - 5 WHERE product_id = ? AND stripe = 0",
+                product.getProductId());
+
+        stripedInventory.rebalance();
+        entityManager.flush();
+
+        assertEquals(95, jdbcTemplate.queryForObject(
+                "SELECT quantity FROM product WHERE product_id = ?", Integer.class, product.getProductId()));
+        assertEquals(0, new BigDecimal("12").compareTo(jdbcTemplate.queryForObject(
+                "SELECT price FROM product WHERE product_id = ?", BigDecimal.class, product.getProductId())));
+    }
+
+    private OrderOutputDto order(int quantity) {
+        return orderService.createOrder(new OrderInputDto(customer.getCustomerId(),
+                customer.getAddressList().get(0).getAddressId(),
+                List.of(new OrderProductInputDto(product.getProductId(), quantity))));
+    }
+
+    private List<Integer> stripes() {
+        entityManager.flush();
+        return jdbcTemplate.queryForList("SELECT quantity FROM product_stock_stripe WHERE product_id = ? ORDER BY stripe",
+                Integer.class, product.getProductId());
+    }
+
+    private int reloadedQuantity() {
+        entityManager.flush();
+        entityManager.clear();
+        return productRepo.findById(product.getProductId()).orElseThrow().getQuantity();
+    }
+
+    private double slowPathReservations() {
+        return meterRegistry.counter(StripedInventory.SLOW_PATH_RESERVATIONS).count();
+    }
+}
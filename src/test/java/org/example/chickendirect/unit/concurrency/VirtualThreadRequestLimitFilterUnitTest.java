@@ -0,0 +1,80 @@
+package org.example.chickendirect.unit.concurrency;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.chickendirect.concurrency.VirtualThreadRequestLimitFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadRequestLimitFilterUnitTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private VirtualThreadRequestLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(1);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new VirtualThreadRequestLimitFilter(dataSource, 2, Duration.ofMillis(50), meterRegistry);
+    }
+
+    @Test
+    void testLimitIsDerivedFromPoolSize() {
+        assertEquals(2, filter.getMaxConcurrentRequests());
+    }
+
+    @Test
+    void testRequestsBeyondLimitAreRejected() throws Exception {
+        CountDownLatch inFlight = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread first = holdPermit(inFlight, release);
+        Thread second = holdPermit(inFlight, release);
+        assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/order"), rejected,
+                (request, response) -> fail("Request should not reach the chain"));
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.get(VirtualThreadRequestLimitFilter.REJECTED_REQUESTS).counter().count());
+        assertEquals(2.0, meterRegistry.get(VirtualThreadRequestLimitFilter.IN_FLIGHT_REQUESTS).gauge().value());
+
+        release.countDown();
+        first.join();
+        second.join();
+
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/order"), accepted, (request, response) -> { });
+        assertEquals(200, accepted.getStatus());
+        assertEquals(0.0, meterRegistry.get(VirtualThreadRequestLimitFilter.IN_FLIGHT_REQUESTS).gauge().value());
+    }
+
+    private Thread holdPermit(CountDownLatch inFlight, CountDownLatch release) {
+        return Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/order"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            inFlight.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+    }
+}
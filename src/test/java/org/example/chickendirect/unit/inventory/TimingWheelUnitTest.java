@@ -0,0 +1,75 @@
+package org.example.chickendirect.unit.inventory;
+
+import org.example.chickendirect.inventory.TimingWheel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelUnitTest {
+
+    private static final long START = 1_000_000L;
+
+    private TimingWheel<String> wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimingWheel<>(Duration.ofMillis(100), START);
+    }
+
+    @Test
+    void testKeyComesDueOnFirstTickAtOrAfterDeadline() {
+        wheel.schedule("cart", START + 250);
+
+        assertEquals(List.of(), wheel.advance(START + 200));
+        assertEquals(List.of("cart"), wheel.advance(START + 300));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testPastDeadlineIsDueOnNextAdvance() {
+        wheel.schedule("late", START - 5_000);
+
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("late"), wheel.advance(START));
+    }
+
+    @Test
+    void testDeadlinesOnHigherLevelsCascadeDownWithoutFiringEarly() {
+        // 64 ticks fit on the lowest level, 4096 on the second and 262144 on the third
+        long[] offsets = {6_300, 6_500, 400_000, 20_000_000, 2_000_000_000L};
+        for (long offset : offsets) {
+            wheel.schedule(String.valueOf(offset), START + offset);
+        }
+
+        List<String> fired = new ArrayList<>();
+        for (long offset : offsets) {
+            assertEquals(List.of(), wheel.advance(START + offset - 100), "fired before " + offset);
+            List<String> due = wheel.advance(START + offset);
+            assertEquals(List.of(String.valueOf(offset)), due);
+            fired.addAll(due);
+        }
+        assertEquals(offsets.length, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdvanceCatchesUpOverSkippedTicks() {
+        wheel.schedule("a", START + 1_000);
+        wheel.schedule("b", START + 90_000);
+        wheel.schedule("c", START + 900_000);
+
+        assertEquals(List.of("a", "b"), wheel.advance(START + 100_000));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("c"), wheel.advance(START + 1_000_000));
+    }
+
+    @Test
+    void testRejectsTickBelowOneMillisecond() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(Duration.ofNanos(10), START));
+    }
+}
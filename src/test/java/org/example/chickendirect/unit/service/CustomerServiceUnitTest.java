@@ -1,6 +1,9 @@
 package org.example.chickendirect.unit.service;
 
+import jakarta.persistence.EntityManager;
+import org.example.chickendirect.dtos.CursorPage;
 import org.example.chickendirect.dtos.CustomerDto;
+import org.example.chickendirect.dtos.CustomerImportResult;
 import org.example.chickendirect.entities.Customer;
 import org.example.chickendirect.repos.AddressRepo;
 import org.example.chickendirect.repos.CustomerRepo;
@@ -12,10 +15,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +34,9 @@ public class CustomerServiceUnitTest {
     @Mock
     private OrderRepo orderRepo;
 
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private CustomerService customerService;
 
@@ -123,18 +132,31 @@ public class CustomerServiceUnitTest {
 
         @Test
         void testFindAllCustomers() {
-            when(customerRepo.findAll()).thenReturn(List.of(new Customer(), new Customer()));
+            when(customerRepo.findCustomerIdsAfter(0L, Limit.of(101))).thenReturn(List.of(1L, 2L));
+            when(customerRepo.findAllWithAddressesByCustomerIdIn(List.of(1L, 2L)))
+                    .thenReturn(List.of(new Customer(), new Customer()));
+
+            CursorPage<Customer> customers = customerService.findAllCustomers(0L, 100);
+
+            assertEquals(2, customers.items().size());
+            assertNull(customers.nextCursor());
+        }
+
+        @Test
+        void testFindAllCustomers_emptyPageSkipsAddressQuery() {
+            when(customerRepo.findCustomerIdsAfter(0L, Limit.of(101))).thenReturn(List.of());
 
-            List<Customer> customers = customerService.findAllCustomers();
+            CursorPage<Customer> customers = customerService.findAllCustomers(0L, 100);
 
-            assertEquals(2, customers.size());
+            assertTrue(customers.items().isEmpty());
+            verify(customerRepo, never()).findAllWithAddressesByCustomerIdIn(anyCollection());
         }
 
         @Test
         void testFindCustomerById_found() {
             Customer customer = new Customer();
             customer.setCustomerId(1L);
-            when(customerRepo.findById(1L)).thenReturn(Optional.of(customer));
+            when(customerRepo.findWithAddressesByCustomerId(1L)).thenReturn(Optional.of(customer));
 
             Customer result = customerService.findCustomerById(1L);
 
@@ -144,7 +166,7 @@ public class CustomerServiceUnitTest {
 
         @Test
         void testFindCustomerById_notFound() {
-            when(customerRepo.findById(1L)).thenReturn(Optional.empty());
+            when(customerRepo.findWithAddressesByCustomerId(1L)).thenReturn(Optional.empty());
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> customerService.findCustomerById(1L));
@@ -193,66 +215,99 @@ public class CustomerServiceUnitTest {
 
         @Test
         void testSaveAllCustomers_success() {
-            Customer c1 = new Customer();
-            c1.setName("A");
-            c1.setEmail("a@example.com");
-            c1.setPhoneNumber("123");
-            Customer c2 = new Customer();
-            c2.setName("B");
-            c2.setEmail("b@example.com");
-            c2.setPhoneNumber("456");
-
-            when(customerRepo.existsByEmailIgnoreCase(anyString())).thenReturn(false);
-            when(customerRepo.existsByPhoneNumber(anyString())).thenReturn(false);
-            when(customerRepo.saveAll(anyList())).thenReturn(List.of(c1, c2));
-
-            List<Customer> result = customerService.saveAllCustomers(List.of(c1, c2));
-
-            assertEquals(2, result.size());
+            Customer c1 = customer("A", "a@example.com", "123");
+            Customer c2 = customer("B", "b@example.com", "456");
+
+            when(customerRepo.findExistingEmailsIgnoreCase(anyCollection())).thenReturn(Set.of());
+            when(customerRepo.findExistingPhoneNumbers(anyCollection())).thenReturn(Set.of());
+
+            CustomerImportResult result = customerService.saveAllCustomers(List.of(c1, c2).iterator());
+
+            assertEquals(2, result.received());
+            assertEquals(2, result.saved());
+            verify(customerRepo).saveAll(List.of(c1, c2));
+            verify(customerRepo, never()).existsByEmailIgnoreCase(anyString());
+            verify(customerRepo, never()).existsByPhoneNumber(anyString());
+            verify(entityManager).flush();
+            verify(entityManager).clear();
+        }
+
+        @Test
+        void testSaveAllCustomers_savesInChunks() {
+            List<Customer> customers = new ArrayList<>();
+            for (int i = 0; i < CustomerService.IMPORT_CHUNK_SIZE + 1; i++) {
+                customers.add(customer("C" + i, "c" + i + "@example.com", "phone-" + i));
+            }
+
+            when(customerRepo.findExistingEmailsIgnoreCase(anyCollection())).thenReturn(Set.of());
+            when(customerRepo.findExistingPhoneNumbers(anyCollection())).thenReturn(Set.of());
+
+            CustomerImportResult result = customerService.saveAllCustomers(customers.iterator());
+
+            assertEquals(CustomerService.IMPORT_CHUNK_SIZE + 1, result.saved());
+            verify(customerRepo, times(2)).findExistingEmailsIgnoreCase(anyCollection());
+            verify(customerRepo, times(2)).findExistingPhoneNumbers(anyCollection());
+            verify(customerRepo, times(2)).saveAll(anyList());
+            verify(entityManager, times(2)).clear();
         }
 
         @Test
         void testSaveAllCustomers_missingRequiredFields() {
-            Customer invalid = new Customer();
-            invalid.setName(null);
-            invalid.setEmail("email@example.com");
-            invalid.setPhoneNumber("123");
+            Customer invalid = customer(null, "email@example.com", "123");
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
-                    () -> customerService.saveAllCustomers(List.of(invalid)));
+                    () -> customerService.saveAllCustomers(List.of(invalid).iterator()));
 
             assertEquals(400, ex.getStatusCode().value());
+            verify(customerRepo, never()).saveAll(anyList());
         }
 
         @Test
         void testSaveAllCustomers_conflictingEmail() {
-            Customer c = new Customer();
-            c.setName("Test");
-            c.setEmail("exists@example.com");
-            c.setPhoneNumber("123");
+            Customer c = customer("Test", "Exists@Example.com", "123");
 
-            when(customerRepo.existsByEmailIgnoreCase("exists@example.com")).thenReturn(true);
+            when(customerRepo.findExistingEmailsIgnoreCase(anyCollection())).thenReturn(Set.of("exists@example.com"));
+            when(customerRepo.findExistingPhoneNumbers(anyCollection())).thenReturn(Set.of());
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
-                    () -> customerService.saveAllCustomers(List.of(c)));
+                    () -> customerService.saveAllCustomers(List.of(c).iterator()));
 
             assertEquals(409, ex.getStatusCode().value());
+            verify(customerRepo, never()).saveAll(anyList());
         }
 
         @Test
         void testSaveAllCustomers_conflictingPhone() {
-            Customer c = new Customer();
-            c.setName("Test");
-            c.setEmail("new@example.com");
-            c.setPhoneNumber("exists-phone");
+            Customer c = customer("Test", "new@example.com", "exists-phone");
+
+            when(customerRepo.findExistingEmailsIgnoreCase(anyCollection())).thenReturn(Set.of());
+            when(customerRepo.findExistingPhoneNumbers(anyCollection())).thenReturn(Set.of("exists-phone"));
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> customerService.saveAllCustomers(List.of(c).iterator()));
+
+            assertEquals(409, ex.getStatusCode().value());
+        }
 
-            when(customerRepo.existsByEmailIgnoreCase("new@example.com")).thenReturn(false);
-            when(customerRepo.existsByPhoneNumber("exists-phone")).thenReturn(true);
+        @Test
+        void testSaveAllCustomers_duplicateWithinRequest() {
+            Customer first = customer("A", "same@example.com", "123");
+            Customer second = customer("B", "SAME@example.com", "456");
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
-                    () -> customerService.saveAllCustomers(List.of(c)));
+                    () -> customerService.saveAllCustomers(List.of(first, second).iterator()));
 
             assertEquals(409, ex.getStatusCode().value());
+            verify(customerRepo, never()).findExistingEmailsIgnoreCase(anyCollection());
+            verify(customerRepo, never()).saveAll(anyList());
+        }
+
+        private Customer customer(String name, String email, String phoneNumber) {
+            Customer customer = new Customer();
+            customer.setName(name);
+            customer.setEmail(email);
+            customer.setPhoneNumber(phoneNumber);
+            return customer;
         }
     }
 }
@@ -1,11 +1,19 @@
 package org.example.chickendirect.unit.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.chickendirect.cache.ProductCatalogCache;
+import org.example.chickendirect.dtos.CursorPage;
 import org.example.chickendirect.dtos.OrderProductForCustomerOutputDto;
 import org.example.chickendirect.entities.Customer;
 import org.example.chickendirect.entities.Order;
 import org.example.chickendirect.entities.OrderProduct;
 import org.example.chickendirect.entities.Product;
 import org.example.chickendirect.enums.OrderStatus;
+import org.example.chickendirect.inventory.InventoryActors;
+import org.example.chickendirect.inventory.StockReservation;
+import org.example.chickendirect.inventory.StripedInventory;
+import org.example.chickendirect.metrics.OrderMetrics;
+import org.example.chickendirect.outbox.OutboxWriter;
 import org.example.chickendirect.repos.OrderProductRepo;
 import org.example.chickendirect.repos.OrderRepo;
 import org.example.chickendirect.repos.ProductRepo;
@@ -16,19 +24,24 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +58,23 @@ public class OrderProductServiceUnitTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @Mock
+    private StripedInventory stripedInventory;
+
+    @Mock
+    private InventoryActors inventoryActors;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private OrderMetrics orderMetrics = new OrderMetrics(meterRegistry);
+
     @InjectMocks
     private OrderProductService orderProductService;
 
@@ -58,8 +88,13 @@ public class OrderProductServiceUnitTest {
             product.setQuantity(10);
             product.setPrice(BigDecimal.valueOf(5));
 
+            Customer customer = new Customer();
+            customer.setEmail("customer@example.com");
+
             Order order = new Order();
             order.setOrderStatus(OrderStatus.CONFIRMED);
+            order.setCustomer(customer);
+            order.setTotalSum(BigDecimal.valueOf(10));
             order.setItems(new ArrayList<>());
 
             OrderProduct orderProduct = new OrderProduct();
@@ -69,9 +104,9 @@ public class OrderProductServiceUnitTest {
             orderProduct.setUnitPrice(product.getPrice());
             order.getItems().add(orderProduct);
 
-            when(orderProductRepo.findByOrderOrderIdAndOrderCustomerEmail(1L, "customer@example.com"))
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+            when(orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(1L, "Chicken Wings"))
                     .thenReturn(List.of(orderProduct));
-            when(productRepo.findByName("Chicken Wings")).thenReturn(Optional.of(product));
             when(productRepo.save(product)).thenReturn(product);
             when(orderProductRepo.save(orderProduct)).thenReturn(orderProduct);
             when(orderRepo.save(order)).thenReturn(order);
@@ -81,37 +116,287 @@ public class OrderProductServiceUnitTest {
             );
 
             assertEquals(5, dto.quantity());
+            assertEquals(0, BigDecimal.valueOf(25).compareTo(order.getTotalSum()));
+            assertEquals(0, BigDecimal.valueOf(150).compareTo(order.getShippingCharge()));
             verify(productRepo).save(product);
             verify(orderProductRepo).save(orderProduct);
             verify(orderRepo).save(order);
         }
 
         @Test
-        void testUpdateOrderProductQuantity_orderNotFound() {
-            when(orderProductRepo.findByOrderOrderIdAndOrderCustomerEmail(1L, "customer@example.com"))
-                    .thenReturn(List.of());
+        void testUpdateOrderProductQuantity_foldsDuplicateLinesIntoOldest() {
+            Product product = new Product();
+            product.setProductId(7L);
+            product.setName("Chicken Wings");
+            product.setQuantity(10);
+            product.setPrice(BigDecimal.valueOf(6));
+
+            Customer customer = new Customer();
+            customer.setEmail("customer@example.com");
+
+            Order order = new Order();
+            order.setOrderStatus(OrderStatus.CONFIRMED);
+            order.setCustomer(customer);
+            order.setTotalSum(BigDecimal.valueOf(16));
+            order.setItems(new ArrayList<>());
+
+            OrderProduct oldest = new OrderProduct();
+            oldest.setOrderProductId(1L);
+            oldest.setProduct(product);
+            oldest.setQuantity(2);
+            oldest.setOrder(order);
+            oldest.setUnitPrice(BigDecimal.valueOf(5));
+
+            OrderProduct duplicate = new OrderProduct();
+            duplicate.setOrderProductId(2L);
+            duplicate.setProduct(product);
+            duplicate.setQuantity(1);
+            duplicate.setOrder(order);
+            duplicate.setUnitPrice(BigDecimal.valueOf(6));
+            order.getItems().addAll(List.of(oldest, duplicate));
+
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+            when(orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(1L, "Chicken Wings"))
+                    .thenReturn(List.of(oldest, duplicate));
+
+            OrderProductForCustomerOutputDto dto = orderProductService.updateOrderProductQuantity(
+                    1L, "Chicken Wings", 5, "customer@example.com"
+            );
+
+            assertEquals(5, dto.quantity());
+            assertEquals(8, product.getQuantity());
+            assertEquals(List.of(oldest), order.getItems());
+            assertEquals(0, BigDecimal.valueOf(25).compareTo(order.getTotalSum()));
+            verify(orderProductRepo).delete(duplicate);
+            verify(orderProductRepo).save(oldest);
+            verify(outboxWriter).orderLineRemoved(duplicate);
+            verify(outboxWriter).orderLineUpdated(oldest, 2);
+        }
+
+        @Test
+        void testUpdateOrderProductQuantity_comparesAgainstAllDuplicateLines() {
+            Product product = new Product();
+            product.setProductId(7L);
+            product.setName("Chicken Wings");
+            product.setQuantity(10);
+
+            Customer customer = new Customer();
+            customer.setEmail("customer@example.com");
+
+            Order order = new Order();
+            order.setOrderStatus(OrderStatus.CONFIRMED);
+            order.setCustomer(customer);
+
+            OrderProduct oldest = new OrderProduct();
+            oldest.setProduct(product);
+            oldest.setQuantity(2);
+            oldest.setOrder(order);
+
+            OrderProduct duplicate = new OrderProduct();
+            duplicate.setProduct(product);
+            duplicate.setQuantity(3);
+            duplicate.setOrder(order);
+
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+            when(orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(1L, "Chicken Wings"))
+                    .thenReturn(List.of(oldest, duplicate));
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
                     orderProductService.updateOrderProductQuantity(1L, "Chicken Wings", 5, "customer@example.com")
             );
 
-            assertEquals(404, ex.getStatusCode().value());
+            assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+            verify(orderProductRepo, never()).delete(any());
         }
 
         @Test
-        void testUpdateOrderProductQuantity_productNotInOrder() {
-            Product productInOrder = new Product();
-            productInOrder.setName("Chicken Breast");
+        void testUpdateOrderProductQuantity_actorDecidesOnStock() {
+            Product product = new Product();
+            product.setProductId(7L);
+            product.setName("Chicken Wings");
+            product.setQuantity(0);
+            product.setPrice(BigDecimal.valueOf(5));
+
+            Customer customer = new Customer();
+            customer.setEmail("customer@example.com");
 
             Order order = new Order();
             order.setOrderStatus(OrderStatus.CONFIRMED);
+            order.setCustomer(customer);
+            order.setTotalSum(BigDecimal.valueOf(10));
+            order.setItems(new ArrayList<>());
 
             OrderProduct orderProduct = new OrderProduct();
-            orderProduct.setProduct(productInOrder);
+            orderProduct.setProduct(product);
+            orderProduct.setQuantity(2);
             orderProduct.setOrder(order);
+            orderProduct.setUnitPrice(product.getPrice());
+            order.getItems().add(orderProduct);
 
-            when(orderProductRepo.findByOrderOrderIdAndOrderCustomerEmail(1L, "customer@example.com"))
+            when(inventoryActors.isEnabled()).thenReturn(true);
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+            when(orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(1L, "Chicken Wings"))
+                    .thenReturn(List.of(orderProduct));
+            when(inventoryActors.reserve(Map.of(7L, 3))).thenReturn(
+                    Map.of(7L, new StockReservation(StockReservation.Outcome.RESERVED, 4)));
+
+            OrderProductForCustomerOutputDto dto = orderProductService.updateOrderProductQuantity(
+                    1L, "Chicken Wings", 5, "customer@example.com"
+            );
+
+            assertEquals(5, dto.quantity());
+            assertEquals(0, product.getQuantity());
+            verify(productRepo, never()).save(any());
+        }
+
+        @Test
+        void testUpdateOrderProductQuantity_coalescerDecidesOnStock() {
+            Product product = new Product();
+            product.setProductId(7L);
+            product.setName("Chicken Wings");
+            product.setQuantity(0);
+            product.setPrice(BigDecimal.valueOf(5));
+
+            Customer customer = new Customer();
+            customer.setEmail("customer@example.com");
+
+            Order order = new Order();
+            order.setOrderStatus(OrderStatus.CONFIRMED);
+            order.setCustomer(customer);
+            order.setTotalSum(BigDecimal.valueOf(10));
+
+            OrderProduct orderProduct = new OrderProduct();
+            orderProduct.setProduct(product);
+            orderProduct.setQuantity(2);
+            orderProduct.setOrder(order);
+            orderProduct.setUnitPrice(product.getPrice());
+
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+            when(orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(1L, "Chicken Wings"))
+                    .thenReturn(List.of(orderProduct));
+            when(orderService.coalescesStock(product)).thenReturn(true);
+            when(orderService.reserveCoalescedStock(7L, 3))
+                    .thenReturn(new StockReservation(StockReservation.Outcome.RESERVED, 4));
+
+            OrderProductForCustomerOutputDto dto = orderProductService.updateOrderProductQuantity(
+                    1L, "Chicken Wings", 5, "customer@example.com"
+            );
+
+            assertEquals(5, dto.quantity());
+            assertEquals(0, product.getQuantity());
+            verify(productRepo, never()).save(any());
+        }
+
+        @Test
+        void testUpdateOrderProductQuantity_coalescerReleasesLoweredQuantity() {
+            Product product = new Product();
+            product.setProductId(7L);
+            product.setName("Chicken Wings");
+            product.setQuantity(0);
+            product.setPrice(BigDecimal.valueOf(5));
+
+            Customer customer = new Customer();
+            customer.setEmail("customer@example.com");
+
+            Order order = new Order();
+            order.setOrderStatus(OrderStatus.CONFIRMED);
+            order.setCustomer(customer);
+            order.setTotalSum(BigDecimal.valueOf(25));
+
+            OrderProduct orderProduct = new OrderProduct();
+            orderProduct.setProduct(product);
+            orderProduct.setQuantity(5);
+            orderProduct.setOrder(order);
+            orderProduct.setUnitPrice(product.getPrice());
+
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+            when(orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(1L, "Chicken Wings"))
                     .thenReturn(List.of(orderProduct));
+            when(orderService.coalescesStock(product)).thenReturn(true);
+
+            orderProductService.updateOrderProductQuantity(1L, "Chicken Wings", 2, "customer@example.com");
+
+            verify(orderService).releaseCoalescedStock(7L, 3);
+            assertEquals(0, product.getQuantity());
+            verify(productRepo, never()).save(any());
+        }
+
+        @Test
+        void testUpdateOrderProductQuantity_actorRejectsInsufficientStock() {
+            Product product = new Product();
+            product.setProductId(7L);
+            product.setName("Chicken Wings");
+            product.setQuantity(50);
+
+            Customer customer = new Customer();
+            customer.setEmail("customer@example.com");
+
+            Order order = new Order();
+            order.setOrderStatus(OrderStatus.CONFIRMED);
+            order.setCustomer(customer);
+
+            OrderProduct orderProduct = new OrderProduct();
+            orderProduct.setProduct(product);
+            orderProduct.setQuantity(2);
+            orderProduct.setOrder(order);
+
+            when(inventoryActors.isEnabled()).thenReturn(true);
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+            when(orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(1L, "Chicken Wings"))
+                    .thenReturn(List.of(orderProduct));
+            when(inventoryActors.reserve(Map.of(7L, 3))).thenReturn(
+                    Map.of(7L, new StockReservation(StockReservation.Outcome.INSUFFICIENT_STOCK, 1)));
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
+                    orderProductService.updateOrderProductQuantity(1L, "Chicken Wings", 5, "customer@example.com")
+            );
+
+            assertEquals(400, ex.getStatusCode().value());
+            assertEquals(2, orderProduct.getQuantity());
+        }
+
+        @Test
+        void testUpdateOrderProductQuantity_orderNotFound() {
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.empty());
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
+                    orderProductService.updateOrderProductQuantity(1L, "Chicken Wings", 5, "customer@example.com")
+            );
+
+            assertEquals(404, ex.getStatusCode().value());
+        }
+
+        @Test
+        void testUpdateOrderProductQuantity_emailMustMatchExactly() {
+            Customer customer = new Customer();
+            customer.setEmail("customer@example.com");
+
+            Order order = new Order();
+            order.setOrderStatus(OrderStatus.CONFIRMED);
+            order.setCustomer(customer);
+
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
+                    orderProductService.updateOrderProductQuantity(1L, "Chicken Wings", 5, "Customer@Example.com")
+            );
+
+            assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+            verifyNoInteractions(orderProductRepo);
+        }
+
+        @Test
+        void testUpdateOrderProductQuantity_productNotInOrder() {
+            Customer customer = new Customer();
+            customer.setEmail("customer@example.com");
+
+            Order order = new Order();
+            order.setOrderStatus(OrderStatus.CONFIRMED);
+            order.setCustomer(customer);
+
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+            when(orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(1L, "NonExisting"))
+                    .thenReturn(List.of());
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> {
                 orderProductService.updateOrderProductQuantity(1L, "NonExisting", 5, "customer@example.com");
@@ -125,14 +410,19 @@ public class OrderProductServiceUnitTest {
             Product product = new Product();
             product.setName("Chicken Wings"); // <--- Viktig!
 
+            Customer customer = new Customer();
+            customer.setEmail("customer@example.com");
+
             Order order = new Order();
             order.setOrderStatus(OrderStatus.SHIPPED); // Status som blokkerer oppdatering
+            order.setCustomer(customer);
 
             OrderProduct orderProduct = new OrderProduct();
             orderProduct.setProduct(product);
             orderProduct.setOrder(order);
 
-            when(orderProductRepo.findByOrderOrderIdAndOrderCustomerEmail(1L, "customer@example.com"))
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+            when(orderProductRepo.findByOrderOrderIdAndProductNameIgnoreCaseOrderByOrderProductIdAsc(1L, "Chicken Wings"))
                     .thenReturn(List.of(orderProduct));
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> {
@@ -162,8 +452,10 @@ public class OrderProductServiceUnitTest {
             order.setOrderStatus(OrderStatus.CONFIRMED);
             order.setItems(new ArrayList<>());
             order.setCustomer(customer);
+            order.setTotalSum(BigDecimal.valueOf(580));
+            order.setShippingCharge(BigDecimal.valueOf(150));
 
-            when(orderRepo.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
             when(productRepo.findById(1L)).thenReturn(Optional.of(product));
             when(productRepo.save(product)).thenReturn(product);
             when(orderProductRepo.save(any(OrderProduct.class))).thenAnswer(i -> i.getArgument(0));
@@ -175,6 +467,8 @@ public class OrderProductServiceUnitTest {
 
             assertEquals(5, dto.quantity());
             assertEquals("Chicken Wings", dto.name());
+            assertEquals(0, BigDecimal.valueOf(605).compareTo(order.getTotalSum()));
+            assertEquals(0, BigDecimal.ZERO.compareTo(order.getShippingCharge()));
             verify(productRepo).save(product);
             verify(orderProductRepo).save(any(OrderProduct.class));
             verify(orderRepo).save(order);
@@ -182,7 +476,7 @@ public class OrderProductServiceUnitTest {
 
         @Test
         void testAddProductToOrder_orderNotFound() {
-            when(orderRepo.findById(1L)).thenReturn(Optional.empty());
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.empty());
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> orderProductService.addProductToOrder(1L, 1L, 5, "customer@example.com"));
@@ -207,13 +501,18 @@ public class OrderProductServiceUnitTest {
             order.setItems(new ArrayList<>());
             order.setCustomer(customer);
 
-            when(orderRepo.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
             when(productRepo.findById(1L)).thenReturn(Optional.of(product));
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> orderProductService.addProductToOrder(1L, 1L, 5, "customer@example.com"));
 
             assertEquals(400, ex.getStatusCode().value());
+            assertEquals(1, meterRegistry.get(OrderMetrics.STOCK_REJECTIONS).counter().count());
+            assertEquals(1, meterRegistry.get(OrderMetrics.ORDER_LINE_MUTATION)
+                    .tag("operation", "add_product")
+                    .tag("outcome", OrderMetrics.OUTCOME_REJECTED)
+                    .timer().count());
         }
     }
 
@@ -230,12 +529,13 @@ public class OrderProductServiceUnitTest {
             op.setQuantity(2);
             op.setUnitPrice(BigDecimal.valueOf(5));
 
-            when(orderProductRepo.findAll()).thenReturn(List.of(op));
+            when(orderProductRepo.findByOrderProductIdGreaterThanOrderByOrderProductIdAsc(0L, Limit.of(101)))
+                    .thenReturn(List.of(op));
 
-            List<OrderProductForCustomerOutputDto> result = orderProductService.findAllOrderProducts();
+            CursorPage<OrderProductForCustomerOutputDto> result = orderProductService.findAllOrderProducts(0L, 100);
 
-            assertEquals(1, result.size());
-            assertEquals("Chicken Wings", result.get(0).name());
+            assertEquals(1, result.items().size());
+            assertEquals("Chicken Wings", result.items().get(0).name());
         }
     }
 
@@ -324,27 +624,78 @@ public class OrderProductServiceUnitTest {
             order.setOrderStatus(OrderStatus.CONFIRMED);
             order.setItems(new ArrayList<>());
             order.setCustomer(customer);
+            order.setTotalSum(BigDecimal.valueOf(610));
+            order.setShippingCharge(BigDecimal.ZERO);
 
             OrderProduct op = new OrderProduct();
             op.setProduct(product);
             op.setQuantity(2);
+            op.setUnitPrice(BigDecimal.valueOf(5));
 
             order.getItems().add(op);
 
-            when(orderRepo.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+            when(orderProductRepo.findByOrderOrderIdAndProductProductIdOrderByOrderProductIdAsc(1L, 1L)).thenReturn(List.of(op));
 
             orderProductService.deleteProductFromOrder(1L, 1L, "customer@example.com");
 
             assertTrue(order.getItems().isEmpty());
             assertEquals(7, product.getQuantity());
+            assertEquals(0, BigDecimal.valueOf(600).compareTo(order.getTotalSum()));
+            assertEquals(0, BigDecimal.valueOf(150).compareTo(order.getShippingCharge()));
             verify(productRepo).save(product);
             verify(orderProductRepo).delete(op);
             verify(orderRepo).save(order);
         }
 
+        @Test
+        void testDeleteProductFromOrder_removesEveryDuplicateLine() {
+            Product product = new Product();
+            product.setProductId(1L);
+            product.setQuantity(5);
+
+            Customer customer = new Customer();
+            customer.setEmail("customer@example.com");
+
+            Order order = new Order();
+            order.setOrderId(1L);
+            order.setOrderStatus(OrderStatus.CONFIRMED);
+            order.setItems(new ArrayList<>());
+            order.setCustomer(customer);
+            order.setTotalSum(BigDecimal.valueOf(616));
+            order.setShippingCharge(BigDecimal.ZERO);
+
+            OrderProduct oldest = new OrderProduct();
+            oldest.setProduct(product);
+            oldest.setQuantity(2);
+            oldest.setUnitPrice(BigDecimal.valueOf(5));
+
+            OrderProduct duplicate = new OrderProduct();
+            duplicate.setProduct(product);
+            duplicate.setQuantity(1);
+            duplicate.setUnitPrice(BigDecimal.valueOf(6));
+
+            order.getItems().addAll(List.of(oldest, duplicate));
+
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+            when(orderProductRepo.findByOrderOrderIdAndProductProductIdOrderByOrderProductIdAsc(1L, 1L))
+                    .thenReturn(List.of(oldest, duplicate));
+
+            orderProductService.deleteProductFromOrder(1L, 1L, "customer@example.com");
+
+            assertTrue(order.getItems().isEmpty());
+            assertEquals(8, product.getQuantity());
+            assertEquals(0, BigDecimal.valueOf(600).compareTo(order.getTotalSum()));
+            verify(productRepo).save(product);
+            verify(orderProductRepo).delete(oldest);
+            verify(orderProductRepo).delete(duplicate);
+            verify(outboxWriter).orderLineRemoved(oldest);
+            verify(outboxWriter).orderLineRemoved(duplicate);
+        }
+
         @Test
         void testDeleteProductFromOrder_orderNotFound() {
-            when(orderRepo.findById(1L)).thenReturn(Optional.empty());
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.empty());
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> orderProductService.deleteProductFromOrder(1L, 1L, "customer@example.com"));
@@ -365,7 +716,7 @@ public class OrderProductServiceUnitTest {
             order.setOrderStatus(OrderStatus.CONFIRMED);
             order.setCustomer(customer);
 
-            when(orderRepo.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> orderProductService.deleteProductFromOrder(1L, 1L, "customer@example.com"));
@@ -391,7 +742,7 @@ public class OrderProductServiceUnitTest {
             op.setQuantity(2);
             order.setItems(List.of(op));
 
-            when(orderRepo.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> orderProductService.deleteProductFromOrder(1L, 1L, "customer@example.com"));
@@ -1,32 +1,52 @@
 package org.example.chickendirect.unit.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.chickendirect.cache.ProductCatalogCache;
+import org.example.chickendirect.dtos.BatchOrderResult;
 import org.example.chickendirect.dtos.OrderInputDto;
 import org.example.chickendirect.dtos.OrderOutputDto;
 import org.example.chickendirect.dtos.OrderProductInputDto;
 import org.example.chickendirect.entities.*;
 import org.example.chickendirect.enums.OrderStatus;
 import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.enums.StockReservationMode;
+import org.example.chickendirect.inventory.InventoryActors;
+import org.example.chickendirect.inventory.ReservationCoalescer;
+import org.example.chickendirect.inventory.StockReservation;
+import org.example.chickendirect.inventory.StripedInventory;
+import org.example.chickendirect.metrics.OrderMetrics;
+import org.example.chickendirect.outbox.OutboxWriter;
 import org.example.chickendirect.repos.AddressRepo;
 import org.example.chickendirect.repos.CustomerRepo;
 import org.example.chickendirect.repos.OrderRepo;
 import org.example.chickendirect.repos.ProductRepo;
 import org.example.chickendirect.services.OrderService;
+import org.example.chickendirect.services.StockHoldService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -45,6 +65,29 @@ public class OrderServiceUnitTest {
     @Mock
     private ProductRepo productRepo;
 
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @Mock
+    private StripedInventory stripedInventory;
+
+    @Mock
+    private ReservationCoalescer reservationCoalescer;
+
+    @Mock
+    private InventoryActors inventoryActors;
+
+    @Mock
+    private StockHoldService stockHoldService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private OrderMetrics orderMetrics = new OrderMetrics(meterRegistry);
+
     @InjectMocks
     private OrderService orderService;
 
@@ -76,7 +119,7 @@ public class OrderServiceUnitTest {
 
             when(customerRepo.findById(1L)).thenReturn(Optional.of(customer));
             when(addressRepo.findById(1L)).thenReturn(Optional.of(address));
-            when(productRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(product));
+            when(productRepo.findAllByIdForUpdate(Set.of(1L))).thenReturn(List.of(product));
             when(orderRepo.save(Mockito.any(Order.class)))
                     .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -91,8 +134,14 @@ public class OrderServiceUnitTest {
 
             verify(customerRepo).findById(1L);
             verify(addressRepo).findById(1L);
-            verify(productRepo).findByIdForUpdate(1L);
+            verify(productRepo).findAllByIdForUpdate(Set.of(1L));
             verify(orderRepo).save(any(Order.class));
+            verify(productCatalogCache).evictStock(1L);
+            assertEquals(1, meterRegistry.get(OrderMetrics.ORDER_CREATE)
+                    .tag("outcome", OrderMetrics.OUTCOME_SUCCESS)
+                    .tag("mode", StockReservationMode.PESSIMISTIC_LOCK.name())
+                    .timer().count());
+            assertEquals(1, meterRegistry.get(OrderMetrics.ORDER_LOCK_WAIT).timer().count());
         }
 
         @Test
@@ -123,7 +172,7 @@ public class OrderServiceUnitTest {
         void testCreateOrder_productNotFound() {
             when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
             when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
-            when(productRepo.findByIdForUpdate(1L)).thenReturn(Optional.empty());
+            when(productRepo.findAllByIdForUpdate(Set.of(1L))).thenReturn(List.of());
 
             var input = new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 1)));
 
@@ -135,29 +184,35 @@ public class OrderServiceUnitTest {
         @Test
         void testCreateOrder_productOutOfStock() {
             Product product = new Product();
+            product.setProductId(1L);
             product.setQuantity(0);
             product.setName("Chicken Wings");
 
             when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
             when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
-            when(productRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(product));
+            when(productRepo.findAllByIdForUpdate(Set.of(1L))).thenReturn(List.of(product));
 
             var input = new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 1)));
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> orderService.createOrder(input));
             assertEquals(400, ex.getStatusCode().value());
+            assertEquals(1, meterRegistry.get(OrderMetrics.STOCK_REJECTIONS)
+                    .tag("reason", OrderMetrics.REASON_OUT_OF_STOCK).counter().count());
+            assertEquals(1, meterRegistry.get(OrderMetrics.ORDER_CREATE)
+                    .tag("outcome", OrderMetrics.OUTCOME_REJECTED).timer().count());
         }
 
         @Test
         void testCreateOrder_NotEnoughInStock() {
             Product product = new Product();
+            product.setProductId(1L);
             product.setQuantity(2);
             product.setName("Chicken");
 
             when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
             when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
-            when(productRepo.findByIdForUpdate(1L)).thenReturn(Optional.of(product));
+            when(productRepo.findAllByIdForUpdate(Set.of(1L))).thenReturn(List.of(product));
 
             var input = new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 5)));
 
@@ -169,12 +224,13 @@ public class OrderServiceUnitTest {
         @Test
         void testCreateOrder_shippingFree() {
             Product product = new Product();
+            product.setProductId(1L);
             product.setQuantity(100);
             product.setPrice(BigDecimal.valueOf(700));
 
             when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
             when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
-            when(productRepo.findByIdForUpdate(anyLong())).thenReturn(Optional.of(product));
+            when(productRepo.findAllByIdForUpdate(Set.of(1L))).thenReturn(List.of(product));
             when(orderRepo.save(any(Order.class)))
                     .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -185,6 +241,380 @@ public class OrderServiceUnitTest {
             assertEquals(99, product.getQuantity());
             assertEquals(ProductStatus.IN_STOCK, product.getProductStatus());
         }
+
+        @Test
+        void testCreateOrder_mergesDuplicateLinesAndLocksOnce() {
+            Product wings = new Product();
+            wings.setProductId(1L);
+            wings.setQuantity(50);
+            wings.setPrice(BigDecimal.TEN);
+
+            Product breast = new Product();
+            breast.setProductId(2L);
+            breast.setQuantity(50);
+            breast.setPrice(BigDecimal.ONE);
+
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(productRepo.findAllByIdForUpdate(Set.of(1L, 2L))).thenReturn(List.of(wings, breast));
+            when(orderRepo.save(any(Order.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+
+            var input = new OrderInputDto(1L, 1L, List.of(
+                    new OrderProductInputDto(2L, 3),
+                    new OrderProductInputDto(1L, 4),
+                    new OrderProductInputDto(2L, 2)));
+            var result = orderService.createOrder(input);
+
+            assertEquals(2, result.orderItems().size());
+            assertEquals(1L, result.orderItems().get(0).productId());
+            assertEquals(5, result.orderItems().get(1).quantity());
+            assertEquals(46, wings.getQuantity());
+            assertEquals(45, breast.getQuantity());
+            verify(productRepo).findAllByIdForUpdate(Set.of(1L, 2L));
+        }
+    }
+
+    @Nested
+    class StripedStockTests {
+
+        private Product stripedProduct(long id, int quantity) {
+            Product product = new Product();
+            product.setProductId(id);
+            product.setName("Striped " + id);
+            product.setPrice(BigDecimal.TEN);
+            product.setStripeCount(4);
+            product.setStripeTotal(quantity);
+            return product;
+        }
+
+        @Test
+        void testCreateOrder_reservesFromStripesWithoutRowLock() {
+            Product product = stripedProduct(1L, 13);
+
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(stripedInventory.isStriped(1L)).thenReturn(true);
+            when(productRepo.findAllById(Set.of(1L))).thenReturn(List.of(product));
+            when(stripedInventory.reserve(product, 5)).thenReturn(new StripedInventory.Reservation(true, 8));
+            when(orderRepo.save(any(Order.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+
+            var result = orderService.createOrder(new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 5))));
+
+            assertEquals(BigDecimal.valueOf(50), result.totalSum());
+            assertEquals(ProductStatus.PENDING_RESTOCK, product.getProductStatus());
+            verify(productRepo, never()).findAllByIdForUpdate(any());
+        }
+
+        @Test
+        void testCreateOrder_releasesStripesWhenLaterLineIsShort() {
+            Customer customer = new Customer();
+            customer.setCustomerId(1L);
+            Address address = new Address();
+            address.setAddressId(1L);
+            Product wings = stripedProduct(1L, 40);
+            Product breast = stripedProduct(2L, 8);
+
+            when(customerRepo.findAllById(Set.of(1L))).thenReturn(List.of(customer));
+            when(addressRepo.findAllById(Set.of(1L))).thenReturn(List.of(address));
+            when(stripedInventory.isStriped(anyLong())).thenReturn(true);
+            when(productRepo.findAllById(Set.of(1L, 2L))).thenReturn(List.of(wings, breast));
+            when(stripedInventory.reserve(wings, 5)).thenReturn(new StripedInventory.Reservation(true, 35));
+            when(stripedInventory.reserve(breast, 5)).thenReturn(new StripedInventory.Reservation(false, 3));
+            when(stripedInventory.release(wings, 5)).thenReturn(40);
+
+            var results = orderService.createOrders(List.of(new OrderInputDto(1L, 1L, List.of(
+                    new OrderProductInputDto(1L, 5), new OrderProductInputDto(2L, 5)))));
+
+            assertFalse(results.get(0).success());
+            assertEquals(400, results.get(0).status());
+            verify(stripedInventory).release(wings, 5);
+            assertEquals(ProductStatus.IN_STOCK, wings.getProductStatus());
+        }
+    }
+
+    @Nested
+    class GroupCommitReservationTests {
+
+        @BeforeEach
+        void useGroupCommit() {
+            ReflectionTestUtils.setField(orderService, "stockReservationMode", StockReservationMode.GROUP_COMMIT);
+        }
+
+        private Product product(long id) {
+            Product product = new Product();
+            product.setProductId(id);
+            product.setName("Product " + id);
+            product.setPrice(BigDecimal.TEN);
+            return product;
+        }
+
+        @Test
+        void testCreateOrder_reservesThroughCoalescerWithoutLocking() {
+            Product product = product(1L);
+
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(reservationCoalescer.reserve(1L, 5)).thenReturn(CompletableFuture.completedFuture(
+                    new StockReservation(StockReservation.Outcome.RESERVED, 10)));
+            when(productRepo.findAllById(Set.of(1L))).thenReturn(List.of(product));
+            when(orderRepo.save(any(Order.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+
+            var result = orderService.createOrder(new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 5))));
+
+            assertEquals(BigDecimal.valueOf(50), result.totalSum());
+            verify(reservationCoalescer).releaseOnRollback(1L, 5);
+            verify(productRepo, never()).findAllByIdForUpdate(any());
+        }
+
+        @Test
+        void testCreateOrder_insufficientStockKeepsOtherLinesReleasable() {
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(reservationCoalescer.reserve(1L, 5)).thenReturn(CompletableFuture.completedFuture(
+                    new StockReservation(StockReservation.Outcome.RESERVED, 10)));
+            when(reservationCoalescer.reserve(2L, 5)).thenReturn(CompletableFuture.completedFuture(
+                    new StockReservation(StockReservation.Outcome.INSUFFICIENT_STOCK, 3)));
+            when(productRepo.findAllById(Set.of(1L, 2L))).thenReturn(List.of(product(1L), product(2L)));
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> orderService.createOrder(new OrderInputDto(1L, 1L, List.of(
+                            new OrderProductInputDto(1L, 5), new OrderProductInputDto(2L, 5)))));
+
+            assertEquals(400, ex.getStatusCode().value());
+            verify(reservationCoalescer).releaseOnRollback(1L, 5);
+            verify(reservationCoalescer, never()).releaseOnRollback(2L, 5);
+        }
+
+        @Test
+        void testCreateOrder_timesOutWhenBatchDoesNotComplete() {
+            ReflectionTestUtils.setField(orderService, "groupCommitTimeout", java.time.Duration.ofMillis(10));
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(reservationCoalescer.reserve(1L, 5)).thenReturn(new CompletableFuture<>());
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> orderService.createOrder(new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 5)))));
+
+            assertEquals(503, ex.getStatusCode().value());
+        }
+    }
+
+    @Nested
+    class ActorReservationTests {
+
+        @BeforeEach
+        void useActors() {
+            ReflectionTestUtils.setField(orderService, "stockReservationMode", StockReservationMode.ACTOR);
+        }
+
+        private Product product(long id) {
+            Product product = new Product();
+            product.setProductId(id);
+            product.setName("Product " + id);
+            product.setPrice(BigDecimal.TEN);
+            return product;
+        }
+
+        @Test
+        void testCreateOrder_reservesThroughActorsWithoutTouchingProductRows() {
+            Product product = product(1L);
+
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(productRepo.findAllById(Set.of(1L))).thenReturn(List.of(product));
+            when(inventoryActors.reserve(Map.of(1L, 5))).thenReturn(
+                    Map.of(1L, new StockReservation(StockReservation.Outcome.RESERVED, 10)));
+            when(orderRepo.save(any(Order.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+
+            var result = orderService.createOrder(new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 5))));
+
+            assertEquals(BigDecimal.valueOf(50), result.totalSum());
+            verify(productRepo, never()).findAllByIdForUpdate(any());
+            verify(productRepo, never()).save(any());
+        }
+
+        @Test
+        void testCreateOrder_rejectedLineGivesBackReservedLines() {
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(productRepo.findAllById(Set.of(1L, 2L))).thenReturn(List.of(product(1L), product(2L)));
+            when(inventoryActors.reserve(Map.of(1L, 5, 2L, 5))).thenReturn(Map.of(
+                    1L, new StockReservation(StockReservation.Outcome.RESERVED, 10),
+                    2L, new StockReservation(StockReservation.Outcome.INSUFFICIENT_STOCK, 3)));
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> orderService.createOrder(new OrderInputDto(1L, 1L, List.of(
+                            new OrderProductInputDto(1L, 5), new OrderProductInputDto(2L, 5)))));
+
+            assertEquals(400, ex.getStatusCode().value());
+            verify(inventoryActors).release(1L, 5);
+            verify(inventoryActors, never()).release(2L, 5);
+        }
+    }
+
+    @Nested
+    class StockHoldConversionTests {
+
+        private final UUID holdId = UUID.randomUUID();
+
+        @Test
+        void testCreateOrder_takesHeldLinesWithoutReservingAgain() {
+            Product product = new Product();
+            product.setProductId(1L);
+            product.setName("Chicken Breast");
+            product.setPrice(BigDecimal.TEN);
+            product.setQuantity(3);
+
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(stockHoldService.claimHold(holdId, 1L, Map.of())).thenReturn(Map.of(1L, 4));
+            when(productRepo.findAllById(Set.of(1L))).thenReturn(List.of(product));
+            when(orderRepo.save(any(Order.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+
+            var result = orderService.createOrder(new OrderInputDto(1L, 1L, List.of(), holdId));
+
+            assertEquals(BigDecimal.valueOf(40), result.totalSum());
+            assertEquals(3, product.getQuantity());
+            verify(productRepo, never()).findAllByIdForUpdate(any());
+            verify(productRepo, never()).findByIdForUpdate(anyLong());
+            verify(productRepo, never()).reserveStock(anyLong(), Mockito.anyInt(), Mockito.anyInt());
+            verify(productCatalogCache).evictStock(1L);
+        }
+
+        @Test
+        void testCreateOrder_expiredHoldIsRejected() {
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(stockHoldService.claimHold(holdId, 1L, Map.of(1L, 2)))
+                    .thenThrow(new ResponseStatusException(HttpStatus.GONE, "Stock hold has expired"));
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> orderService.createOrder(
+                            new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 2)), holdId)));
+
+            assertEquals(410, ex.getStatusCode().value());
+            verify(orderRepo, never()).save(any());
+        }
+    }
+
+    @Nested
+    class ConditionalUpdateReservationTests {
+
+        @BeforeEach
+        void useConditionalUpdates() {
+            ReflectionTestUtils.setField(orderService, "stockReservationMode", StockReservationMode.CONDITIONAL_UPDATE);
+        }
+
+        @Test
+        void testCreateOrder_reservesWithoutLocking() {
+            Product product = new Product();
+            product.setProductId(1L);
+            product.setPrice(BigDecimal.TEN);
+            product.setQuantity(15);
+
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(productRepo.reserveStock(1L, 5, OrderService.LOW_STOCK_THRESHOLD)).thenReturn(Optional.of(product));
+            when(orderRepo.save(any(Order.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+
+            var result = orderService.createOrder(new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 5))));
+
+            assertEquals(BigDecimal.valueOf(50), result.totalSum());
+            verify(productRepo, never()).findAllByIdForUpdate(any());
+        }
+
+        @Test
+        void testCreateOrder_rejectedWhenStockInsufficient() {
+            Product product = new Product();
+            product.setProductId(1L);
+            product.setName("Chicken");
+            product.setQuantity(2);
+
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(productRepo.reserveStock(1L, 5, OrderService.LOW_STOCK_THRESHOLD)).thenReturn(Optional.empty());
+            when(productRepo.findById(1L)).thenReturn(Optional.of(product));
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> orderService.createOrder(new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 5)))));
+            assertEquals(400, ex.getStatusCode().value());
+        }
+
+        @Test
+        void testCreateOrder_productNotFound() {
+            when(customerRepo.findById(anyLong())).thenReturn(Optional.of(new Customer()));
+            when(addressRepo.findById(anyLong())).thenReturn(Optional.of(new Address()));
+            when(productRepo.reserveStock(1L, 1, OrderService.LOW_STOCK_THRESHOLD)).thenReturn(Optional.empty());
+            when(productRepo.findById(1L)).thenReturn(Optional.empty());
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> orderService.createOrder(new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 1)))));
+            assertEquals(404, ex.getStatusCode().value());
+        }
+    }
+
+    @Nested
+    class CreateOrdersBatchTests {
+
+        @Test
+        void testCreateOrders_reportsResultPerOrderAndLocksOnce() {
+            Customer customer = new Customer();
+            customer.setCustomerId(1L);
+
+            Address address = new Address();
+            address.setAddressId(1L);
+
+            Product wings = new Product();
+            wings.setProductId(1L);
+            wings.setName("Chicken Wings");
+            wings.setPrice(BigDecimal.TEN);
+            wings.setQuantity(20);
+
+            Product thighs = new Product();
+            thighs.setProductId(2L);
+            thighs.setName("Chicken Thighs");
+            thighs.setPrice(BigDecimal.ONE);
+            thighs.setQuantity(5);
+
+            List<OrderInputDto> inputs = List.of(
+                    new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(2L, 3), new OrderProductInputDto(1L, 2))),
+                    new OrderInputDto(1L, 1L, List.of(new OrderProductInputDto(1L, 1), new OrderProductInputDto(2L, 3))),
+                    new OrderInputDto(99L, 1L, List.of(new OrderProductInputDto(1L, 1))));
+
+            when(customerRepo.findAllById(Set.of(1L, 99L))).thenReturn(List.of(customer));
+            when(addressRepo.findAllById(Set.of(1L))).thenReturn(List.of(address));
+            when(productRepo.findAllByIdForUpdate(Set.of(1L, 2L))).thenReturn(List.of(wings, thighs));
+
+            List<BatchOrderResult> results = orderService.createOrders(inputs);
+
+            assertEquals(3, results.size());
+            assertTrue(results.get(0).success());
+            assertEquals(2, results.get(0).order().orderItems().size());
+            assertFalse(results.get(1).success());
+            assertEquals(400, results.get(1).status());
+            assertFalse(results.get(2).success());
+            assertEquals(404, results.get(2).status());
+
+            assertEquals(18, wings.getQuantity());
+            assertEquals(2, thighs.getQuantity());
+            verify(productRepo).findAllByIdForUpdate(Set.of(1L, 2L));
+            verify(orderRepo).saveAll(any());
+        }
+
+        @Test
+        void testCreateOrders_rejectsEmptyBatch() {
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> orderService.createOrders(List.of()));
+
+            assertEquals(400, ex.getStatusCode().value());
+            verify(productRepo, never()).findAllByIdForUpdate(any());
+        }
     }
 
     @Nested
@@ -236,7 +666,7 @@ public class OrderServiceUnitTest {
             order.setCustomer(customer);
             order.setAddress(address);
 
-            when(orderRepo.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepo.findWithDetailsByOrderId(1L)).thenReturn(Optional.of(order));
             when(orderRepo.save(any(Order.class)))
                     .thenAnswer(inv -> inv.getArgument(0));
 
@@ -247,7 +677,7 @@ public class OrderServiceUnitTest {
 
         @Test
         void testUpdateOrderStatus_notFound(){
-            when(orderRepo.findById(1L)).thenReturn(Optional.empty());
+            when(orderRepo.findWithDetailsByOrderId(1L)).thenReturn(Optional.empty());
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> orderService.updateOrderStatus(1L, OrderStatus.DELIVERED));
@@ -271,7 +701,7 @@ public class OrderServiceUnitTest {
             order.setCustomer(customer);
             order.setAddress(address);
 
-            when(orderRepo.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepo.findWithDetailsByOrderId(1L)).thenReturn(Optional.of(order));
 
             var result = orderService.findOrderById(1L);
 
@@ -280,7 +710,7 @@ public class OrderServiceUnitTest {
 
         @Test
         void testFindOrderById_notFound(){
-            when(orderRepo.findById(1L)).thenReturn(Optional.empty());
+            when(orderRepo.findWithDetailsByOrderId(1L)).thenReturn(Optional.empty());
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> orderService.findOrderById(1L));
@@ -354,7 +784,7 @@ public class OrderServiceUnitTest {
             order.setOrderStatus(OrderStatus.CONFIRMED);
             order.setItems(List.of(op));
 
-            when(orderRepo.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepo.findWithDetailsByOrderId(1L)).thenReturn(Optional.of(order));
             when(productRepo.save(any(Product.class)))
                     .thenAnswer(i -> i.getArgument(0));
 
@@ -366,7 +796,7 @@ public class OrderServiceUnitTest {
 
         @Test
         void testDeleteOrder_notFound(){
-            when(orderRepo.findById(1L)).thenReturn(Optional.empty());
+            when(orderRepo.findWithDetailsByOrderId(1L)).thenReturn(Optional.empty());
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> orderService.deleteOrderById(1L));
@@ -378,7 +808,7 @@ public class OrderServiceUnitTest {
             Order order = new Order();
             order.setOrderStatus(OrderStatus.DELIVERED);
 
-            when(orderRepo.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepo.findWithDetailsByOrderId(1L)).thenReturn(Optional.of(order));
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> orderService.deleteOrderById(1L));
@@ -1,22 +1,34 @@
 package org.example.chickendirect.unit.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.chickendirect.cache.ProductCatalogCache;
+import org.example.chickendirect.dtos.BatchProductResult;
+import org.example.chickendirect.dtos.CursorPage;
 import org.example.chickendirect.dtos.ProductDto;
 import org.example.chickendirect.entities.Product;
 import org.example.chickendirect.enums.ProductStatus;
+import org.example.chickendirect.inventory.InventoryActors;
+import org.example.chickendirect.inventory.StripedInventory;
 import org.example.chickendirect.repos.ProductRepo;
 import org.example.chickendirect.services.ProductService;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,9 +39,26 @@ public class ProductServiceUnitTest {
     @Mock
     private ProductRepo productRepo;
 
-    @InjectMocks
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private StripedInventory stripedInventory;
+
+    @Mock
+    private InventoryActors inventoryActors;
+
     private ProductService productService;
 
+    @BeforeEach
+    void setUp() {
+        ProductCatalogCache productCatalogCache =
+                new ProductCatalogCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry(),
+                        mock(EntityManagerFactory.class, RETURNS_DEEP_STUBS));
+        productService = new ProductService(productRepo, productCatalogCache, entityManager, stripedInventory,
+                inventoryActors);
+    }
+
     @Nested
     class CreateProductTests {
 
@@ -106,14 +135,17 @@ public class ProductServiceUnitTest {
             ProductDto dto1 = new ProductDto("Chicken Wings", "Wings", BigDecimal.ONE, 10, "kg");
             ProductDto dto2 = new ProductDto("Chicken Breast", "Breast", BigDecimal.ONE, 10, "kg");
 
-            when(productRepo.findByName(anyString())).thenReturn(Optional.empty());
-            when(productRepo.save(any(Product.class))).thenAnswer(i -> i.getArgument(0));
+            when(productRepo.findExistingNames(anySet())).thenReturn(Set.of());
+            when(productRepo.saveAll(anyList())).thenAnswer(i -> i.getArgument(0));
 
-            List<Product> result = productService.createProducts(List.of(dto1, dto2));
-            assertEquals(2, result.size());
+            List<BatchProductResult> result = productService.createProducts(List.of(dto1, dto2));
 
-            verify(productRepo).findByName("Chicken Wings");
-            verify(productRepo, times(2)).save(any(Product.class));
+            assertEquals(2, result.size());
+            assertTrue(result.stream().allMatch(BatchProductResult::created));
+            verify(productRepo).findExistingNames(Set.of("Chicken Wings", "Chicken Breast"));
+            verify(productRepo, never()).findByName(anyString());
+            verify(productRepo, times(1)).saveAll(anyList());
+            verify(productRepo, never()).save(any(Product.class));
         }
 
         @Test
@@ -121,19 +153,49 @@ public class ProductServiceUnitTest {
             ProductDto dto1 = new ProductDto("Chicken Wings", "Wings", BigDecimal.ONE, 10, "kg");
             ProductDto dto2 = new ProductDto("Chicken Breast", "Breast", BigDecimal.ONE, 10, "kg");
 
-            when(productRepo.findByName("Chicken Wings"))
-                    .thenReturn(Optional.empty());
-            when(productRepo.findByName("Chicken Breast"))
-                    .thenReturn(Optional.of(new Product()));
+            when(productRepo.findExistingNames(anySet())).thenReturn(Set.of("Chicken Breast"));
+            when(productRepo.saveAll(anyList())).thenAnswer(i -> i.getArgument(0));
 
-            when(productRepo.save(any(Product.class)))
-                    .thenAnswer(i -> i.getArgument(0));
+            List<BatchProductResult> result = productService.createProducts(List.of(dto1, dto2));
 
-            assertThrows(ResponseStatusException.class,
-                    () -> productService.createProducts(List.of(dto1, dto2)));
+            assertTrue(result.get(0).created());
+            assertFalse(result.get(1).created());
+            assertEquals(409, result.get(1).status());
+            verify(productRepo).saveAll(argThat((List<Product> products) ->
+                    products.size() == 1 && products.get(0).getName().equals("Chicken Wings")));
+        }
 
-            verify(productRepo, times(1)).save(any(Product.class));
+        @Test
+        void testCreateProducts_reportsDuplicatesAndInvalidRowsInRequest() {
+            ProductDto dto1 = new ProductDto("Chicken Wings", "Wings", BigDecimal.ONE, 10, "kg");
+            ProductDto duplicate = new ProductDto("Chicken Wings", "Wings again", BigDecimal.ONE, 10, "kg");
+            ProductDto noPrice = new ProductDto("Chicken Feet", "Feet", null, 10, "kg");
+
+            when(productRepo.findExistingNames(anySet())).thenReturn(Set.of());
+            when(productRepo.saveAll(anyList())).thenAnswer(i -> i.getArgument(0));
+
+            List<BatchProductResult> result = productService.createProducts(List.of(dto1, duplicate, noPrice));
+
+            assertTrue(result.get(0).created());
+            assertEquals(409, result.get(1).status());
+            assertEquals(400, result.get(2).status());
+        }
+
+        @Test
+        void testCreateProducts_insertsInChunks() {
+            List<ProductDto> dtos = IntStream.range(0, ProductService.IMPORT_CHUNK_SIZE * 2 + 1)
+                    .mapToObj(i -> new ProductDto("Product " + i, "Bulk", BigDecimal.ONE, 10, "kg"))
+                    .toList();
+
+            when(productRepo.findExistingNames(anySet())).thenReturn(Set.of());
+            when(productRepo.saveAll(anyList())).thenAnswer(i -> i.getArgument(0));
+
+            List<BatchProductResult> result = productService.createProducts(dtos);
 
+            assertEquals(dtos.size(), result.size());
+            verify(productRepo, times(3)).findExistingNames(anySet());
+            verify(productRepo, times(3)).saveAll(anyList());
+            verify(entityManager, times(3)).clear();
         }
     }
 
@@ -173,21 +235,46 @@ public class ProductServiceUnitTest {
         void testFindAllProducts() {
             Product p1 = new Product();
             Product p2 = new Product();
-            when(productRepo.findAll()).thenReturn(List.of(p1, p2));
+            when(productRepo.findByProductIdGreaterThanOrderByProductIdAsc(0L, Limit.of(11))).thenReturn(List.of(p1, p2));
 
-            List<Product> products = productService.findAllProducts();
+            CursorPage<Product> products = productService.findAllProducts(0L, 10);
 
-            assertEquals(2, products.size());
+            assertEquals(2, products.items().size());
+            assertNull(products.nextCursor());
         }
 
         @Test
         void testFindAllProducts_whenEmpty() {
 
-            when(productRepo.findAll()).thenReturn(List.of());
+            when(productRepo.findByProductIdGreaterThanOrderByProductIdAsc(0L, Limit.of(11))).thenReturn(List.of());
 
-            List<Product> result = productService.findAllProducts();
+            CursorPage<Product> result = productService.findAllProducts(0L, 10);
 
-            assertTrue(result.isEmpty());
+            assertTrue(result.items().isEmpty());
+        }
+
+        @Test
+        void testFindAllProducts_returnsNextCursorWhenMoreRowsExist() {
+            Product p1 = new Product();
+            p1.setProductId(5L);
+            Product p2 = new Product();
+            p2.setProductId(7L);
+            Product p3 = new Product();
+            p3.setProductId(9L);
+            when(productRepo.findByProductIdGreaterThanOrderByProductIdAsc(3L, Limit.of(3))).thenReturn(List.of(p1, p2, p3));
+
+            CursorPage<Product> result = productService.findAllProducts(3L, 2);
+
+            assertEquals(2, result.items().size());
+            assertEquals(7L, result.nextCursor());
+        }
+
+        @Test
+        void testFindAllProducts_rejectsInvalidLimit() {
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> productService.findAllProducts(0L, CursorPage.MAX_LIMIT + 1));
+
+            assertEquals(400, ex.getStatusCode().value());
         }
     }
 
@@ -334,6 +421,87 @@ public class ProductServiceUnitTest {
         }
     }
 
+    @Nested
+    class CatalogCacheTests {
+
+        @Test
+        void testFindProductById_servedFromCacheOnSecondCall() {
+            Product product = new Product();
+            product.setProductId(3L);
+            when(productRepo.findById(3L)).thenReturn(Optional.of(product));
+
+            productService.findProductById(3L);
+            Product cached = productService.findProductById(3L);
+
+            assertEquals(3L, cached.getProductId());
+            verify(productRepo, times(1)).findById(3L);
+        }
+
+        @Test
+        void testFindAllProducts_servedFromCacheOnSecondCall() {
+            Product product = new Product();
+            product.setProductId(4L);
+            when(productRepo.findByProductIdGreaterThanOrderByProductIdAsc(0L, Limit.of(11))).thenReturn(List.of(product));
+
+            productService.findAllProducts(0L, 10);
+            CursorPage<Product> cached = productService.findAllProducts(0L, 10);
+
+            assertEquals(1, cached.items().size());
+            verify(productRepo, times(1)).findByProductIdGreaterThanOrderByProductIdAsc(0L, Limit.of(11));
+        }
+
+        @Test
+        void testUpdateProductPrice_writesThroughToCache() {
+            Product product = new Product();
+            product.setProductId(5L);
+            product.setName("Chicken Wings");
+            product.setPrice(BigDecimal.TEN);
+            when(productRepo.findById(5L)).thenReturn(Optional.of(product));
+            when(productRepo.getReferenceById(5L)).thenReturn(product);
+            when(productRepo.save(product)).thenReturn(product);
+
+            productService.findProductById(5L);
+            when(productRepo.findByName("Chicken Wings")).thenReturn(Optional.of(product));
+            productService.updateProductPrice("Chicken Wings", BigDecimal.valueOf(15));
+
+            assertEquals(BigDecimal.valueOf(15), productService.findProductById(5L).getPrice());
+            verify(productRepo, times(1)).findById(5L);
+        }
+
+        @Test
+        void testUpdateProductPrice_resolvesNameFromCache() {
+            Product product = new Product();
+            product.setProductId(6L);
+            product.setName("Chicken Wings");
+            when(productRepo.findByName("Chicken Wings")).thenReturn(Optional.of(product));
+            when(productRepo.findById(6L)).thenReturn(Optional.of(product));
+            when(productRepo.getReferenceById(6L)).thenReturn(product);
+            when(productRepo.save(product)).thenReturn(product);
+
+            productService.updateProductPrice("Chicken Wings", BigDecimal.valueOf(15));
+            productService.updateProductPrice("Chicken Wings", BigDecimal.valueOf(20));
+
+            verify(productRepo, times(1)).findByName("Chicken Wings");
+            verify(productRepo, times(1)).findById(6L);
+        }
+
+        @Test
+        void testDeleteProductById_evictsCachedProduct() {
+            Product product = new Product();
+            product.setProductId(7L);
+            when(productRepo.findById(7L)).thenReturn(Optional.of(product));
+            when(productRepo.existsById(7L)).thenReturn(true);
+
+            productService.findProductById(7L);
+            productService.deleteProductById(7L);
+            when(productRepo.findById(7L)).thenReturn(Optional.empty());
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> productService.findProductById(7L));
+            assertEquals(404, ex.getStatusCode().value());
+        }
+    }
+
     @Nested
     class DeleteProductByIdTests {
 